@@ -0,0 +1,144 @@
+package com.ansoncht.catfoodtracker.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the same workload against the servlet and reactive stacks at a high
+ * number of concurrent connections and prints the results side by side.
+ * <p>
+ * Start one server per stack, for example {@code ./gradlew bootRun} and
+ * {@code ./gradlew bootRun --args='--spring.profiles.active=reactive --server.port=9091'},
+ * then run
+ * {@code ./gradlew connectionBenchmark -PbenchmarkArgs="servlet=http://localhost:9090 reactive=http://localhost:9091"}.
+ * <p>
+ * Every target gets a freshly signed-up user, and each connection calls the
+ * protected endpoint with that user's token in a loop. With
+ * {@code --signinEvery=N}, one request in N is a sign-in instead, which brings
+ * password hashing into the picture. Other options are {@code --connections},
+ * {@code --warmupSeconds} and {@code --durationSeconds}.
+ */
+public final class ConnectionBenchmark {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private ConnectionBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> targets = new LinkedHashMap<>();
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected name=url or --option=value but got " + arg);
+            }
+
+            if (pair[0].startsWith("--")) {
+                options.put(pair[0].substring(2), pair[1]);
+            } else {
+                targets.put(pair[0], pair[1]);
+            }
+        }
+
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("No targets given, pass name=url for each server");
+        }
+
+        int connections = Integer.parseInt(options.getOrDefault("connections", "2000"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmupSeconds", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("durationSeconds", "30")));
+        int signinEvery = Integer.parseInt(options.getOrDefault("signinEvery", "0"));
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, String> target : targets.entrySet()) {
+            System.out.printf("Running %s against %s with %d connections%n", target.getKey(), target.getValue(), connections);
+
+            results.add(run(target.getKey(), target.getValue(), connections, warmup, duration, signinEvery));
+        }
+
+        System.out.printf("%n%-12s %10s %8s %10s %9s %9s %9s %9s%n",
+                "target", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Result result : results) {
+            Histogram latency = result.latency();
+            System.out.printf("%-12s %10d %8d %10.0f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.name(), latency.getTotalCount(), result.errors(),
+                    latency.getTotalCount() / (result.elapsedNanos() / 1e9),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue()));
+        }
+    }
+
+    private static Result run(String name, String baseUrl, int connections, Duration warmup, Duration duration,
+                              int signinEvery) {
+        try (UserApi api = new UserApi("benchmark-" + name, baseUrl, connections)) {
+            String username = "bench" + System.currentTimeMillis();
+            String token = api.signUp(UserApi.signUpBody(username)).blockOptional()
+                    .map(UserApi.Response::token)
+                    .orElseThrow(() -> new IllegalStateException("Could not sign up against " + baseUrl));
+            String login = UserApi.signInBody(username);
+
+            drive(api, token, login, connections, warmup, signinEvery);
+
+            return drive(api, token, login, connections, duration, signinEvery).named(name);
+        }
+    }
+
+    private static Result drive(UserApi api, String token, String login, int connections, Duration duration,
+                                int signinEvery) {
+        Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong sequence = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        Flux.range(0, connections)
+                .flatMap((connection) -> Mono.defer(() -> {
+                    boolean signin = signinEvery > 0 && sequence.incrementAndGet() % signinEvery == 0;
+
+                    return request(signin ? api.signIn(login) : api.protectedEndpoint(token), latency, errors);
+                }).repeat(() -> System.nanoTime() < deadline), connections)
+                .blockLast();
+
+        return new Result(null, latency, errors.get(), System.nanoTime() - start);
+    }
+
+    private static Mono<Void> request(Mono<UserApi.Response> call, Histogram latency, AtomicLong errors) {
+        long startedAt = System.nanoTime();
+
+        return call.doOnNext((response) -> {
+            latency.recordValue(Math.min(System.nanoTime() - startedAt, HIGHEST_TRACKABLE_LATENCY));
+            if (response.status() != 200) {
+                errors.incrementAndGet();
+            }
+        }).onErrorResume((e) -> {
+            errors.incrementAndGet();
+
+            return Mono.empty();
+        }).then();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private record Result(String name, Histogram latency, long errors, long elapsedNanos) {
+
+        Result named(String name) {
+            return new Result(name, this.latency, this.errors, this.elapsedNanos);
+        }
+
+    }
+
+}
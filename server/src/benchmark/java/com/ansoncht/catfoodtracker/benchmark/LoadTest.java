@@ -0,0 +1,276 @@
+package com.ansoncht.catfoodtracker.benchmark;
+
+import com.ansoncht.catfoodtracker.CatFoodTrackerApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives mixed sign-up, sign-in and protected-endpoint traffic over HTTP and
+ * reports throughput and latency per operation from HDR histograms.
+ * <p>
+ * Without {@code --url}, the application is started in-process with the
+ * {@code loadtest} profile on a random port, so the run goes through the real
+ * {@code UserController}, security filter chain and {@code JwtService} with
+ * users held by {@code InMemoryUserRepository}. Application logging is
+ * lowered to WARN in that mode so the console does not dominate the run.
+ * With {@code --url}, an already running server is used instead.
+ * <p>
+ * Run with {@code ./gradlew loadTest -PloadTestArgs="--concurrency=64"}.
+ * Options are {@code --concurrency}, {@code --users} (accounts seeded for
+ * sign-in and protected traffic), {@code --signupPercent},
+ * {@code --signinPercent} (the rest are protected-endpoint calls),
+ * {@code --warmupSeconds}, {@code --durationSeconds} and {@code --output}.
+ * <p>
+ * Results go to a JSON file with a stable key order, so runs from two builds
+ * can be diffed, and the full latency distribution of each operation is
+ * written next to it as an {@code .hgrm} file.
+ */
+public final class LoadTest {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final List<String> OPERATIONS = List.of("signup", "signin", "protected");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !pair[0].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+
+            options.put(pair[0].substring(2), pair[1]);
+        }
+
+        Workload workload = new Workload(
+                Integer.parseInt(options.getOrDefault("concurrency", "64")),
+                Integer.parseInt(options.getOrDefault("users", "100")),
+                Integer.parseInt(options.getOrDefault("signupPercent", "5")),
+                Integer.parseInt(options.getOrDefault("signinPercent", "15")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmupSeconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("durationSeconds", "30"))));
+        File output = new File(options.getOrDefault("output", "loadtest-results.json"));
+
+        ConfigurableApplicationContext context = null;
+        String url = options.get("url");
+        if (url == null) {
+            context = new SpringApplicationBuilder(CatFoodTrackerApplication.class)
+                    .profiles("loadtest")
+                    .properties("server.port=0", "management.server.port=0",
+                            "logging.level.com.ansoncht.catfoodtracker=WARN")
+                    .run();
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        try (UserApi api = new UserApi("loadtest", url, workload.concurrency())) {
+            System.out.printf("Seeding %d users against %s%n", workload.users(), url);
+            List<String[]> accounts = seed(api, workload);
+
+            System.out.printf("Warming up for %d s%n", workload.warmup().toSeconds());
+            drive(api, accounts, workload, workload.warmup());
+
+            System.out.printf("Measuring for %d s with %d concurrent requests%n", workload.duration().toSeconds(),
+                    workload.concurrency());
+            Map<String, Stats> stats = drive(api, accounts, workload, workload.duration());
+
+            report(stats, workload, output);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private record Workload(int concurrency, int users, int signupPercent, int signinPercent, Duration warmup,
+                            Duration duration) {
+    }
+
+    private static final class Stats {
+
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder failures = new LongAdder();
+        private long elapsedNanos;
+
+        void record(long startedAt, int status) {
+            this.latency.recordValue(Math.min(System.nanoTime() - startedAt, HIGHEST_TRACKABLE_LATENCY));
+            this.statuses.computeIfAbsent(status, (ignored) -> new LongAdder()).increment();
+        }
+
+    }
+
+    /**
+     * Signs up the accounts used by sign-in and protected traffic, returning
+     * each one's username and token.
+     */
+    private static List<String[]> seed(UserApi api, Workload workload) {
+        String prefix = "seed" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+        return Flux.range(0, workload.users())
+                .flatMap((i) -> api.signUp(UserApi.signUpBody(prefix + i))
+                        .map((response) -> {
+                            if (response.status() != 200) {
+                                throw new IllegalStateException("Seeding failed with status " + response.status());
+                            }
+
+                            return new String[] {prefix + i, response.token()};
+                        }), workload.concurrency())
+                .collectList()
+                .block();
+    }
+
+    private static Map<String, Stats> drive(UserApi api, List<String[]> accounts, Workload workload, Duration duration) {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        OPERATIONS.forEach((operation) -> stats.put(operation, new Stats()));
+
+        String prefix = "load" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        AtomicLong signups = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        Flux.range(0, workload.concurrency())
+                .flatMap((worker) -> Mono.defer(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int roll = random.nextInt(100);
+                    String[] account = accounts.get(random.nextInt(accounts.size()));
+
+                    if (roll < workload.signupPercent()) {
+                        return call(stats.get("signup"), api.signUp(UserApi.signUpBody(prefix + signups.incrementAndGet())));
+                    }
+                    if (roll < workload.signupPercent() + workload.signinPercent()) {
+                        return call(stats.get("signin"), api.signIn(UserApi.signInBody(account[0])));
+                    }
+
+                    return call(stats.get("protected"), api.protectedEndpoint(account[1]));
+                }).repeat(() -> System.nanoTime() < deadline), workload.concurrency())
+                .blockLast();
+
+        long elapsed = System.nanoTime() - start;
+        stats.values().forEach((value) -> value.elapsedNanos = elapsed);
+
+        return stats;
+    }
+
+    private static Mono<Void> call(Stats stats, Mono<UserApi.Response> request) {
+        long startedAt = System.nanoTime();
+
+        return request.doOnNext((response) -> stats.record(startedAt, response.status()))
+                .onErrorResume((e) -> {
+                    stats.failures.increment();
+
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static void report(Map<String, Stats> stats, Workload workload, File output) throws IOException {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("timestamp", Instant.now().toString());
+        results.put("workload", Map.of(
+                "concurrency", workload.concurrency(),
+                "users", workload.users(),
+                "signupPercent", workload.signupPercent(),
+                "signinPercent", workload.signinPercent(),
+                "durationSeconds", workload.duration().toSeconds()));
+
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+        long elapsedNanos = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        System.out.printf("%n%-10s %10s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "non-2xx", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Stats value = entry.getValue();
+            total.add(value.latency);
+            elapsedNanos = value.elapsedNanos;
+
+            Map<String, Object> summary = summarize(value.latency, value.elapsedNanos);
+            Map<String, Long> statuses = new TreeMap<>();
+            value.statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+            long unsuccessful = statuses.entrySet().stream()
+                    .filter((status) -> !status.getKey().startsWith("2"))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum() + value.failures.sum();
+            summary.put("statuses", statuses);
+            summary.put("transportFailures", value.failures.sum());
+            operations.put(entry.getKey(), summary);
+
+            print(entry.getKey(), summary, unsuccessful);
+            writeDistribution(value.latency, new File(output.getParentFile(), entry.getKey() + ".hgrm"));
+        }
+
+        Map<String, Object> totalSummary = summarize(total, elapsedNanos);
+        results.put("operations", operations);
+        results.put("total", totalSummary);
+
+        File directory = output.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        System.out.printf("%nResults written to %s%n", output.getAbsolutePath());
+    }
+
+    private static Map<String, Object> summarize(Histogram latency, long elapsedNanos) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latency.getTotalCount());
+        summary.put("throughput", round(latency.getTotalCount() / (elapsedNanos / 1e9)));
+        summary.put("p50Ms", millis(latency.getValueAtPercentile(50)));
+        summary.put("p99Ms", millis(latency.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(latency.getMaxValue()));
+
+        return summary;
+    }
+
+    private static void print(String operation, Map<String, Object> summary, long unsuccessful) {
+        System.out.printf("%-10s %10d %10.0f %9d %9.2f %9.2f %9.2f %9.2f%n", operation,
+                (long) summary.get("requests"), (double) summary.get("throughput"), unsuccessful,
+                (double) summary.get("p50Ms"), (double) summary.get("p99Ms"), (double) summary.get("p999Ms"),
+                (double) summary.get("maxMs"));
+    }
+
+    private static void writeDistribution(Histogram latency, File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        try (PrintStream out = new PrintStream(file)) {
+            latency.outputPercentileDistribution(out, 1e6);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+}
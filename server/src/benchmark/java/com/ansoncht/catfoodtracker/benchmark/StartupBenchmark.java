@@ -0,0 +1,287 @@
+package com.ansoncht.catfoodtracker.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold start as the time from launching a JVM to its first
+ * successful {@code /api/v1/user/signin}, for each startup variant.
+ * <p>
+ * Every run starts {@code CatFoodTrackerApplication} in a fresh JVM from the
+ * jars on {@code --classpath} on a free port and signs in as soon as the port
+ * accepts connections, until a sign-in returns 200. The account is signed up
+ * once beforehand by a baseline run. Variants are run in turn, round by round,
+ * so drift on the machine affects all of them alike. The variants are
+ * <ul>
+ *     <li>{@code baseline}: no startup options,</li>
+ *     <li>{@code lazy}: the {@code startup} profile, see {@code StartupConfig},</li>
+ *     <li>{@code aot}: the AOT-generated bean definitions, {@code -Dspring.aot.enabled=true},</li>
+ *     <li>{@code aot-cds}: AOT with the class data sharing archive from {@code --cdsArchive},</li>
+ *     <li>{@code aot-cds-lazy}: all of the above.</li>
+ * </ul>
+ * <p>
+ * Run with {@code ./gradlew startupBenchmark}, which builds the jars, records
+ * the CDS archive and passes both. The application uses its normal
+ * configuration, so MongoDB must be reachable, for example from
+ * {@code compose.yaml}. Options are {@code --variants} (comma-separated),
+ * {@code --runs} (per variant), {@code --timeoutSeconds} (per run),
+ * {@code --appArgs} (passed to every run, space-separated) and
+ * {@code --output}. Each run's console output is written next to the results.
+ */
+public final class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.ansoncht.catfoodtracker.CatFoodTrackerApplication";
+    private static final String USERNAME = "startup-benchmark";
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !pair[0].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+
+            options.put(pair[0].substring(2), pair[1]);
+        }
+
+        String classpath = options.get("classpath");
+        if (classpath == null) {
+            throw new IllegalArgumentException("No --classpath given, run through ./gradlew startupBenchmark");
+        }
+
+        String cdsArchive = options.get("cdsArchive");
+        List<String> appArgs = tokenize(options.getOrDefault("appArgs", ""));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeoutSeconds", "120")));
+        File output = new File(options.getOrDefault("output", "startup-results.json"));
+        File logs = output.getAbsoluteFile().getParentFile();
+        if (!logs.isDirectory() && !logs.mkdirs()) {
+            throw new IOException("Could not create " + logs);
+        }
+
+        Map<String, Variant> variants = new LinkedHashMap<>();
+        for (String name : options.getOrDefault("variants", "baseline,lazy,aot,aot-cds,aot-cds-lazy").split(",")) {
+            variants.put(name, Variant.named(name, cdsArchive));
+        }
+
+        Launcher launcher = new Launcher(classpath, appArgs, timeout, logs);
+
+        System.out.println("Signing up the benchmark account");
+        launcher.seed();
+
+        Map<String, List<Double>> timings = new LinkedHashMap<>();
+        variants.keySet().forEach((name) -> timings.put(name, new ArrayList<>()));
+        for (int run = 1; run <= runs; run++) {
+            for (Variant variant : variants.values()) {
+                double millis = launcher.timeToFirstSignIn(variant, run);
+                timings.get(variant.name()).add(millis);
+                System.out.printf("Run %d %-14s %10.1f ms%n", run, variant.name(), millis);
+            }
+        }
+
+        report(timings, runs, output);
+    }
+
+    /**
+     * The JVM options and application arguments that make up one way of
+     * starting the application.
+     */
+    private record Variant(String name, List<String> jvmOptions, List<String> appArgs) {
+
+        static Variant named(String name, String cdsArchive) {
+            List<String> jvmOptions = new ArrayList<>();
+            List<String> appArgs = new ArrayList<>();
+            for (String part : name.split("-")) {
+                switch (part) {
+                    case "baseline" -> {
+                    }
+                    case "lazy" -> appArgs.add("--spring.profiles.active=startup");
+                    case "aot" -> jvmOptions.add("-Dspring.aot.enabled=true");
+                    case "cds" -> {
+                        if (cdsArchive == null || !new File(cdsArchive).isFile()) {
+                            throw new IllegalArgumentException("Variant " + name + " needs --cdsArchive, "
+                                    + "run ./gradlew cdsArchive first");
+                        }
+                        jvmOptions.add("-XX:SharedArchiveFile=" + cdsArchive);
+                    }
+                    default -> throw new IllegalArgumentException("Unknown startup option " + part + " in " + name);
+                }
+            }
+
+            return new Variant(name, List.copyOf(jvmOptions), List.copyOf(appArgs));
+        }
+
+    }
+
+    private static final class Launcher {
+
+        private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        private final String classpath;
+        private final List<String> appArgs;
+        private final Duration timeout;
+        private final File logs;
+
+        Launcher(String classpath, List<String> appArgs, Duration timeout, File logs) {
+            this.classpath = classpath;
+            this.appArgs = appArgs;
+            this.timeout = timeout;
+            this.logs = logs;
+        }
+
+        /**
+         * Starts a baseline instance and makes sure the benchmark account can
+         * sign in, signing it up if it is not there yet.
+         */
+        void seed() throws IOException, InterruptedException {
+            Variant baseline = Variant.named("baseline", null);
+            int port = freePort();
+            Process process = start(baseline, port, new File(this.logs, "seed.log"));
+            try (UserApi api = new UserApi("startup-seed", "http://localhost:" + port, 1)) {
+                awaitSignIn(api, process, System.nanoTime(), true);
+            } finally {
+                stop(process);
+            }
+        }
+
+        double timeToFirstSignIn(Variant variant, int run) throws IOException, InterruptedException {
+            int port = freePort();
+            long startedAt = System.nanoTime();
+            Process process = start(variant, port, new File(this.logs, variant.name() + "-" + run + ".log"));
+            try (UserApi api = new UserApi("startup-" + variant.name(), "http://localhost:" + port, 1)) {
+                return awaitSignIn(api, process, startedAt, false) / 1e6;
+            } finally {
+                stop(process);
+            }
+        }
+
+        private Process start(Variant variant, int port, File log) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(this.java);
+            command.addAll(variant.jvmOptions());
+            command.add("-cp");
+            command.add(this.classpath);
+            command.add(MAIN_CLASS);
+            command.add("--server.port=" + port);
+            command.add("--management.server.port=0");
+            command.addAll(this.appArgs);
+            command.addAll(variant.appArgs());
+
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log)
+                    .start();
+        }
+
+        /**
+         * Signs in until a sign-in succeeds, returning the nanoseconds since
+         * {@code startedAt}.
+         */
+        private long awaitSignIn(UserApi api, Process process, long startedAt, boolean signUp)
+                throws InterruptedException {
+            long deadline = startedAt + this.timeout.toNanos();
+            boolean signedUp = !signUp;
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue()
+                            + ", see its log in " + this.logs);
+                }
+
+                UserApi.Response response;
+                try {
+                    if (!signedUp) {
+                        response = api.signUp(UserApi.signUpBody(USERNAME)).block();
+                        signedUp = response != null && (response.status() == 200 || response.status() == 409);
+                        continue;
+                    }
+
+                    response = api.signIn(UserApi.signInBody(USERNAME)).block();
+                } catch (RuntimeException e) {
+                    // Not listening yet.
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                    continue;
+                }
+
+                if (response != null && response.status() == 200) {
+                    return System.nanoTime() - startedAt;
+                }
+
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+
+            throw new IllegalStateException("No successful sign-in within " + this.timeout.toSeconds() + " s");
+        }
+
+        private static void stop(Process process) throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+
+        private static int freePort() throws IOException {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                return socket.getLocalPort();
+            }
+        }
+
+    }
+
+    private static void report(Map<String, List<Double>> timings, int runs, File output) throws IOException {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("timestamp", Instant.now().toString());
+        results.put("runs", runs);
+
+        Map<String, Object> variants = new LinkedHashMap<>();
+        System.out.printf("%n%-14s %10s %10s %10s %10s%n", "variant", "median ms", "mean ms", "min ms", "max ms");
+        for (Map.Entry<String, List<Double>> entry : timings.entrySet()) {
+            double[] sorted = entry.getValue().stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("medianMs", round(median(sorted)));
+            summary.put("meanMs", round(Arrays.stream(sorted).average().orElse(0)));
+            summary.put("minMs", round(sorted[0]));
+            summary.put("maxMs", round(sorted[sorted.length - 1]));
+            summary.put("runsMs", Arrays.stream(sorted).map(StartupBenchmark::round).boxed().toList());
+            variants.put(entry.getKey(), summary);
+
+            System.out.printf("%-14s %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(),
+                    (double) summary.get("medianMs"), (double) summary.get("meanMs"),
+                    (double) summary.get("minMs"), (double) summary.get("maxMs"));
+        }
+        results.put("variants", variants);
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        System.out.printf("%nResults written to %s%n", output.getAbsolutePath());
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static List<String> tokenize(String value) {
+        return value.isBlank() ? List.of() : List.of(value.trim().split("\\s+"));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+}
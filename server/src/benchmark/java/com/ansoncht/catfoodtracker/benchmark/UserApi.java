@@ -0,0 +1,104 @@
+package com.ansoncht.catfoodtracker.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A non-blocking client for the {@code /api/v1/user} endpoints, shared by
+ * the benchmark drivers.
+ */
+final class UserApi implements AutoCloseable {
+
+    static final String PASSWORD = "benchmark-password";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConnectionProvider provider;
+    private final HttpClient client;
+
+    UserApi(String name, String baseUrl, int maxConnections) {
+        this.provider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = HttpClient.create(this.provider).baseUrl(baseUrl);
+    }
+
+    record Response(int status, String body) {
+
+        String token() {
+            try {
+                return objectMapper.readTree(this.body).path("token").asText(null);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    static String signUpBody(String username) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("email", username + "@benchmark.local");
+        body.put("firstName", "Bench");
+        body.put("lastName", "Mark");
+        body.put("password", PASSWORD);
+
+        return json(body);
+    }
+
+    static String signInBody(String username) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("usernameOrEmail", username);
+        body.put("password", PASSWORD);
+
+        return json(body);
+    }
+
+    Mono<Response> signUp(String body) {
+        return post("/api/v1/user/signup", body);
+    }
+
+    Mono<Response> signIn(String body) {
+        return post("/api/v1/user/signin", body);
+    }
+
+    Mono<Response> protectedEndpoint(String token) {
+        return this.client.headers((headers) -> headers.set(HttpHeaderNames.AUTHORIZATION, "Bearer " + token))
+                .get().uri("/api/v1/user/protected")
+                .responseSingle((res, content) -> content.asString().defaultIfEmpty("")
+                        .map((body) -> new Response(res.status().code(), body)));
+    }
+
+    @Override
+    public void close() {
+        this.provider.disposeLater().block();
+    }
+
+    private Mono<Response> post(String uri, String body) {
+        return this.client.headers((headers) -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                .post().uri(uri)
+                .send(ByteBufFlux.fromString(Mono.just(body)))
+                .responseSingle((res, content) -> content.asString().defaultIfEmpty("")
+                        .map((text) -> new Response(res.status().code(), text)));
+    }
+
+    private static String json(Map<String, String> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
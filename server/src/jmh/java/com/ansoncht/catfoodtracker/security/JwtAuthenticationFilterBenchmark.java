@@ -0,0 +1,62 @@
+package com.ansoncht.catfoodtracker.security;
+
+import com.ansoncht.catfoodtracker.user.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+/**
+ * One full pass of {@link JwtAuthenticationFilter} for an authenticated
+ * request, with the principal cached or, in stateless mode, built from the
+ * token.
+ */
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean statelessAuth;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.loadUserByUsername("benchmark"))
+                .thenReturn(new AuthenticatedUser("1", "benchmark", "hash", List.of("USER"), 0));
+
+        JwtService jwtService = new JwtService(JwtServiceBenchmark.SECRET, JwtServiceBenchmark.EXPIRATION_IN_MS, 10000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenRevocations tokenRevocations = new TokenRevocations(new InMemoryRefreshTokenRepository(), meterRegistry, 0.000001);
+        PrincipalCache principalCache = new PrincipalCache(userService, meterRegistry, AuthMetrics.noop(), tokenRevocations,
+                10000, 300000, JwtServiceBenchmark.EXPIRATION_IN_MS, this.statelessAuth);
+
+        this.filter = new JwtAuthenticationFilter(jwtService, principalCache);
+        this.authorization = "Bearer " + jwtService.generateToken("1", "benchmark", List.of("USER"), 0);
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/user/protected");
+        request.addHeader("Authorization", this.authorization);
+
+        try {
+            this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Token issuing and checking. A verified-token cache size of 0 measures the
+ * full signature check on every call; the asymmetric algorithms sign with a
+ * key ring over an in-memory key store.
+ */
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "YmVuY2htYXJrU2VjcmV0S2V5V2hpY2hTaG91bGRCZUF0TGVhc3QyNTZCaXRzTG9uZw==";
+    static final int EXPIRATION_IN_MS = 3600000;
+    private static final String KEY_ENCRYPTION_KEY = "YmVuY2htYXJrS2V5RW5jcnlwdGlvbktleTAwMDAwMDA=";
+
+    @Param({"0", "10000"})
+    public int verifiedCacheSize;
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    public JwtKeyRing.Algorithm algorithm;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(new InMemorySigningKeyRepository(), this.algorithm, SECRET,
+                KEY_ENCRYPTION_KEY, true, 86400000, 60000, EXPIRATION_IN_MS, Clock.systemUTC());
+        keyRing.afterPropertiesSet();
+
+        this.jwtService = new JwtService(keyRing, EXPIRATION_IN_MS, this.verifiedCacheSize, AuthMetrics.noop());
+        this.token = this.jwtService.generateToken("1", "benchmark", List.of("USER"), 0);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return this.jwtService.generateToken("1", "benchmark", List.of("USER"), 0);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return this.jwtService.validateToken(this.token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return this.jwtService.getUsernameFromToken(this.token);
+    }
+
+}
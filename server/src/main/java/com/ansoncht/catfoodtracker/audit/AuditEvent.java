@@ -0,0 +1,14 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import java.time.Instant;
+
+/**
+ * An audit event as handed to an {@link AuditSink}. The subject is the
+ * username or email the request was made for, or the administrator's for a
+ * bulk import or export; the user id and client address are null when not
+ * known. The count is the number of users a bulk operation covered, and 0
+ * for other events.
+ */
+public record AuditEvent(AuditEventType type, String subject, String userId, String clientAddress, long count,
+                         Instant timestamp) {
+}
@@ -0,0 +1,24 @@
+package com.ansoncht.catfoodtracker.audit;
+
+/**
+ * The kinds of security-relevant events recorded by {@link AuditLog}.
+ */
+public enum AuditEventType {
+
+    SIGNUP_OK,
+    SIGNUP_DUPLICATE,
+    SIGNUP_REJECTED,
+    SIGNUP_FAIL,
+    LOGIN_OK,
+    LOGIN_FAIL,
+    LOGIN_THROTTLED,
+    LOGIN_REJECTED,
+    REFRESH_OK,
+    REFRESH_FAIL,
+    REFRESH_REUSED,
+    USERS_IMPORTED,
+    USERS_STREAMED,
+    USERS_EXPORTED,
+    USERS_EXPORTED_WITH_HASHES
+
+}
@@ -0,0 +1,211 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records audit events without blocking or allocating on the request path.
+ * <p>
+ * Events are copied into a preallocated ring buffer of reusable slots, and a
+ * single background thread drains them in batches to every configured
+ * {@link AuditSink}. A producer claims a slot with one compare-and-set and
+ * publishes it with a volatile write; when the buffer is full the event is
+ * dropped and counted rather than making the request wait. With no sinks
+ * configured, recording does nothing.
+ */
+@Component
+public class AuditLog implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final String METRIC_NAME = "audit.events";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final List<AuditSink> sinks;
+    private final Slot[] slots;
+    private final int mask;
+    private final int batchSize;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AuditLog(ObjectProvider<AuditSink> sinks, MeterRegistry meterRegistry,
+                    @Value("${app.auditBufferSize}") int bufferSize,
+                    @Value("${app.auditBatchSize}") int batchSize) {
+        this(sinks.orderedStream().toList(), meterRegistry, bufferSize, batchSize);
+    }
+
+    AuditLog(List<AuditSink> sinks, MeterRegistry meterRegistry, int bufferSize, int batchSize) {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+
+        this.sinks = sinks;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.batchSize = Math.max(batchSize, 1);
+        this.written = Counter.builder(METRIC_NAME + ".written")
+                .description("Audit events written to every sink")
+                .register(meterRegistry);
+        this.dropped = Counter.builder(METRIC_NAME + ".dropped")
+                .description("Audit events dropped because the buffer was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder(METRIC_NAME + ".failed")
+                .description("Audit events a sink failed to write")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".pending", this, AuditLog::pending)
+                .description("Audit events buffered and not yet drained")
+                .register(meterRegistry);
+
+        if (sinks.isEmpty()) {
+            this.drainer = null;
+        } else {
+            this.drainer = new CustomizableThreadFactory("audit-drain-").newThread(this::drain);
+            this.drainer.setDaemon(true);
+            this.drainer.start();
+        }
+    }
+
+    public void record(AuditEventType type, String subject, String userId, String clientAddress) {
+        record(type, subject, userId, clientAddress, 0);
+    }
+
+    public void record(AuditEventType type, String subject, String userId, String clientAddress, long count) {
+        if (this.drainer == null) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = this.claimed.get();
+            if (sequence - this.consumed.get() >= this.slots.length) {
+                this.dropped.increment();
+
+                return;
+            }
+        } while (!this.claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = this.slots[(int) (sequence & this.mask)];
+        slot.type = type;
+        slot.subject = subject;
+        slot.userId = userId;
+        slot.clientAddress = clientAddress;
+        slot.count = count;
+        slot.timestamp = System.currentTimeMillis();
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (this.drainer == null) {
+            return;
+        }
+
+        this.running = false;
+        LockSupport.unpark(this.drainer);
+        this.drainer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    long pending() {
+        return this.claimed.get() - this.consumed.get();
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(this.batchSize);
+
+        while (this.running || pending() > 0) {
+            poll(batch);
+            if (batch.isEmpty()) {
+                if (this.running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else if (pending() > 0) {
+                    // A producer has claimed a slot but not yet published it.
+                    Thread.onSpinWait();
+                }
+
+                continue;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Copies up to one batch of published events out of the ring and frees
+     * their slots.
+     */
+    private void poll(List<AuditEvent> batch) {
+        long next = this.consumed.get();
+
+        while (batch.size() < this.batchSize) {
+            Slot slot = this.slots[(int) (next & this.mask)];
+            if (slot.sequence != next) {
+                break;
+            }
+
+            batch.add(new AuditEvent(slot.type, slot.subject, slot.userId, slot.clientAddress, slot.count,
+                    Instant.ofEpochMilli(slot.timestamp)));
+            slot.subject = null;
+            slot.userId = null;
+            slot.clientAddress = null;
+            next++;
+        }
+
+        this.consumed.lazySet(next);
+    }
+
+    private void write(List<AuditEvent> batch) {
+        boolean complete = true;
+        for (AuditSink sink : this.sinks) {
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                complete = false;
+                this.failed.increment(batch.size());
+
+                logger.warn("Could not write {} audit events to {}", batch.size(), sink.getClass().getSimpleName(), e);
+            }
+        }
+
+        if (complete) {
+            this.written.increment(batch.size());
+        }
+    }
+
+    private static final class Slot {
+
+        private AuditEventType type;
+        private String subject;
+        private String userId;
+        private String clientAddress;
+        private long count;
+        private long timestamp;
+        private volatile long sequence = -1;
+
+    }
+
+}
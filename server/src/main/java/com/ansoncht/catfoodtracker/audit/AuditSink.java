@@ -0,0 +1,13 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import java.util.List;
+
+/**
+ * A destination for audit events. Sinks are only called from the
+ * {@link AuditLog} drain thread, one batch at a time.
+ */
+public interface AuditSink {
+
+    void write(List<AuditEvent> events) throws Exception;
+
+}
@@ -0,0 +1,105 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends audit events to a local file as JSON lines, one flush per batch.
+ * Once the file reaches its size limit it is rolled to {@code <file>.1},
+ * shifting older files up and deleting the oldest past the file limit.
+ */
+@Component
+@ConditionalOnExpression("!'${app.auditFile:}'.isEmpty()")
+public class FileAuditSink implements AuditSink, DisposableBean {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private OutputStream out;
+    private long size;
+
+    public FileAuditSink(ObjectMapper objectMapper, @Value("${app.auditFile}") String file,
+                         @Value("${app.auditFileMaxBytes}") long maxBytes,
+                         @Value("${app.auditFileMaxFiles}") int maxFiles) {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(file);
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    @Override
+    public synchronized void write(List<AuditEvent> events) throws IOException {
+        if (this.out == null) {
+            open();
+        }
+
+        for (AuditEvent event : events) {
+            byte[] line = this.objectMapper.writeValueAsBytes(event);
+            this.out.write(line);
+            this.out.write(NEWLINE);
+            this.size += line.length + NEWLINE.length;
+        }
+        this.out.flush();
+
+        if (this.size >= this.maxBytes) {
+            roll();
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (this.out != null) {
+            this.out.close();
+            this.out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path directory = this.file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+
+        this.out = new BufferedOutputStream(Files.newOutputStream(this.file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND));
+        this.size = Files.size(this.file);
+    }
+
+    private void roll() throws IOException {
+        this.out.close();
+        this.out = null;
+
+        Files.deleteIfExists(rolled(this.maxFiles));
+        for (int i = this.maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        if (this.maxFiles > 0) {
+            Files.move(this.file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(this.file);
+        }
+    }
+
+    private Path rolled(int index) {
+        return this.file.resolveSibling(this.file.getFileName() + "." + index);
+    }
+
+}
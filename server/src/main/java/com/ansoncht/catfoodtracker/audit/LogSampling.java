@@ -0,0 +1,27 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples debug logging on request paths, where {@link AuditLog} already
+ * records every outcome and a log line per request would tie throughput to
+ * log volume.
+ */
+public final class LogSampling {
+
+    private static final int DEBUG_SAMPLE_RATE = 100;
+
+    private LogSampling() {
+    }
+
+    /**
+     * Returns true for about one call in {@value #DEBUG_SAMPLE_RATE} when
+     * debug logging is enabled.
+     */
+    public static boolean debug(Logger logger) {
+        return logger.isDebugEnabled() && ThreadLocalRandom.current().nextInt(DEBUG_SAMPLE_RATE) == 0;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes audit events to a capped {@code audit} collection, which MongoDB
+ * keeps at a fixed size by discarding the oldest events. The collection is
+ * created on the first write rather than at startup, so a database that is
+ * not reachable yet does not stop the application from starting.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auditMongo", havingValue = "true")
+public class MongoAuditSink implements AuditSink {
+
+    static final String COLLECTION = "audit";
+
+    private final MongoTemplate mongoTemplate;
+    private final long maxBytes;
+    private boolean collectionReady;
+
+    public MongoAuditSink(MongoTemplate mongoTemplate, @Value("${app.auditMongoMaxBytes}") long maxBytes) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void write(List<AuditEvent> events) {
+        if (!this.collectionReady) {
+            if (!this.mongoTemplate.collectionExists(COLLECTION)) {
+                this.mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(this.maxBytes));
+            }
+            this.collectionReady = true;
+        }
+
+        List<Document> documents = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            documents.add(new Document("type", event.type().name())
+                    .append("subject", event.subject())
+                    .append("userId", event.userId())
+                    .append("clientAddress", event.clientAddress())
+                    .append("count", event.count())
+                    .append("timestamp", Date.from(event.timestamp())));
+        }
+
+        this.mongoTemplate.getCollection(COLLECTION).insertMany(documents, new InsertManyOptions().ordered(false));
+    }
+
+}
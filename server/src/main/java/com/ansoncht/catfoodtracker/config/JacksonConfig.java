@@ -0,0 +1,22 @@
+package com.ansoncht.catfoodtracker.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Optional Jackson tuning. With {@code app.jacksonBlackbird}, the Blackbird
+ * module replaces reflective property access with generated lambdas in the
+ * application's {@code ObjectMapper}; Spring Boot registers any module bean.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.jacksonBlackbird", havingValue = "true")
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.ansoncht.catfoodtracker.config;
+
+import com.ansoncht.catfoodtracker.mongo.MongoCommandMetrics;
+import com.ansoncht.catfoodtracker.mongo.MongoPoolMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool sizing, timeouts and instrumentation for the Mongo clients. Spring
+ * Boot applies the customizer to both the blocking and the reactive client,
+ * on top of {@code spring.data.mongodb.uri}; the reactive client is only
+ * created in the {@code reactive} profile.
+ * <p>
+ * The driver no longer bounds its wait queue by length; an operation waits
+ * for a connection for at most {@code app.mongoPoolMaxWaitTimeInMs}, and at
+ * most {@code app.mongoPoolMaxConnecting} connections are opened at once, so
+ * a burst queues rather than storming the server with handshakes.
+ */
+@Configuration
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientSettings(
+            MeterRegistry meterRegistry,
+            @Value("${app.mongoPoolMaxSize}") int maxSize,
+            @Value("${app.mongoPoolMinSize}") int minSize,
+            @Value("${app.mongoPoolMaxConnecting}") int maxConnecting,
+            @Value("${app.mongoPoolMaxWaitTimeInMs}") long maxWaitTimeInMs,
+            @Value("${app.mongoPoolMaxIdleTimeInMs}") long maxIdleTimeInMs,
+            @Value("${app.mongoConnectTimeoutInMs}") int connectTimeoutInMs,
+            @Value("${app.mongoReadTimeoutInMs}") int readTimeoutInMs,
+            @Value("${app.mongoServerSelectionTimeoutInMs}") long serverSelectionTimeoutInMs,
+            @Value("${app.mongoSlowCommandThresholdInMs}") long slowCommandThresholdInMs) {
+        MongoCommandMetrics commandMetrics = new MongoCommandMetrics(meterRegistry,
+                Duration.ofMillis(slowCommandThresholdInMs));
+        MongoPoolMetrics poolMetrics = new MongoPoolMetrics(meterRegistry);
+
+        return (settings) -> settings
+                .applyToConnectionPoolSettings((pool) -> pool
+                        .maxSize(maxSize)
+                        .minSize(minSize)
+                        .maxConnecting(maxConnecting)
+                        .maxWaitTime(maxWaitTimeInMs, TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(maxIdleTimeInMs, TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(poolMetrics))
+                .applyToSocketSettings((socket) -> socket
+                        .connectTimeout(connectTimeoutInMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(readTimeoutInMs, TimeUnit.MILLISECONDS))
+                .applyToClusterSettings((cluster) -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutInMs, TimeUnit.MILLISECONDS))
+                .addCommandListener(commandMetrics);
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.ansoncht.catfoodtracker.config;
+
+import com.ansoncht.catfoodtracker.security.CalibratedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean
+    public CalibratedPasswordEncoder passwordEncoder(
+            @Value("${app.passwordEncoder}") String passwordEncoder,
+            @Value("${app.passwordHashBudgetInMs}") long passwordHashBudgetInMs,
+            @Value("${app.passwordHashMinBcryptStrength}") int minBcryptStrength,
+            @Value("${app.passwordHashMaxBcryptStrength}") int maxBcryptStrength,
+            @Value("${app.passwordHashMinArgon2Iterations}") int minArgon2Iterations,
+            @Value("${app.passwordHashMaxArgon2Iterations}") int maxArgon2Iterations) {
+        return CalibratedPasswordEncoder.calibrate(passwordEncoder, Duration.ofMillis(passwordHashBudgetInMs),
+                minBcryptStrength, maxBcryptStrength, minArgon2Iterations, maxArgon2Iterations);
+    }
+
+}
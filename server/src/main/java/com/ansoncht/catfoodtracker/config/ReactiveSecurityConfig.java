@@ -0,0 +1,68 @@
+package com.ansoncht.catfoodtracker.config;
+
+import com.ansoncht.catfoodtracker.security.JwtAuthenticationWebFilter;
+import com.ansoncht.catfoodtracker.security.JwtService;
+import com.ansoncht.catfoodtracker.security.PrincipalCache;
+import com.ansoncht.catfoodtracker.user.ReactiveUserService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+
+/**
+ * The WebFlux equivalent of {@link SecurityConfig}, used by the
+ * {@code reactive} profile.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+public class ReactiveSecurityConfig {
+
+    private final JwtAuthenticationWebFilter jwtAuthenticationWebFilter;
+    private final Environment environment;
+
+    public ReactiveSecurityConfig(JwtService jwtService, PrincipalCache principalCache,
+                                  ReactiveUserService reactiveUserService, Environment environment) {
+        this.jwtAuthenticationWebFilter = new JwtAuthenticationWebFilter(jwtService, principalCache, reactiveUserService);
+        this.environment = environment;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange((exchange) -> exchange
+                .pathMatchers("/api/v1/user/signup", "/api/v1/user/signin", "/api/v1/user/refresh",
+                        "/api/v1/user/sso-auth")
+                .permitAll()
+                .pathMatchers("/actuator/health", "/.well-known/jwks.json")
+                .permitAll()
+                // Metrics are only open on the management port, never on the public one.
+                .matchers(new AndServerWebExchangeMatcher(
+                        ServerWebExchangeMatchers.pathMatchers("/actuator/prometheus"),
+                        (exchange) -> exchange.getRequest().getLocalAddress() != null
+                                && String.valueOf(exchange.getRequest().getLocalAddress().getPort())
+                                .equals(this.environment.getProperty("local.management.port"))
+                                ? ServerWebExchangeMatcher.MatchResult.match()
+                                : ServerWebExchangeMatcher.MatchResult.notMatch()))
+                .permitAll()
+                .anyExchange()
+                .authenticated())
+                .addFilterAt(this.jwtAuthenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+}
@@ -4,6 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -11,9 +13,11 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.ansoncht.catfoodtracker.security.ConcurrencyLimitFilter;
 import com.ansoncht.catfoodtracker.security.JwtAuthenticationFilter;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true, jsr250Enabled = true)
 public class SecurityConfig {
@@ -21,9 +25,14 @@ public class SecurityConfig {
     private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
+    private final Environment environment;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
+                          ConcurrencyLimitFilter concurrencyLimitFilter, Environment environment) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.concurrencyLimitFilter = concurrencyLimitFilter;
+        this.environment = environment;
 
     }
 
@@ -34,11 +43,20 @@ public class SecurityConfig {
                     .csrf((csrf) -> csrf.disable())
                     .sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                     .authorizeHttpRequests((auth) -> auth
-                    .requestMatchers("/api/v1/user/signup", "/api/v1/user/signin", "/api/v1/user/sso-auth")
+                    .requestMatchers("/api/v1/user/signup", "/api/v1/user/signin", "/api/v1/user/refresh",
+                            "/api/v1/user/sso-auth")
+                    .permitAll()
+                    .requestMatchers("/actuator/health", "/.well-known/jwks.json")
+                    .permitAll()
+                    // Metrics are only open on the management port, never on the public one.
+                    .requestMatchers((request) -> request.getRequestURI().equals("/actuator/prometheus")
+                            && String.valueOf(request.getLocalPort())
+                            .equals(this.environment.getProperty("local.management.port")))
                     .permitAll()
                     .anyRequest()
                     .authenticated())
-                    .addFilterBefore(this.jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                    .addFilterBefore(this.jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                    .addFilterBefore(this.concurrencyLimitFilter, JwtAuthenticationFilter.class);
 
             return http.build();
         } catch (Exception e) {
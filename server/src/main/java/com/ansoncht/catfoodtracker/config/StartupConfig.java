@@ -0,0 +1,33 @@
+package com.ansoncht.catfoodtracker.config;
+
+import com.ansoncht.catfoodtracker.audit.AuditLog;
+import com.ansoncht.catfoodtracker.security.CalibratedPasswordEncoder;
+import com.ansoncht.catfoodtracker.security.JwtKeyRing;
+import com.ansoncht.catfoodtracker.security.PasswordHasher;
+import com.ansoncht.catfoodtracker.security.TokenRevocations;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that stay eager when {@code spring.main.lazy-initialization} is on,
+ * as in the {@code startup} profile. Everything else is created on first use,
+ * so beans the first request does not touch no longer delay startup.
+ * <p>
+ * The ones kept here either do background work that must start with the
+ * application, such as scheduled refreshes and the audit drainer, or are slow
+ * to create and sit on the sign-in path, where creating them lazily would only
+ * move the cost onto the first request. The filter is registered whatever the
+ * profile, so it is also in place for AOT-processed builds, where profile
+ * conditions are fixed at build time.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(JwtKeyRing.class, TokenRevocations.class, AuditLog.class,
+                CalibratedPasswordEncoder.class, PasswordHasher.class);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A cat, owned by the {@code User} whose id is {@link #getOwnerId()}.
+ */
+@Document(collection = "cats")
+public class Cat {
+
+    @Id
+    private String id;
+
+    @NotBlank
+    @Indexed
+    private String ownerId;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    private LocalDateTime createdAt;
+
+    private long dataVersion;
+
+    public Cat() {
+    }
+
+    public Cat(String ownerId, String name, LocalDateTime createdAt) {
+        this.ownerId = ownerId;
+        this.name = name;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Bumped whenever feeding events for the cat are stored, so results
+     * derived from its events can be cached against it.
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    void setDataVersion(long dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Cat cat = (Cat) o;
+        return Objects.equals(this.id, cat.id);
+    }
+
+    @Override
+    public String toString() {
+        return "Cat{" + "id='" + this.id + '\'' + ", ownerId='" + this.ownerId + '\'' + ", name='" + this.name + '\'' + ", createdAt=" + this.createdAt + ", dataVersion=" + this.dataVersion + '}';
+    }
+
+}
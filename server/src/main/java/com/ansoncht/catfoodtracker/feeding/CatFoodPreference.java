@@ -0,0 +1,140 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * How often a cat has been served one food product and how it reacted,
+ * summed over its {@link FeedingEvent}s.
+ * <p>
+ * The collection is a view kept up to date as events are ingested, see
+ * {@link CatFoodPreferenceService}, so a cat's favourites are read from the
+ * {@code catId, liked, feedings} index instead of being computed from its
+ * history. The id is {@link #idOf(String, String)}, so each pair has exactly
+ * one document to increment.
+ */
+@Document(collection = "cat_food_preferences")
+@CompoundIndex(name = "catId_liked_feedings", def = "{ 'catId' : 1, 'liked' : -1, 'feedings' : -1 }")
+public class CatFoodPreference {
+
+    @Id
+    private String id;
+
+    private String catId;
+
+    private String foodProductId;
+
+    private long feedings;
+
+    private long liked;
+
+    private long neutral;
+
+    private long disliked;
+
+    private double totalGrams;
+
+    private Instant lastFedAt;
+
+    private Instant rebuiltAt;
+
+    public CatFoodPreference() {
+    }
+
+    public CatFoodPreference(String catId, String foodProductId) {
+        this.id = idOf(catId, foodProductId);
+        this.catId = catId;
+        this.foodProductId = foodProductId;
+    }
+
+    public static String idOf(String catId, String foodProductId) {
+        return catId + ":" + foodProductId;
+    }
+
+    /**
+     * Adds one event to the counts.
+     */
+    void add(FeedingEvent event) {
+        this.feedings++;
+        if (event.getReaction() == FeedingEvent.Reaction.LIKED) {
+            this.liked++;
+        } else if (event.getReaction() == FeedingEvent.Reaction.NEUTRAL) {
+            this.neutral++;
+        } else if (event.getReaction() == FeedingEvent.Reaction.DISLIKED) {
+            this.disliked++;
+        }
+        if (event.getAmountGrams() != null) {
+            this.totalGrams += event.getAmountGrams();
+        }
+        if (this.lastFedAt == null || event.getFedAt().isAfter(this.lastFedAt)) {
+            this.lastFedAt = event.getFedAt();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCatId() {
+        return catId;
+    }
+
+    public String getFoodProductId() {
+        return foodProductId;
+    }
+
+    public long getFeedings() {
+        return feedings;
+    }
+
+    public long getLiked() {
+        return liked;
+    }
+
+    public long getNeutral() {
+        return neutral;
+    }
+
+    public long getDisliked() {
+        return disliked;
+    }
+
+    public double getTotalGrams() {
+        return totalGrams;
+    }
+
+    public Instant getLastFedAt() {
+        return lastFedAt;
+    }
+
+    public Instant getRebuiltAt() {
+        return rebuiltAt;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CatFoodPreference preference = (CatFoodPreference) o;
+        return Objects.equals(this.id, preference.id);
+    }
+
+    @Override
+    public String toString() {
+        return "CatFoodPreference{" + "id='" + this.id + '\'' + ", feedings=" + this.feedings + ", liked=" + this.liked + ", neutral=" + this.neutral + ", disliked=" + this.disliked + ", totalGrams=" + this.totalGrams + ", lastFedAt=" + this.lastFedAt + '}';
+    }
+
+}
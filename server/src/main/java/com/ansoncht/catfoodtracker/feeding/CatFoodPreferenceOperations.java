@@ -0,0 +1,25 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes to the {@link CatFoodPreference} view that Spring Data cannot derive.
+ */
+public interface CatFoodPreferenceOperations {
+
+    /**
+     * Adds each tally's counts to its stored preference with one unordered
+     * bulk of {@code $inc} upserts, creating the preferences not stored yet.
+     */
+    void increment(List<CatFoodPreference> tallies);
+
+    /**
+     * Recomputes the preferences of the cats with ids from {@code fromCatId}
+     * (inclusive) to {@code toCatId} (exclusive) from their feeding events, on
+     * the server. A null bound is open. Preferences in the range left by an
+     * earlier rebuild that no event produces any more are removed.
+     */
+    void rebuild(String fromCatId, String toCatId, Instant rebuiltAt);
+
+}
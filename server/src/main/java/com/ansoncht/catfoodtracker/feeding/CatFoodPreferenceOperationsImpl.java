@@ -0,0 +1,116 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Increments with upserts on {@code _id}, which MongoDB retries itself when
+ * two writers create the same preference at once, and rebuilds with one
+ * {@code $group} / {@code $merge} pipeline per range of cats, so no events
+ * leave the server.
+ */
+class CatFoodPreferenceOperationsImpl implements CatFoodPreferenceOperations {
+
+    private final MongoTemplate mongoTemplate;
+
+    CatFoodPreferenceOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void increment(List<CatFoodPreference> tallies) {
+        if (tallies.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = this.mongoTemplate.bulkOps(BulkMode.UNORDERED, CatFoodPreference.class);
+        for (CatFoodPreference tally : tallies) {
+            Update update = new Update()
+                    .setOnInsert("catId", tally.getCatId())
+                    .setOnInsert("foodProductId", tally.getFoodProductId())
+                    .inc("feedings", tally.getFeedings())
+                    .inc("liked", tally.getLiked())
+                    .inc("neutral", tally.getNeutral())
+                    .inc("disliked", tally.getDisliked())
+                    .inc("totalGrams", tally.getTotalGrams())
+                    .max("lastFedAt", tally.getLastFedAt());
+            bulk.upsert(Query.query(Criteria.where("_id").is(tally.getId())), update);
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void rebuild(String fromCatId, String toCatId, Instant rebuiltAt) {
+        Criteria range = catRange(fromCatId, toCatId);
+        Document match = range != null ? range.getCriteriaObject() : new Document();
+
+        List<Document> pipeline = List.of(
+                new Document("$match", match),
+                new Document("$group", new Document("_id", new Document("catId", "$catId")
+                        .append("foodProductId", "$foodProductId"))
+                        .append("feedings", new Document("$sum", 1))
+                        .append("liked", countOf(FeedingEvent.Reaction.LIKED))
+                        .append("neutral", countOf(FeedingEvent.Reaction.NEUTRAL))
+                        .append("disliked", countOf(FeedingEvent.Reaction.DISLIKED))
+                        .append("totalGrams", new Document("$sum", "$amountGrams"))
+                        .append("lastFedAt", new Document("$max", "$fedAt"))),
+                new Document("$project", new Document("_id", new Document("$concat",
+                        List.of("$_id.catId", ":", "$_id.foodProductId")))
+                        .append("catId", "$_id.catId")
+                        .append("foodProductId", "$_id.foodProductId")
+                        .append("feedings", 1)
+                        .append("liked", 1)
+                        .append("neutral", 1)
+                        .append("disliked", 1)
+                        .append("totalGrams", 1)
+                        .append("lastFedAt", 1)
+                        .append("rebuiltAt", new Document("$literal", Date.from(rebuiltAt)))),
+                new Document("$merge", new Document("into",
+                        this.mongoTemplate.getCollectionName(CatFoodPreference.class))
+                        .append("on", "_id")
+                        .append("whenMatched", "replace")
+                        .append("whenNotMatched", "insert")));
+
+        this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(FeedingEvent.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .toCollection();
+
+        Criteria stale = Criteria.where("rebuiltAt").lt(rebuiltAt);
+        if (range != null) {
+            stale = new Criteria().andOperator(range, stale);
+        }
+        this.mongoTemplate.remove(Query.query(stale), CatFoodPreference.class);
+    }
+
+    private static Criteria catRange(String fromCatId, String toCatId) {
+        if (fromCatId == null && toCatId == null) {
+            return null;
+        }
+
+        Criteria range = Criteria.where("catId");
+        if (fromCatId != null) {
+            range = range.gte(fromCatId);
+        }
+        if (toCatId != null) {
+            range = range.lt(toCatId);
+        }
+
+        return range;
+    }
+
+    private static Document countOf(FeedingEvent.Reaction reaction) {
+        return new Document("$sum", new Document("$cond",
+                List.of(new Document("$eq", List.of("$reaction", reaction.name())), 1, 0)));
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface CatFoodPreferenceRepository extends MongoRepository<CatFoodPreference, String>,
+        CatFoodPreferenceOperations {
+
+    List<CatFoodPreference> findByCatIdOrderByLikedDescFeedingsDesc(String catId, Limit limit);
+
+}
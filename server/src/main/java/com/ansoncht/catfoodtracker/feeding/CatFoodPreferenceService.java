@@ -0,0 +1,211 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.CatFoodPreferenceDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.PreferenceRebuildResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link CatFoodPreference} view in step with the feeding log and
+ * answers "what does my cat like best" from it.
+ * <p>
+ * Every batch of stored events is tallied per cat and food product and added
+ * with one bulk of {@code $inc} upserts, so the cost of an update depends on
+ * the batch, not on the history. The increment follows the event insert and
+ * is not part of it: when it fails the events stay recorded, the failure is
+ * counted as {@code feeding.preferences.failed}, and a rebuild repairs the
+ * view.
+ * <p>
+ * A rebuild splits the cats into {@code app.preferenceRebuildPartitions}
+ * ranges of ids and recomputes each range from the raw events on its own
+ * thread. Increments that land while a range is being recomputed may be lost
+ * or counted twice, so rebuilds are meant for quiet periods.
+ */
+@Service
+@Profile("!loadtest")
+public class CatFoodPreferenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatFoodPreferenceService.class);
+
+    public static final int MAX_LIMIT = 50;
+
+    private final CatFoodPreferenceRepository catFoodPreferenceRepository;
+    private final CatRepository catRepository;
+    private final int rebuildPartitions;
+    private final Counter failed;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public CatFoodPreferenceService(CatFoodPreferenceRepository catFoodPreferenceRepository,
+                                    CatRepository catRepository, MeterRegistry meterRegistry,
+                                    @Value("${app.preferenceRebuildPartitions}") int rebuildPartitions) {
+        this.catFoodPreferenceRepository = catFoodPreferenceRepository;
+        this.catRepository = catRepository;
+        this.rebuildPartitions = Math.max(rebuildPartitions, 1);
+        this.failed = Counter.builder("feeding.preferences.failed")
+                .description("Stored feeding events whose preference increment failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds stored events to the preferences. Never throws, so a failure here
+     * cannot fail a write that already succeeded.
+     */
+    public void record(List<FeedingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.catFoodPreferenceRepository.increment(tally(events));
+        } catch (RuntimeException e) {
+            this.failed.increment(events.size());
+            logger.warn("Could not update cat food preferences for {} feeding events", events.size(), e);
+        }
+    }
+
+    /**
+     * The cat's food products, most liked first and then most served, at most
+     * {@code limit} of them.
+     *
+     * @throws FeedingRejectedException if the cat is not the owner's
+     */
+    public List<CatFoodPreferenceDTO> getPreferences(String ownerId, String catId, int limit) {
+        if (!this.catRepository.existsByIdAndOwnerId(catId, ownerId)) {
+            throw new FeedingRejectedException("Unknown cat");
+        }
+
+        int clamped = Math.min(Math.max(limit, 1), MAX_LIMIT);
+
+        return this.catFoodPreferenceRepository.findByCatIdOrderByLikedDescFeedingsDesc(catId, Limit.of(clamped))
+                .stream()
+                .map(CatFoodPreferenceDTO::fromPreference)
+                .toList();
+    }
+
+    /**
+     * Recomputes every preference from the feeding events, one range of cats
+     * per thread.
+     *
+     * @throws IllegalStateException if a rebuild is already running
+     */
+    public PreferenceRebuildResult rebuild() throws InterruptedException {
+        if (!this.rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebuild is already running");
+        }
+
+        try {
+            long started = System.nanoTime();
+            // Stored as a BSON date, so compare at the precision it keeps.
+            Instant rebuiltAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+            List<CatRange> ranges;
+            long count = this.catRepository.count();
+            try (Stream<Cat> cats = this.catRepository.streamAllIds()) {
+                ranges = partition(cats.map(Cat::getId).iterator(), count, this.rebuildPartitions);
+            }
+
+            List<Callable<Void>> tasks = new ArrayList<>(ranges.size());
+            for (CatRange range : ranges) {
+                tasks.add(() -> {
+                    this.catFoodPreferenceRepository.rebuild(range.from(), range.to(), rebuiltAt);
+
+                    return null;
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(ranges.size(),
+                    new CustomizableThreadFactory("preference-rebuild-"));
+            int failedPartitions = 0;
+            try {
+                List<Future<Void>> futures = executor.invokeAll(tasks);
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        failedPartitions++;
+                        logger.warn("Could not rebuild cat food preferences for {}", ranges.get(i), e.getCause());
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            logger.info("Rebuilt cat food preferences in {} partitions, {} failed, in {} ms", ranges.size(),
+                    failedPartitions, elapsedMs);
+
+            return new PreferenceRebuildResult(ranges.size(), failedPartitions, elapsedMs);
+        } finally {
+            this.rebuilding.set(false);
+        }
+    }
+
+    /**
+     * The events' counts per cat and food product, in order of first
+     * appearance.
+     */
+    static List<CatFoodPreference> tally(List<FeedingEvent> events) {
+        Map<String, CatFoodPreference> tallies = new LinkedHashMap<>();
+        for (FeedingEvent event : events) {
+            tallies.computeIfAbsent(CatFoodPreference.idOf(event.getCatId(), event.getFoodProductId()),
+                    (id) -> new CatFoodPreference(event.getCatId(), event.getFoodProductId()))
+                    .add(event);
+        }
+
+        return List.copyOf(tallies.values());
+    }
+
+    /**
+     * Splits {@code count} cat ids, read in order, into at most
+     * {@code partitions} contiguous ranges of about the same size. The first
+     * and last ranges are open, so events of cats missing from the iterator
+     * still fall in one.
+     */
+    static List<CatRange> partition(Iterator<String> sortedIds, long count, int partitions) {
+        List<CatRange> ranges = new ArrayList<>(partitions);
+        long step = Math.max((count + partitions - 1) / partitions, 1);
+        String from = null;
+        long position = 0;
+        while (sortedIds.hasNext() && ranges.size() < partitions - 1) {
+            String id = sortedIds.next();
+            if (position > 0 && position % step == 0) {
+                ranges.add(new CatRange(from, id));
+                from = id;
+            }
+            position++;
+        }
+        ranges.add(new CatRange(from, null));
+
+        return ranges;
+    }
+
+    /**
+     * Cat ids from {@code from} (inclusive) to {@code to} (exclusive); a null
+     * bound is open.
+     */
+    record CatRange(String from, String to) {
+    }
+
+}
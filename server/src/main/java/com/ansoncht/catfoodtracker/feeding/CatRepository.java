@@ -0,0 +1,42 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface CatRepository extends MongoRepository<Cat, String> {
+
+    List<Cat> findByOwnerIdOrderByCreatedAtAsc(String ownerId);
+
+    boolean existsByIdAndOwnerId(String id, String ownerId);
+
+    /**
+     * The cats among {@code ids} that belong to the owner, with only their
+     * ids read.
+     */
+    @Query(value = "{ 'ownerId' : ?0, '_id' : { '$in' : ?1 } }", fields = "{ '_id' : 1 }")
+    List<Cat> findOwnedIds(String ownerId, Collection<String> ids);
+
+    /**
+     * The cat if it belongs to the owner, with only its data version read.
+     */
+    @Query(value = "{ '_id' : ?0, 'ownerId' : ?1 }", fields = "{ 'dataVersion' : 1 }")
+    Optional<Cat> findDataVersion(String id, String ownerId);
+
+    /**
+     * The owner's cats, with only their ids and data versions read.
+     */
+    @Query(value = "{ 'ownerId' : ?0 }", fields = "{ 'dataVersion' : 1 }")
+    List<Cat> findDataVersions(String ownerId);
+
+    /**
+     * Every cat in id order, with only its id read from the cursor.
+     */
+    @Query(value = "{}", fields = "{ '_id' : 1 }", sort = "{ '_id' : 1 }")
+    Stream<Cat> streamAllIds();
+
+}
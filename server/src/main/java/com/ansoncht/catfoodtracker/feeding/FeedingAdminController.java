@@ -0,0 +1,39 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.PreferenceRebuildResult;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Maintenance of the feeding data for administrators.
+ */
+@RestController
+@Profile("!reactive & !loadtest")
+@PreAuthorize("hasRole('ADMIN')")
+public class FeedingAdminController {
+
+    private final CatFoodPreferenceService catFoodPreferenceService;
+
+    public FeedingAdminController(CatFoodPreferenceService catFoodPreferenceService) {
+        this.catFoodPreferenceService = catFoodPreferenceService;
+    }
+
+    /**
+     * Recomputes the cat food preferences from the feeding log, see
+     * {@link CatFoodPreferenceService#rebuild()}. Answers 409 while another
+     * rebuild is running.
+     */
+    @PostMapping("/api/v1/admin/cat-food-preferences/rebuild")
+    public ResponseEntity<PreferenceRebuildResult> rebuildPreferences() throws InterruptedException {
+        try {
+            return ResponseEntity.ok(this.catFoodPreferenceService.rebuild());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+/**
+ * Thrown when the feeding write buffer is full and the event was not accepted.
+ */
+public class FeedingBufferFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public FeedingBufferFullException(long retryAfterSeconds) {
+        super("Feeding write buffer is full");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.CatDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.CatFoodPreferenceDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingBatchDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingBatchResult;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingErrorResponse;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingEventDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrend;
+import com.ansoncht.catfoodtracker.feeding.dto.FoodProductDTO;
+import com.ansoncht.catfoodtracker.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The signed-in user's cats, food products and feeding log.
+ */
+@RestController
+@Profile("!reactive & !loadtest")
+public class FeedingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedingController.class);
+
+    private static final String DEFAULT_PREFERENCE_LIMIT = "10";
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    private static final String DEFAULT_TREND_WINDOW = "7";
+
+    private final FeedingService feedingService;
+    private final CatFoodPreferenceService catFoodPreferenceService;
+    private final FeedingHistoryService feedingHistoryService;
+    private final FeedingTrendService feedingTrendService;
+
+    public FeedingController(FeedingService feedingService, CatFoodPreferenceService catFoodPreferenceService,
+                             FeedingHistoryService feedingHistoryService, FeedingTrendService feedingTrendService) {
+        this.feedingService = feedingService;
+        this.catFoodPreferenceService = catFoodPreferenceService;
+        this.feedingHistoryService = feedingHistoryService;
+        this.feedingTrendService = feedingTrendService;
+    }
+
+    @PostMapping("/api/v1/cats")
+    public CatDTO addCat(@AuthenticationPrincipal AuthenticatedUser user, @Valid @RequestBody CatDTO req) {
+        return this.feedingService.addCat(user.getId(), req);
+    }
+
+    @GetMapping("/api/v1/cats")
+    public List<CatDTO> getCats(@AuthenticationPrincipal AuthenticatedUser user) {
+        return this.feedingService.getCats(user.getId());
+    }
+
+    /**
+     * The cat's food products, most liked first, read from the preference
+     * view rather than its feeding log.
+     */
+    @GetMapping("/api/v1/cats/{catId}/preferences")
+    public ResponseEntity<List<CatFoodPreferenceDTO>> getPreferences(
+            @AuthenticationPrincipal AuthenticatedUser user, @PathVariable String catId,
+            @RequestParam(defaultValue = DEFAULT_PREFERENCE_LIMIT) int limit) {
+        try {
+            return ResponseEntity.ok(this.catFoodPreferenceService.getPreferences(user.getId(), catId, limit));
+        } catch (FeedingRejectedException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * The cat's whole feeding history, streamed as server-sent events when
+     * the client accepts {@code text/event-stream} and as newline-delimited
+     * JSON otherwise, see {@link FeedingHistoryService}. A stream that was
+     * cut off continues from {@code resume}, or from {@code Last-Event-ID}.
+     */
+    @GetMapping("/api/v1/cats/{catId}/feedings")
+    public void streamHistory(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable String catId,
+                              @RequestParam(required = false) String resume,
+                              @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId,
+                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                              HttpServletResponse response) throws IOException {
+        FeedingHistoryService.HistoryStart start;
+        try {
+            start = this.feedingHistoryService.startHistory(user.getId(), catId, resume != null ? resume : lastEventId);
+        } catch (FeedingRejectedException e) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        FeedingHistoryService.Format format = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)
+                ? FeedingHistoryService.Format.SSE
+                : FeedingHistoryService.Format.NDJSON;
+        response.setContentType(format == FeedingHistoryService.Format.SSE
+                ? MediaType.TEXT_EVENT_STREAM_VALUE
+                : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        this.feedingHistoryService.writeHistory(start, format, response.getOutputStream());
+    }
+
+    /**
+     * The cat's meals over the last {@code window} days (7, 30 or 90), with
+     * days and hours in {@code timezone}, UTC by default. See
+     * {@link FeedingTrendService}.
+     */
+    @GetMapping("/api/v1/cats/{catId}/trends")
+    public ResponseEntity<FeedingTrend> getCatTrend(@AuthenticationPrincipal AuthenticatedUser user,
+                                                    @PathVariable String catId,
+                                                    @RequestParam(defaultValue = DEFAULT_TREND_WINDOW) int window,
+                                                    @RequestParam(required = false) String timezone) {
+        try {
+            return ResponseEntity.ok(this.feedingTrendService.getCatTrend(user.getId(), catId, window, timezone));
+        } catch (FeedingRejectedException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/api/v1/foods")
+    public FoodProductDTO addFoodProduct(@AuthenticationPrincipal AuthenticatedUser user,
+                                         @Valid @RequestBody FoodProductDTO req) {
+        return this.feedingService.addFoodProduct(user.getId(), req);
+    }
+
+    @GetMapping("/api/v1/foods")
+    public List<FoodProductDTO> getFoodProducts(@AuthenticationPrincipal AuthenticatedUser user) {
+        return this.feedingService.getFoodProducts(user.getId());
+    }
+
+    /**
+     * The meals served with the food product to any of the owner's cats, as
+     * {@link #getCatTrend}.
+     */
+    @GetMapping("/api/v1/foods/{foodProductId}/trends")
+    public ResponseEntity<FeedingTrend> getFoodTrend(@AuthenticationPrincipal AuthenticatedUser user,
+                                                     @PathVariable String foodProductId,
+                                                     @RequestParam(defaultValue = DEFAULT_TREND_WINDOW) int window,
+                                                     @RequestParam(required = false) String timezone) {
+        try {
+            return ResponseEntity.ok(this.feedingTrendService.getFoodTrend(user.getId(), foodProductId, window,
+                    timezone));
+        } catch (FeedingRejectedException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Records one meal through the {@link FeedingWriteBuffer}: 204 once it is
+     * written, or 202 when the buffer acknowledges on enqueue. A full buffer
+     * answers 503 with {@code Retry-After}.
+     */
+    @PostMapping("/api/v1/feedings")
+    public CompletableFuture<ResponseEntity<FeedingErrorResponse>> recordFeeding(
+            @AuthenticationPrincipal AuthenticatedUser user, @Valid @RequestBody FeedingEventDTO req) {
+        CompletableFuture<FeedingWriteBuffer.Durability> written;
+        try {
+            written = this.feedingService.recordFeeding(user.getId(), req);
+        } catch (RuntimeException e) {
+            written = CompletableFuture.failedFuture(e);
+        }
+
+        return written.handle((durability, e) -> {
+            if (e == null) {
+                return durability == FeedingWriteBuffer.Durability.COMMIT
+                        ? ResponseEntity.noContent().build()
+                        : ResponseEntity.accepted().build();
+            }
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof FeedingRejectedException rejected) {
+                return ResponseEntity.badRequest().body(new FeedingErrorResponse(rejected.getMessage()));
+            }
+            if (cause instanceof FeedingBufferFullException full) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(full.getRetryAfterSeconds()))
+                        .build();
+            }
+
+            logger.warn("Could not record feeding event for cat {}", req.catId(), cause);
+
+            return ResponseEntity.internalServerError().body(new FeedingErrorResponse("Could not record event"));
+        });
+    }
+
+    /**
+     * Records a client's queued meals in one round trip. Events that could
+     * not be recorded are listed in the result; the rest are stored.
+     */
+    @PostMapping("/api/v1/feedings/batch")
+    public FeedingBatchResult recordFeedings(@AuthenticationPrincipal AuthenticatedUser user,
+                                             @Valid @RequestBody FeedingBatchDTO req) {
+        return this.feedingService.recordFeedings(user.getId(), req.events());
+    }
+
+}
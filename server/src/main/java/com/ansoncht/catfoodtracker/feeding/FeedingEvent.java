@@ -0,0 +1,114 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One meal served to a cat, and how the cat took it.
+ * <p>
+ * Events live in a time-series collection bucketed by {@link #getCatId()},
+ * so a cat's meals are stored together in time order. MongoDB indexes the
+ * meta and time fields of a new time-series collection itself; no index is
+ * declared here, since creating one through index auto-creation would create
+ * the collection as a regular one first, see
+ * {@link FeedingEventBulkOperationsImpl}.
+ */
+@Document(collection = "feedingEvents")
+@TimeSeries(timeField = "fedAt", metaField = "catId", granularity = Granularity.MINUTES)
+public class FeedingEvent {
+
+    public enum Reaction {
+        LIKED,
+        NEUTRAL,
+        DISLIKED
+    }
+
+    @Id
+    private String id;
+
+    private String catId;
+
+    private Instant fedAt;
+
+    private String foodProductId;
+
+    private Double amountGrams;
+
+    private Reaction reaction;
+
+    private String notes;
+
+    public FeedingEvent() {
+    }
+
+    public FeedingEvent(String catId, Instant fedAt, String foodProductId, Double amountGrams, Reaction reaction,
+                        String notes) {
+        this.catId = catId;
+        this.fedAt = fedAt;
+        this.foodProductId = foodProductId;
+        this.amountGrams = amountGrams;
+        this.reaction = reaction;
+        this.notes = notes;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCatId() {
+        return catId;
+    }
+
+    public Instant getFedAt() {
+        return fedAt;
+    }
+
+    public String getFoodProductId() {
+        return foodProductId;
+    }
+
+    public Double getAmountGrams() {
+        return amountGrams;
+    }
+
+    public Reaction getReaction() {
+        return reaction;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.catId, this.fedAt, this.foodProductId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FeedingEvent event = (FeedingEvent) o;
+        return Objects.equals(this.id, event.id) && Objects.equals(this.catId, event.catId)
+                && Objects.equals(this.fedAt, event.fedAt) && Objects.equals(this.foodProductId, event.foodProductId);
+    }
+
+    @Override
+    public String toString() {
+        return "FeedingEvent{" + "catId='" + this.catId + '\'' + ", fedAt=" + this.fedAt + ", foodProductId='" + this.foodProductId + '\'' + ", amountGrams=" + this.amountGrams + ", reaction=" + this.reaction + '}';
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+
+import java.util.List;
+
+/**
+ * Bulk writes that {@link FeedingEventRepository} cannot derive, implemented
+ * against {@code MongoTemplate} by {@link FeedingEventBulkOperationsImpl}.
+ */
+public interface FeedingEventBulkOperations {
+
+    /**
+     * Inserts the events in one unordered bulk write, so a failing event does
+     * not stop the rest of the batch.
+     */
+    List<BulkInsertFailure> insertMany(List<FeedingEvent> events);
+
+    /**
+     * Inserts the events in list order, in as few ordered bulk writes as
+     * possible. An event that fails is reported and the write resumes after
+     * it, so no event is applied ahead of one listed before it. If a write
+     * fails for another reason, such as a lost connection, the events it held
+     * and all later ones are reported as failed, and those before it stay
+     * committed.
+     */
+    List<BulkInsertFailure> insertInOrder(List<FeedingEvent> events);
+
+}
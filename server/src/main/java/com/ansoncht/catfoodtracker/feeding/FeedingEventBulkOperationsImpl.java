@@ -0,0 +1,133 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the time-series collection from {@link FeedingEvent}'s mapping
+ * before the first write, since an insert into a missing collection would
+ * create a regular one. As with the audit collection, this happens on first
+ * use rather than at startup.
+ * <p>
+ * Every write bumps {@link Cat#getDataVersion()} of the cats it names, even
+ * when some of their events failed, since a spare bump only costs a cache
+ * miss. A failed bump is logged rather than thrown, since the events are
+ * already stored and a caller told otherwise would write them again.
+ */
+class FeedingEventBulkOperationsImpl implements FeedingEventBulkOperations {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedingEventBulkOperationsImpl.class);
+
+    private final MongoTemplate mongoTemplate;
+    private volatile boolean collectionReady;
+
+    FeedingEventBulkOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<BulkInsertFailure> insertMany(List<FeedingEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        ensureCollection();
+
+        List<BulkInsertFailure> failures;
+        try {
+            this.mongoTemplate.bulkOps(BulkMode.UNORDERED, FeedingEvent.class).insert(events).execute();
+            failures = List.of();
+        } catch (BulkOperationException e) {
+            failures = e.getErrors().stream()
+                    .map((error) -> new BulkInsertFailure(error.getIndex(),
+                            new DataIntegrityViolationException(error.getMessage())))
+                    .toList();
+        }
+
+        bumpDataVersions(events);
+
+        return failures;
+    }
+
+    @Override
+    public List<BulkInsertFailure> insertInOrder(List<FeedingEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        ensureCollection();
+
+        List<BulkInsertFailure> failures = new ArrayList<>();
+        int from = 0;
+        while (from < events.size()) {
+            try {
+                this.mongoTemplate.bulkOps(BulkMode.ORDERED, FeedingEvent.class)
+                        .insert(events.subList(from, events.size()))
+                        .execute();
+
+                break;
+            } catch (BulkOperationException e) {
+                // An ordered write stops at its first error, so there is exactly one.
+                int failed = from + e.getErrors().get(0).getIndex();
+                failures.add(new BulkInsertFailure(failed,
+                        new DataIntegrityViolationException(e.getErrors().get(0).getMessage())));
+                from = failed + 1;
+            } catch (DataAccessException e) {
+                // The earlier writes are committed; report the rest as failed rather than the whole batch.
+                for (int i = from; i < events.size(); i++) {
+                    failures.add(new BulkInsertFailure(i, e));
+                }
+
+                break;
+            }
+        }
+
+        bumpDataVersions(events);
+
+        return failures;
+    }
+
+    private void bumpDataVersions(List<FeedingEvent> events) {
+        Set<String> catIds = events.stream().map(FeedingEvent::getCatId).collect(Collectors.toSet());
+        try {
+            this.mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(catIds)),
+                    new Update().inc("dataVersion", 1), Cat.class);
+        } catch (DataAccessException e) {
+            logger.warn("Could not bump the data version of {} cats, their cached trends may be stale", catIds.size(),
+                    e);
+        }
+    }
+
+    private void ensureCollection() {
+        if (this.collectionReady) {
+            return;
+        }
+
+        if (!this.mongoTemplate.collectionExists(FeedingEvent.class)) {
+            try {
+                this.mongoTemplate.createCollection(FeedingEvent.class);
+            } catch (DataAccessException e) {
+                // Another instance may have created it first.
+                if (!this.mongoTemplate.collectionExists(FeedingEvent.class)) {
+                    throw e;
+                }
+            }
+        }
+        this.collectionReady = true;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+public interface FeedingEventRepository extends MongoRepository<FeedingEvent, String>, FeedingEventBulkOperations,
+        FeedingTrendOperations {
+
+    /**
+     * The cat's meals in time order, read from a cursor a batch at a time.
+     * The sort is on the time field alone, so it follows the time-series
+     * buckets instead of sorting the whole history. The stream holds the
+     * cursor open until it is closed.
+     */
+    @Meta(cursorBatchSize = FeedingHistoryService.BATCH_SIZE)
+    Stream<FeedingEvent> streamByCatIdOrderByFedAtAsc(String catId);
+
+    /**
+     * As {@link #streamByCatIdOrderByFedAtAsc}, from {@code fedAt} on.
+     */
+    @Meta(cursorBatchSize = FeedingHistoryService.BATCH_SIZE)
+    Stream<FeedingEvent> streamByCatIdAndFedAtGreaterThanEqualOrderByFedAtAsc(String catId, Instant fedAt);
+
+}
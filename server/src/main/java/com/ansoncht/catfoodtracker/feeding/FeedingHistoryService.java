@@ -0,0 +1,198 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingHistoryEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams a cat's whole feeding history, oldest meal first, without holding
+ * it in memory.
+ * <p>
+ * Events are read from a cursor {@link #BATCH_SIZE} at a time and each is
+ * written to the output as soon as it is read, as newline-delimited JSON or
+ * as server-sent events. The writes block while the client is slow, and the
+ * cursor only fetches its next batch once the previous one is written, so a
+ * slow client holds back the read instead of filling the heap.
+ * <p>
+ * Every entry carries a resume token for its {@code (fedAt, id)} position.
+ * Passing it back, or sending it as {@code Last-Event-ID} as an
+ * {@code EventSource} does on reconnect, continues right after that entry.
+ * The cursor is sorted on {@code fedAt} alone, which the time-series buckets
+ * can serve without a full sort; the meals of one instant are ordered by id
+ * here, the only buffering done.
+ */
+@Service
+@Profile("!loadtest")
+public class FeedingHistoryService {
+
+    public static final int BATCH_SIZE = 500;
+
+    public enum Format {
+        NDJSON,
+        SSE
+    }
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_ID = "id: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_DATA = "data: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_END = "event: end\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final FeedingEventRepository feedingEventRepository;
+    private final CatRepository catRepository;
+    private final ObjectWriter entryWriter;
+
+    public FeedingHistoryService(FeedingEventRepository feedingEventRepository, CatRepository catRepository,
+                                 ObjectMapper objectMapper) {
+        this.feedingEventRepository = feedingEventRepository;
+        this.catRepository = catRepository;
+        this.entryWriter = objectMapper.writerFor(FeedingHistoryEntry.class);
+    }
+
+    /**
+     * Checks that the history can be streamed, before anything is written.
+     *
+     * @param resume a resume token from an earlier stream, or null to start
+     *               from the first meal
+     * @throws FeedingRejectedException if the cat is not the owner's
+     * @throws IllegalArgumentException if the resume token is malformed
+     */
+    public HistoryStart startHistory(String ownerId, String catId, String resume) {
+        if (!this.catRepository.existsByIdAndOwnerId(catId, ownerId)) {
+            throw new FeedingRejectedException("Unknown cat");
+        }
+
+        if (resume == null || resume.isBlank()) {
+            return new HistoryStart(catId, null, null);
+        }
+
+        Position after = decodeResume(resume);
+
+        return new HistoryStart(catId, after.fedAt(), after.id());
+    }
+
+    /**
+     * Writes the history from {@code start} to the output, returning how many
+     * entries were written. An {@link IOException} from a client that went
+     * away closes the cursor.
+     */
+    public long writeHistory(HistoryStart start, Format format, OutputStream output) throws IOException {
+        HistoryWriter writer = new HistoryWriter(output, format);
+        try (Stream<FeedingEvent> events = start.fedAt() == null
+                ? this.feedingEventRepository.streamByCatIdOrderByFedAtAsc(start.catId())
+                : this.feedingEventRepository.streamByCatIdAndFedAtGreaterThanEqualOrderByFedAtAsc(start.catId(),
+                start.fedAt())) {
+            Iterator<FeedingEvent> iterator = events.iterator();
+            List<FeedingEvent> instant = new ArrayList<>();
+            while (iterator.hasNext()) {
+                FeedingEvent event = iterator.next();
+                if (!instant.isEmpty() && !event.getFedAt().equals(instant.get(0).getFedAt())) {
+                    writeInstant(instant, start, writer);
+                    instant.clear();
+                }
+                instant.add(event);
+            }
+            writeInstant(instant, start, writer);
+        }
+
+        if (format == Format.SSE) {
+            output.write(SSE_END);
+        }
+        output.flush();
+
+        return writer.written;
+    }
+
+    /**
+     * Writes the meals of one instant in id order, skipping those up to the
+     * resume position.
+     */
+    private void writeInstant(List<FeedingEvent> instant, HistoryStart start, HistoryWriter writer)
+            throws IOException {
+        instant.sort(Comparator.comparing(FeedingEvent::getId));
+        for (FeedingEvent event : instant) {
+            if (start.fedAt() != null && event.getFedAt().equals(start.fedAt())
+                    && event.getId().compareTo(start.id()) <= 0) {
+                continue;
+            }
+
+            writer.write(event);
+        }
+    }
+
+    static String encodeResume(FeedingEvent event) {
+        String position = event.getFedAt().toEpochMilli() + ":" + event.getId();
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Position decodeResume(String resume) {
+        String position = new String(Base64.getUrlDecoder().decode(resume), StandardCharsets.UTF_8);
+        int separator = position.indexOf(':');
+        if (separator < 0 || separator == position.length() - 1) {
+            throw new IllegalArgumentException("Malformed resume token");
+        }
+
+        return new Position(Instant.ofEpochMilli(Long.parseLong(position.substring(0, separator))),
+                position.substring(separator + 1));
+    }
+
+    /**
+     * Where a history starts: the first meal when {@code fedAt} is null,
+     * otherwise right after the meal at {@code (fedAt, id)}.
+     */
+    public record HistoryStart(String catId, Instant fedAt, String id) {
+    }
+
+    record Position(Instant fedAt, String id) {
+    }
+
+    private final class HistoryWriter {
+
+        private final OutputStream output;
+        private final Format format;
+        private long written;
+
+        HistoryWriter(OutputStream output, Format format) {
+            this.output = output;
+            this.format = format;
+        }
+
+        void write(FeedingEvent event) throws IOException {
+            String resume = encodeResume(event);
+            byte[] json = FeedingHistoryService.this.entryWriter.writeValueAsBytes(
+                    FeedingHistoryEntry.fromEvent(event, resume));
+
+            if (this.format == Format.SSE) {
+                this.output.write(SSE_ID);
+                this.output.write(resume.getBytes(StandardCharsets.UTF_8));
+                this.output.write(NEWLINE);
+                this.output.write(SSE_DATA);
+                this.output.write(json);
+                this.output.write(NEWLINE);
+            } else {
+                this.output.write(json);
+            }
+            this.output.write(NEWLINE);
+
+            // Push each batch out rather than waiting for the response buffer.
+            if (++this.written % BATCH_SIZE == 0) {
+                this.output.flush();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+/**
+ * Thrown when a feeding event names a cat or food product the caller does
+ * not own.
+ */
+public class FeedingRejectedException extends RuntimeException {
+
+    public FeedingRejectedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.CatDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingBatchError;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingBatchResult;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingEventDTO;
+import com.ansoncht.catfoodtracker.feeding.dto.FoodProductDTO;
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Cats, food products and the meals served to them, all owned through the
+ * user id of the caller.
+ * <p>
+ * A batch of feeding events is checked with one ownership query for its cats
+ * and one for its food products, whatever its size, and written with a
+ * single unordered bulk insert. Events that fail validation, name a cat or
+ * product the caller does not own, or fail to insert are reported by their
+ * position, so a client can drop the rest from its queue. Not available in
+ * the {@code loadtest} profile, which keeps no MongoDB repositories.
+ */
+@Service
+@Profile("!loadtest")
+public class FeedingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedingService.class);
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final CatRepository catRepository;
+    private final FoodProductRepository foodProductRepository;
+    private final FeedingEventRepository feedingEventRepository;
+    private final FeedingWriteBuffer feedingWriteBuffer;
+    private final CatFoodPreferenceService catFoodPreferenceService;
+    private final Validator validator;
+
+    public FeedingService(CatRepository catRepository, FoodProductRepository foodProductRepository,
+                          FeedingEventRepository feedingEventRepository, FeedingWriteBuffer feedingWriteBuffer,
+                          CatFoodPreferenceService catFoodPreferenceService, Validator validator) {
+        this.catRepository = catRepository;
+        this.foodProductRepository = foodProductRepository;
+        this.feedingEventRepository = feedingEventRepository;
+        this.feedingWriteBuffer = feedingWriteBuffer;
+        this.catFoodPreferenceService = catFoodPreferenceService;
+        this.validator = validator;
+    }
+
+    public CatDTO addCat(String ownerId, CatDTO cat) {
+        return CatDTO.fromCat(this.catRepository.insert(new Cat(ownerId, cat.name(), LocalDateTime.now())));
+    }
+
+    public List<CatDTO> getCats(String ownerId) {
+        return this.catRepository.findByOwnerIdOrderByCreatedAtAsc(ownerId).stream().map(CatDTO::fromCat).toList();
+    }
+
+    public FoodProductDTO addFoodProduct(String ownerId, FoodProductDTO foodProduct) {
+        return FoodProductDTO.fromFoodProduct(this.foodProductRepository.insert(new FoodProduct(ownerId,
+                foodProduct.brand(), foodProduct.flavor(), foodProduct.notes(), LocalDateTime.now())));
+    }
+
+    public List<FoodProductDTO> getFoodProducts(String ownerId) {
+        return this.foodProductRepository.findByOwnerIdOrderByCreatedAtAsc(ownerId).stream()
+                .map(FoodProductDTO::fromFoodProduct)
+                .toList();
+    }
+
+    /**
+     * Checks that the event refers to the owner's cat and food product, then
+     * hands it to the {@link FeedingWriteBuffer} to be written with other
+     * requests' events.
+     *
+     * @throws FeedingRejectedException if the cat or food product is unknown
+     * @throws FeedingBufferFullException if the buffer is full
+     */
+    public CompletableFuture<FeedingWriteBuffer.Durability> recordFeeding(String ownerId, FeedingEventDTO event) {
+        if (!this.catRepository.existsByIdAndOwnerId(event.catId(), ownerId)) {
+            throw new FeedingRejectedException("Unknown cat");
+        }
+        if (!this.foodProductRepository.existsByIdAndOwnerId(event.foodProductId(), ownerId)) {
+            throw new FeedingRejectedException("Unknown food product");
+        }
+
+        return this.feedingWriteBuffer.enqueue(event.toEvent());
+    }
+
+    /**
+     * Records the events that are valid and refer to the owner's cats and
+     * food products, in one bulk write, and adds the stored ones to the cat
+     * food preferences.
+     */
+    public FeedingBatchResult recordFeedings(String ownerId, List<FeedingEventDTO> events) {
+        List<FeedingBatchError> errors = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>(events.size());
+        Set<String> catIds = new HashSet<>();
+        Set<String> foodProductIds = new HashSet<>();
+        for (int i = 0; i < events.size(); i++) {
+            String error = validate(events.get(i));
+            if (error != null) {
+                errors.add(new FeedingBatchError(i, error));
+            } else {
+                validIndexes.add(i);
+                catIds.add(events.get(i).catId());
+                foodProductIds.add(events.get(i).foodProductId());
+            }
+        }
+
+        Set<String> ownedCats = catIds.isEmpty() ? Set.of() : this.catRepository.findOwnedIds(ownerId, catIds).stream()
+                .map(Cat::getId)
+                .collect(Collectors.toSet());
+        Set<String> ownedFoodProducts = foodProductIds.isEmpty() ? Set.of()
+                : this.foodProductRepository.findOwnedIds(ownerId, foodProductIds).stream()
+                .map(FoodProduct::getId)
+                .collect(Collectors.toSet());
+
+        List<FeedingEvent> accepted = new ArrayList<>(validIndexes.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(validIndexes.size());
+        for (int index : validIndexes) {
+            FeedingEventDTO event = events.get(index);
+            if (!ownedCats.contains(event.catId())) {
+                errors.add(new FeedingBatchError(index, "Unknown cat"));
+            } else if (!ownedFoodProducts.contains(event.foodProductId())) {
+                errors.add(new FeedingBatchError(index, "Unknown food product"));
+            } else {
+                accepted.add(event.toEvent());
+                acceptedIndexes.add(index);
+            }
+        }
+
+        boolean[] failed = new boolean[accepted.size()];
+        for (BulkInsertFailure failure : this.feedingEventRepository.insertMany(accepted)) {
+            logger.warn("Could not insert feeding event for cat {}", accepted.get(failure.index()).getCatId(),
+                    failure.error());
+            errors.add(new FeedingBatchError(acceptedIndexes.get(failure.index()), "Could not record event"));
+            failed[failure.index()] = true;
+        }
+
+        List<FeedingEvent> stored = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            if (!failed[i]) {
+                stored.add(accepted.get(i));
+            }
+        }
+        this.catFoodPreferenceService.record(stored);
+
+        errors.sort(Comparator.comparingInt(FeedingBatchError::index));
+
+        return new FeedingBatchResult(events.size() - errors.size(), errors);
+    }
+
+    private String validate(FeedingEventDTO event) {
+        if (event == null) {
+            return "Missing event";
+        }
+
+        Set<ConstraintViolation<FeedingEventDTO>> violations = this.validator.validate(event);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map((violation) -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+}
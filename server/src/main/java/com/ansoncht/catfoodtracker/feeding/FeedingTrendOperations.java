@@ -0,0 +1,17 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrend;
+
+/**
+ * Trend aggregations over the feeding events that Spring Data cannot derive.
+ */
+public interface FeedingTrendOperations {
+
+    /**
+     * Computes the trend in one aggregation on the server. The result's id is
+     * the cat for {@link FeedingTrendQuery.Scope#CAT} and the food product
+     * for {@link FeedingTrendQuery.Scope#FOOD}.
+     */
+    FeedingTrend aggregateTrend(FeedingTrendQuery query);
+
+}
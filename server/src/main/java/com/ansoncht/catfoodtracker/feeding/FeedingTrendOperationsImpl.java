@@ -0,0 +1,176 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrend;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrendDay;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrendShare;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Computes a trend with a single {@code $facet} pipeline, so the events of
+ * the window are matched once and only the counts leave the server.
+ * <p>
+ * The match reaches {@link #ROLLING_DAYS} - 1 days before the window so the
+ * first days of the daily series have a full rolling window; the other
+ * facets start at the window. Days and hours are taken in the query's zone.
+ */
+class FeedingTrendOperationsImpl implements FeedingTrendOperations {
+
+    static final int ROLLING_DAYS = 7;
+
+    private static final int HOURS = 24;
+
+    private final MongoTemplate mongoTemplate;
+
+    FeedingTrendOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public FeedingTrend aggregateTrend(FeedingTrendQuery query) {
+        // MongoDB takes Olson ids and offsets such as +05:30, but not Z.
+        String zone = query.zone().equals(ZoneOffset.UTC) ? "UTC" : query.zone().getId();
+        Date from = Date.from(query.from().atStartOfDay(query.zone()).toInstant());
+        Date rollingFrom = Date.from(query.from().minusDays(ROLLING_DAYS - 1).atStartOfDay(query.zone()).toInstant());
+        boolean byCat = query.scope() == FeedingTrendQuery.Scope.CAT;
+
+        Document match = new Document("catId", query.catIds().size() == 1
+                ? query.catIds().iterator().next()
+                : new Document("$in", query.catIds()))
+                .append("fedAt", new Document("$gte", rollingFrom));
+        if (query.foodProductId() != null) {
+            match.append("foodProductId", query.foodProductId());
+        }
+        Document inWindow = new Document("$match", new Document("fedAt", new Document("$gte", from)));
+
+        List<Document> summary = List.of(inWindow,
+                new Document("$group", counts(new Document("_id", null))),
+                new Document("$project", new Document("_id", 0)
+                        .append("feedings", 1)
+                        .append("feedingsPerDay", new Document("$divide", List.of("$feedings", query.windowDays())))
+                        .append("acceptanceRate", rate("$liked", "$reacted"))));
+
+        List<Document> hours = List.of(inWindow,
+                new Document("$group", new Document("_id", new Document("$hour",
+                        new Document("date", "$fedAt").append("timezone", zone)))
+                        .append("feedings", new Document("$sum", 1))));
+
+        Document rollingWindow = new Document("range", List.of(-(ROLLING_DAYS - 1), 0)).append("unit", "day");
+        List<Document> daily = List.of(
+                new Document("$group", counts(new Document("_id", new Document("$dateTrunc",
+                        new Document("date", "$fedAt").append("unit", "day").append("timezone", zone))))),
+                new Document("$setWindowFields", new Document("sortBy", new Document("_id", 1))
+                        .append("output", new Document()
+                                .append("rollingFeedings", new Document("$sum", "$feedings")
+                                        .append("window", rollingWindow))
+                                .append("rollingLiked", new Document("$sum", "$liked")
+                                        .append("window", rollingWindow))
+                                .append("rollingReacted", new Document("$sum", "$reacted")
+                                        .append("window", rollingWindow)))),
+                new Document("$match", new Document("_id", new Document("$gte", from))),
+                new Document("$project", new Document("_id", 0)
+                        .append("day", "$_id")
+                        .append("feedings", 1)
+                        .append("acceptanceRate", rate("$liked", "$reacted"))
+                        .append("rollingFeedingsPerDay", new Document("$divide", List.of("$rollingFeedings",
+                                ROLLING_DAYS)))
+                        .append("rollingAcceptanceRate", rate("$rollingLiked", "$rollingReacted"))));
+
+        List<Document> breakdown = List.of(inWindow,
+                new Document("$group", counts(new Document("_id", byCat ? "$foodProductId" : "$catId"))),
+                new Document("$project", new Document("_id", 0)
+                        .append("id", "$_id")
+                        .append("feedings", 1)
+                        .append("acceptanceRate", rate("$liked", "$reacted"))),
+                new Document("$sort", new Document("feedings", -1).append("id", 1)));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", match),
+                new Document("$facet", new Document("summary", summary)
+                        .append("hours", hours)
+                        .append("daily", daily)
+                        .append("breakdown", breakdown)));
+
+        Document result = this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(FeedingEvent.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .first();
+
+        return toTrend(query, byCat ? query.catIds().iterator().next() : query.foodProductId(),
+                result != null ? result : new Document());
+    }
+
+    private static FeedingTrend toTrend(FeedingTrendQuery query, String id, Document result) {
+        List<Document> summaries = result.getList("summary", Document.class, List.of());
+        Document summary = summaries.isEmpty() ? new Document() : summaries.get(0);
+
+        List<Long> hourOfDay = new ArrayList<>(Collections.nCopies(HOURS, 0L));
+        for (Document hour : result.getList("hours", Document.class, List.of())) {
+            hourOfDay.set(((Number) hour.get("_id")).intValue(), longOf(hour, "feedings"));
+        }
+
+        List<FeedingTrendDay> daily = new ArrayList<>();
+        for (Document day : result.getList("daily", Document.class, List.of())) {
+            Instant start = day.getDate("day").toInstant();
+            daily.add(new FeedingTrendDay(start.atZone(query.zone()).toLocalDate(), longOf(day, "feedings"),
+                    rateOf(day, "acceptanceRate"), doubleOf(day, "rollingFeedingsPerDay"),
+                    rateOf(day, "rollingAcceptanceRate")));
+        }
+
+        List<FeedingTrendShare> breakdown = new ArrayList<>();
+        for (Document share : result.getList("breakdown", Document.class, List.of())) {
+            breakdown.add(new FeedingTrendShare(share.getString("id"), longOf(share, "feedings"),
+                    rateOf(share, "acceptanceRate")));
+        }
+
+        return new FeedingTrend(id, query.windowDays(), query.from(), longOf(summary, "feedings"),
+                doubleOf(summary, "feedingsPerDay"), rateOf(summary, "acceptanceRate"), hourOfDay, daily, breakdown);
+    }
+
+    /**
+     * Adds the meal, liked and reacted counts to a {@code $group} stage.
+     */
+    private static Document counts(Document group) {
+        return group.append("feedings", new Document("$sum", 1))
+                .append("liked", new Document("$sum", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$reaction", FeedingEvent.Reaction.LIKED.name())), 1, 0))))
+                .append("reacted", new Document("$sum", new Document("$cond", List.of(
+                        new Document("$ne", Arrays.asList(
+                                new Document("$ifNull", Arrays.asList("$reaction", null)), null)), 1, 0))));
+    }
+
+    /**
+     * Liked over reacted, or null when nothing had a reaction.
+     */
+    private static Document rate(String liked, String reacted) {
+        return new Document("$cond", Arrays.asList(new Document("$gt", List.of(reacted, 0)),
+                new Document("$divide", List.of(liked, reacted)), null));
+    }
+
+    private static long longOf(Document document, String key) {
+        Object value = document.get(key);
+
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static double doubleOf(Document document, String key) {
+        Object value = document.get(key);
+
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    private static Double rateOf(Document document, String key) {
+        Object value = document.get(key);
+
+        return value instanceof Number number ? number.doubleValue() : null;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+
+/**
+ * What a trend aggregation covers: the meals of {@code catIds} from the
+ * start of {@code from} in {@code zone} on, of one food product when
+ * {@code foodProductId} is set.
+ */
+public record FeedingTrendQuery(Scope scope, Collection<String> catIds, String foodProductId, int windowDays,
+                                LocalDate from, ZoneId zone) {
+
+    public enum Scope {
+        CAT,
+        FOOD
+    }
+
+}
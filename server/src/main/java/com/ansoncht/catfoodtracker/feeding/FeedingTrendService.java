@@ -0,0 +1,141 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrend;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Rolling feeding trends over the last 7, 30 or 90 days, for a cat or for a
+ * food product across the owner's cats.
+ * <p>
+ * Trends are aggregated on the server, see {@link FeedingTrendOperations},
+ * and kept in a bounded cache of {@code app.trendCacheSize} entries. The key
+ * holds the first day of the window and the data version of the cats
+ * involved, which every write of their events bumps, so a cached trend is
+ * never served after new meals or past midnight and needs no expiry. The
+ * version is read with the ownership check, in the same query.
+ * <p>
+ * Concurrent requests for the same key share one aggregation: the first
+ * caller runs it on its own thread and the others wait for its result.
+ */
+@Service
+@Profile("!loadtest")
+public class FeedingTrendService {
+
+    public static final List<Integer> WINDOWS = List.of(7, 30, 90);
+
+    private final FeedingEventRepository feedingEventRepository;
+    private final CatRepository catRepository;
+    private final FoodProductRepository foodProductRepository;
+    private final AsyncCache<TrendKey, FeedingTrend> trends;
+
+    public FeedingTrendService(FeedingEventRepository feedingEventRepository, CatRepository catRepository,
+                               FoodProductRepository foodProductRepository, MeterRegistry meterRegistry,
+                               @Value("${app.trendCacheSize}") int trendCacheSize) {
+        this.feedingEventRepository = feedingEventRepository;
+        this.catRepository = catRepository;
+        this.foodProductRepository = foodProductRepository;
+        this.trends = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(trendCacheSize)
+                .recordStats()
+                .<TrendKey, FeedingTrend>buildAsync(), "feedingTrends");
+    }
+
+    /**
+     * @throws FeedingRejectedException if the cat is not the owner's
+     * @throws IllegalArgumentException if the window or time zone is not
+     *                                  supported
+     */
+    public FeedingTrend getCatTrend(String ownerId, String catId, int windowDays, String timezone) {
+        ZoneId zone = zone(timezone);
+        LocalDate from = from(windowDays, zone);
+        Cat cat = this.catRepository.findDataVersion(catId, ownerId)
+                .orElseThrow(() -> new FeedingRejectedException("Unknown cat"));
+
+        return trend(new TrendKey(FeedingTrendQuery.Scope.CAT, catId, windowDays, from, zone, cat.getDataVersion()),
+                new FeedingTrendQuery(FeedingTrendQuery.Scope.CAT, List.of(catId), null, windowDays, from, zone));
+    }
+
+    /**
+     * @throws FeedingRejectedException if the food product is not the owner's
+     * @throws IllegalArgumentException if the window or time zone is not
+     *                                  supported
+     */
+    public FeedingTrend getFoodTrend(String ownerId, String foodProductId, int windowDays, String timezone) {
+        ZoneId zone = zone(timezone);
+        LocalDate from = from(windowDays, zone);
+        if (!this.foodProductRepository.existsByIdAndOwnerId(foodProductId, ownerId)) {
+            throw new FeedingRejectedException("Unknown food product");
+        }
+
+        List<Cat> cats = this.catRepository.findDataVersions(ownerId);
+        // Versions only grow, so their sum changes whenever any of them does.
+        long dataVersion = cats.stream().mapToLong(Cat::getDataVersion).sum();
+        List<String> catIds = cats.stream().map(Cat::getId).sorted().toList();
+
+        return trend(new TrendKey(FeedingTrendQuery.Scope.FOOD, foodProductId, windowDays, from, zone, dataVersion),
+                new FeedingTrendQuery(FeedingTrendQuery.Scope.FOOD, catIds, foodProductId, windowDays, from, zone));
+    }
+
+    private FeedingTrend trend(TrendKey key, FeedingTrendQuery query) {
+        CompletableFuture<FeedingTrend> computing = new CompletableFuture<>();
+        CompletableFuture<FeedingTrend> cached = this.trends.asMap().putIfAbsent(key, computing);
+        if (cached == null) {
+            cached = computing;
+            try {
+                computing.complete(this.feedingEventRepository.aggregateTrend(query));
+            } catch (RuntimeException e) {
+                // A failed future is dropped from the cache, so the next request retries.
+                computing.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    private static LocalDate from(int windowDays, ZoneId zone) {
+        if (!WINDOWS.contains(windowDays)) {
+            throw new IllegalArgumentException("Unsupported window " + windowDays);
+        }
+
+        return LocalDate.now(zone).minusDays(windowDays - 1);
+    }
+
+    private static ZoneId zone(String timezone) {
+        if (timezone == null || timezone.isBlank()) {
+            return ZoneOffset.UTC;
+        }
+
+        try {
+            return ZoneId.of(timezone).normalized();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone " + timezone, e);
+        }
+    }
+
+    record TrendKey(FeedingTrendQuery.Scope scope, String id, int windowDays, LocalDate from, ZoneId zone,
+                    long dataVersion) {
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups feeding events posted one at a time by many concurrent requests into
+ * batched inserts, so a peak of single-event posts costs one write per batch
+ * instead of one per meal.
+ * <p>
+ * Events wait in a bounded queue. A single flusher thread takes up to
+ * {@code app.feedingWriteBatchSize} of them, waiting at most
+ * {@code app.feedingWriteFlushIntervalInMs} after the oldest one arrived, and
+ * writes them with ordered bulk inserts. Because there is one flusher, events
+ * are written in arrival order and a batch is committed before the next one
+ * starts, so a cat's events are never reordered. When the queue is full the
+ * event is rejected rather than making the request wait.
+ * <p>
+ * With {@code app.feedingWriteDurability=COMMIT} the caller is acknowledged
+ * once the batch holding its event is written; with {@code ENQUEUE} as soon as
+ * the event is queued, trading the events still buffered on a crash for the
+ * lowest latency. Written events are added to the cat food preferences
+ * before the callers are acknowledged.
+ */
+@Component
+@Profile("!loadtest")
+public class FeedingWriteBuffer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedingWriteBuffer.class);
+
+    public enum Durability {
+        COMMIT,
+        ENQUEUE
+    }
+
+    private static final String METRIC_NAME = "feeding.writes";
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final FeedingEventRepository feedingEventRepository;
+    private final CatFoodPreferenceService catFoodPreferenceService;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Durability durability;
+    private final long retryAfterSeconds;
+    private final DistributionSummary batchSizes;
+    private final Meter.MeterProvider<Timer> flushes;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public FeedingWriteBuffer(FeedingEventRepository feedingEventRepository,
+                              CatFoodPreferenceService catFoodPreferenceService, MeterRegistry meterRegistry,
+                              @Value("${app.feedingWriteBufferCapacity}") int capacity,
+                              @Value("${app.feedingWriteBatchSize}") int batchSize,
+                              @Value("${app.feedingWriteFlushIntervalInMs}") long flushIntervalInMs,
+                              @Value("${app.feedingWriteDurability}") Durability durability,
+                              @Value("${app.feedingWriteRetryAfterInSeconds}") long retryAfterSeconds) {
+        this.feedingEventRepository = feedingEventRepository;
+        this.catFoodPreferenceService = catFoodPreferenceService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalInMs);
+        this.durability = durability;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.batchSizes = DistributionSummary.builder(METRIC_NAME + ".batch.size")
+                .description("Feeding events written per batch")
+                .baseUnit("events")
+                .register(meterRegistry);
+        this.flushes = Timer.builder(METRIC_NAME + ".flush")
+                .description("Time taken to write a batch of feeding events")
+                .withRegistry(meterRegistry);
+        this.rejected = Counter.builder(METRIC_NAME + ".rejected")
+                .description("Feeding events rejected because the buffer was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder(METRIC_NAME + ".failed")
+                .description("Feeding events that could not be written")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".pending", this.queue, BlockingQueue::size)
+                .description("Feeding events buffered and not yet written")
+                .register(meterRegistry);
+
+        this.flusher = new CustomizableThreadFactory("feeding-flush-").newThread(this::flushLoop);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues the event for the next batch. The future completes with
+     * {@link Durability#ENQUEUE} right away in that mode, and otherwise with
+     * {@link Durability#COMMIT} once the event is written, or exceptionally
+     * if it could not be.
+     *
+     * @throws FeedingBufferFullException if the buffer is full
+     */
+    public CompletableFuture<Durability> enqueue(FeedingEvent event) {
+        CompletableFuture<Durability> written = this.durability == Durability.COMMIT
+                ? new CompletableFuture<>()
+                : null;
+        if (!this.running || !this.queue.offer(new Pending(event, written, System.nanoTime()))) {
+            this.rejected.increment();
+
+            throw new FeedingBufferFullException(this.retryAfterSeconds);
+        }
+
+        return written != null ? written : CompletableFuture.completedFuture(Durability.ENQUEUE);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        this.running = false;
+        this.flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+
+        if (this.flusher.isAlive()) {
+            logger.warn("Feeding writes still in progress after {} ms, {} events pending", SHUTDOWN_TIMEOUT_MILLIS,
+                    this.queue.size());
+
+            return;
+        }
+
+        // Anything offered while the flusher was finishing is not written.
+        List<Pending> stranded = new ArrayList<>();
+        this.queue.drainTo(stranded);
+        stranded.forEach((pending) -> pending.fail(new FeedingBufferFullException(this.retryAfterSeconds)));
+    }
+
+    int pending() {
+        return this.queue.size();
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(this.batchSize);
+
+        while (this.running) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                break;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+
+        // Shutting down: write whatever was collected and is still queued.
+        do {
+            flush(batch);
+            batch.clear();
+            this.queue.drainTo(batch, this.batchSize);
+        } while (!batch.isEmpty());
+    }
+
+    /**
+     * Waits for a first event, then collects more until the batch is full,
+     * the first event has waited one flush interval or the buffer stops.
+     */
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = this.queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+
+        batch.add(first);
+        long deadline = first.enqueuedAt() + this.flushIntervalNanos;
+        while (batch.size() < this.batchSize) {
+            this.queue.drainTo(batch, this.batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= this.batchSize || remaining <= 0) {
+                return;
+            }
+
+            Pending next = this.queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            } else if (!this.running) {
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<FeedingEvent> events = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            events.add(pending.event());
+        }
+
+        long started = System.nanoTime();
+        List<BulkInsertFailure> failures;
+        try {
+            failures = this.feedingEventRepository.insertInOrder(events);
+        } catch (RuntimeException e) {
+            this.flushes.withTags("outcome", "error").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            this.failed.increment(batch.size());
+            logger.warn("Could not write {} feeding events", batch.size(), e);
+            batch.forEach((pending) -> pending.fail(e));
+
+            return;
+        }
+
+        this.flushes.withTags("outcome", failures.isEmpty() ? "success" : "partial")
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        this.batchSizes.record(batch.size());
+
+        boolean[] failed = new boolean[batch.size()];
+        for (BulkInsertFailure failure : failures) {
+            failed[failure.index()] = true;
+            this.failed.increment();
+            logger.warn("Could not write feeding event for cat {}", events.get(failure.index()).getCatId(),
+                    failure.error());
+            batch.get(failure.index()).fail(failure.error());
+        }
+        List<FeedingEvent> stored = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failed[i]) {
+                stored.add(events.get(i));
+            }
+        }
+        this.catFoodPreferenceService.record(stored);
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failed[i]) {
+                batch.get(i).commit();
+            }
+        }
+    }
+
+    private record Pending(FeedingEvent event, CompletableFuture<Durability> written, long enqueuedAt) {
+
+        void commit() {
+            if (this.written != null) {
+                this.written.complete(Durability.COMMIT);
+            }
+        }
+
+        void fail(Throwable e) {
+            if (this.written != null) {
+                this.written.completeExceptionally(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A cat food product a user has tried, owned by the {@code User} whose id is
+ * {@link #getOwnerId()}.
+ */
+@Document(collection = "foodProducts")
+public class FoodProduct {
+
+    @Id
+    private String id;
+
+    @NotBlank
+    @Indexed
+    private String ownerId;
+
+    @NotBlank
+    @Size(max = 100)
+    private String brand;
+
+    @NotBlank
+    @Size(max = 100)
+    private String flavor;
+
+    @Size(max = 500)
+    private String notes;
+
+    private LocalDateTime createdAt;
+
+    public FoodProduct() {
+    }
+
+    public FoodProduct(String ownerId, String brand, String flavor, String notes, LocalDateTime createdAt) {
+        this.ownerId = ownerId;
+        this.brand = brand;
+        this.flavor = flavor;
+        this.notes = notes;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public String getFlavor() {
+        return flavor;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FoodProduct foodProduct = (FoodProduct) o;
+        return Objects.equals(this.id, foodProduct.id);
+    }
+
+    @Override
+    public String toString() {
+        return "FoodProduct{" + "id='" + this.id + '\'' + ", ownerId='" + this.ownerId + '\'' + ", brand='" + this.brand + '\'' + ", flavor='" + this.flavor + '\'' + ", createdAt=" + this.createdAt + '}';
+    }
+
+}
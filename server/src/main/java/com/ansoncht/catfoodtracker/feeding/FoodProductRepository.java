@@ -0,0 +1,22 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FoodProductRepository extends MongoRepository<FoodProduct, String> {
+
+    List<FoodProduct> findByOwnerIdOrderByCreatedAtAsc(String ownerId);
+
+    boolean existsByIdAndOwnerId(String id, String ownerId);
+
+    /**
+     * The food products among {@code ids} that belong to the owner, with only
+     * their ids read.
+     */
+    @Query(value = "{ 'ownerId' : ?0, '_id' : { '$in' : ?1 } }", fields = "{ '_id' : 1 }")
+    List<FoodProduct> findOwnedIds(String ownerId, Collection<String> ids);
+
+}
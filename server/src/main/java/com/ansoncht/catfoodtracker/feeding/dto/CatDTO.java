@@ -0,0 +1,19 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import com.ansoncht.catfoodtracker.feeding.Cat;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * A cat as sent and returned by the API. The id and creation time are
+ * assigned by the server and ignored on input.
+ */
+public record CatDTO(String id, @NotBlank @Size(max = 50) String name, LocalDateTime createdAt) {
+
+    public static CatDTO fromCat(Cat cat) {
+        return new CatDTO(cat.getId(), cat.getName(), cat.getCreatedAt());
+    }
+
+}
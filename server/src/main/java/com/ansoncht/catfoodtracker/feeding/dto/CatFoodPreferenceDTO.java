@@ -0,0 +1,19 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import com.ansoncht.catfoodtracker.feeding.CatFoodPreference;
+
+import java.time.Instant;
+
+/**
+ * A cat's feeding and reaction counts for one food product.
+ */
+public record CatFoodPreferenceDTO(String foodProductId, long feedings, long liked, long neutral, long disliked,
+                                   double totalGrams, Instant lastFedAt) {
+
+    public static CatFoodPreferenceDTO fromPreference(CatFoodPreference preference) {
+        return new CatFoodPreferenceDTO(preference.getFoodProductId(), preference.getFeedings(),
+                preference.getLiked(), preference.getNeutral(), preference.getDisliked(), preference.getTotalGrams(),
+                preference.getLastFedAt());
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import com.ansoncht.catfoodtracker.feeding.FeedingService;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * A client's queued meals, flushed in one request. The events are validated
+ * one by one, so an invalid event is reported without rejecting the batch.
+ */
+public record FeedingBatchDTO(@NotEmpty @Size(max = FeedingService.MAX_BATCH_SIZE) List<FeedingEventDTO> events) {
+}
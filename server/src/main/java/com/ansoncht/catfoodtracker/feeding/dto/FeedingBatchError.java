@@ -0,0 +1,7 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+/**
+ * An event of a batch that was not recorded, by its position in the batch.
+ */
+public record FeedingBatchError(int index, String error) {
+}
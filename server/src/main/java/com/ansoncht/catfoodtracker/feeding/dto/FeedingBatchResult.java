@@ -0,0 +1,9 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import java.util.List;
+
+/**
+ * How many events of a batch were recorded, and why the others were not.
+ */
+public record FeedingBatchResult(int accepted, List<FeedingBatchError> rejected) {
+}
@@ -0,0 +1,8 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+/**
+ * The body of a feeding event rejected for a reason the client can act on,
+ * such as an unknown cat.
+ */
+public record FeedingErrorResponse(String error) {
+}
@@ -0,0 +1,25 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import com.ansoncht.catfoodtracker.feeding.FeedingEvent;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+
+/**
+ * One meal as posted by a client.
+ */
+public record FeedingEventDTO(@NotBlank String catId,
+                              @NotNull Instant fedAt,
+                              @NotBlank String foodProductId,
+                              @PositiveOrZero Double amountGrams,
+                              FeedingEvent.Reaction reaction,
+                              @Size(max = 500) String notes) {
+
+    public FeedingEvent toEvent() {
+        return new FeedingEvent(this.catId, this.fedAt, this.foodProductId, this.amountGrams, this.reaction, this.notes);
+    }
+
+}
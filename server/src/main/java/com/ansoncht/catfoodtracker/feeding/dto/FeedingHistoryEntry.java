@@ -0,0 +1,19 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import com.ansoncht.catfoodtracker.feeding.FeedingEvent;
+
+import java.time.Instant;
+
+/**
+ * One meal of a streamed feeding history. {@code resume} continues the
+ * history after this entry.
+ */
+public record FeedingHistoryEntry(String id, Instant fedAt, String foodProductId, Double amountGrams,
+                                  FeedingEvent.Reaction reaction, String notes, String resume) {
+
+    public static FeedingHistoryEntry fromEvent(FeedingEvent event, String resume) {
+        return new FeedingHistoryEntry(event.getId(), event.getFedAt(), event.getFoodProductId(),
+                event.getAmountGrams(), event.getReaction(), event.getNotes(), resume);
+    }
+
+}
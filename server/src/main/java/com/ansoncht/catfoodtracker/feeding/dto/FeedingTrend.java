@@ -0,0 +1,20 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A cat's or a food product's meals over the last {@code windowDays} days,
+ * today included.
+ *
+ * @param acceptanceRate the share of meals with a reaction that were liked,
+ *                       or null when none had a reaction
+ * @param hourOfDay      meals per hour of the day, 24 entries
+ * @param daily          one entry per day with meals
+ * @param breakdown      the same counts per food product for a cat, or per
+ *                       cat for a food product, most served first
+ */
+public record FeedingTrend(String id, int windowDays, LocalDate from, long feedings, double feedingsPerDay,
+                           Double acceptanceRate, List<Long> hourOfDay, List<FeedingTrendDay> daily,
+                           List<FeedingTrendShare> breakdown) {
+}
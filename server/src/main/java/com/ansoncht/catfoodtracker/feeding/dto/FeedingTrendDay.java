@@ -0,0 +1,11 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One day of a {@link FeedingTrend}, with the averages over the seven days
+ * ending with it.
+ */
+public record FeedingTrendDay(LocalDate day, long feedings, Double acceptanceRate, double rollingFeedingsPerDay,
+                              Double rollingAcceptanceRate) {
+}
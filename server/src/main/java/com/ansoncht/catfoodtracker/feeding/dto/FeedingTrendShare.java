@@ -0,0 +1,8 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+/**
+ * The meals of a {@link FeedingTrend} served with one food product, or to
+ * one cat.
+ */
+public record FeedingTrendShare(String id, long feedings, Double acceptanceRate) {
+}
@@ -0,0 +1,24 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+import com.ansoncht.catfoodtracker.feeding.FoodProduct;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * A food product as sent and returned by the API. The id and creation time
+ * are assigned by the server and ignored on input.
+ */
+public record FoodProductDTO(String id,
+                             @NotBlank @Size(max = 100) String brand,
+                             @NotBlank @Size(max = 100) String flavor,
+                             @Size(max = 500) String notes,
+                             LocalDateTime createdAt) {
+
+    public static FoodProductDTO fromFoodProduct(FoodProduct foodProduct) {
+        return new FoodProductDTO(foodProduct.getId(), foodProduct.getBrand(), foodProduct.getFlavor(),
+                foodProduct.getNotes(), foodProduct.getCreatedAt());
+    }
+
+}
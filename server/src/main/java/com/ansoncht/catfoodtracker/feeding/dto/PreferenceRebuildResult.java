@@ -0,0 +1,8 @@
+package com.ansoncht.catfoodtracker.feeding.dto;
+
+/**
+ * How a rebuild of the cat food preferences went. Partitions that failed
+ * keep their previous preferences and can be repaired by another rebuild.
+ */
+public record PreferenceRebuildResult(int partitions, int failedPartitions, long elapsedMs) {
+}
@@ -0,0 +1,9 @@
+package com.ansoncht.catfoodtracker.mongo;
+
+import org.springframework.dao.DataAccessException;
+
+/**
+ * A document that a bulk insert could not write, by its position in the batch.
+ */
+public record BulkInsertFailure(int index, DataAccessException error) {
+}
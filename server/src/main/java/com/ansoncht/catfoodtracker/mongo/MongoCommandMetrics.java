@@ -0,0 +1,161 @@
+package com.ansoncht.catfoodtracker.mongo;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every command the Mongo driver sends, tagged by {@code collection},
+ * {@code command} and {@code outcome}, and logs the ones slower than
+ * {@code app.mongoSlowCommandThresholdInMs} with the shape of their filter.
+ * <p>
+ * The command document is only readable while the started event is being
+ * handled, so the collection and, when slow commands are logged, the filter
+ * shape are taken from it then and held by request id until the command
+ * completes. A shape keeps field names and operators and replaces every value
+ * with {@code ?}, so it groups commands by the index they need without
+ * logging user data.
+ */
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoCommandMetrics.class);
+
+    public static final String COMMANDS = "mongodb.client.commands";
+
+    static final String NO_COLLECTION = "none";
+
+    private final Meter.MeterProvider<Timer> commands;
+    private final long slowCommandThresholdNanos;
+    private final Map<Integer, StartedCommand> started = new ConcurrentHashMap<>();
+
+    public MongoCommandMetrics(MeterRegistry meterRegistry, Duration slowCommandThreshold) {
+        this.commands = Timer.builder(COMMANDS)
+                .description("Time taken by each MongoDB command, from sending it to reading its reply")
+                .withRegistry(meterRegistry);
+        this.slowCommandThresholdNanos = slowCommandThreshold.toNanos();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        String shape = this.slowCommandThresholdNanos > 0 ? filterShape(event.getCommandName(), command) : null;
+
+        this.started.put(event.getRequestId(), new StartedCommand(collectionName(event.getCommandName(), command), shape));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void completed(int requestId, String commandName, String outcome, long elapsedNanos) {
+        StartedCommand command = this.started.remove(requestId);
+        String collection = command != null ? command.collection() : NO_COLLECTION;
+
+        this.commands.withTags("collection", collection, "command", commandName, "outcome", outcome)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (this.slowCommandThresholdNanos > 0 && elapsedNanos >= this.slowCommandThresholdNanos) {
+            logger.warn("Slow MongoDB command {} on {} took {} ms ({}), filter {}", commandName, collection,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), outcome,
+                    command != null && command.filterShape() != null ? command.filterShape() : "{}");
+        }
+    }
+
+    /**
+     * The collection a command runs against, which most commands name as the
+     * value of their first field.
+     */
+    static String collectionName(String commandName, BsonDocument command) {
+        BsonValue value = command.get("getMore".equals(commandName) ? "collection" : commandName);
+
+        return value != null && value.isString() ? value.asString().getValue() : NO_COLLECTION;
+    }
+
+    /**
+     * The shape of the filter a command selects documents with, or null when
+     * it has none.
+     */
+    static String filterShape(String commandName, BsonDocument command) {
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "distinct", "findAndModify" -> command.get("query");
+            case "aggregate" -> command.get("pipeline");
+            case "delete" -> firstStatementFilter(command, "deletes");
+            case "update" -> firstStatementFilter(command, "updates");
+            default -> null;
+        };
+
+        if (filter == null) {
+            return null;
+        }
+
+        StringBuilder shape = new StringBuilder();
+        appendShape(shape, filter);
+
+        return shape.toString();
+    }
+
+    private static BsonValue firstStatementFilter(BsonDocument command, String statements) {
+        BsonValue value = command.get(statements);
+        if (value == null || !value.isArray() || value.asArray().isEmpty()) {
+            return null;
+        }
+
+        BsonValue first = value.asArray().get(0);
+
+        return first.isDocument() ? first.asDocument().get("q") : null;
+    }
+
+    private static void appendShape(StringBuilder shape, BsonValue value) {
+        if (value.isDocument()) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                shape.append(first ? " " : ", ").append(entry.getKey()).append(": ");
+                appendShape(shape, entry.getValue());
+                first = false;
+            }
+            shape.append(first ? "}" : " }");
+        } else if (value.isArray()) {
+            BsonArray array = value.asArray();
+            if (array.stream().noneMatch((element) -> element.isDocument() || element.isArray())) {
+                shape.append("[?]");
+
+                return;
+            }
+
+            shape.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                shape.append(i == 0 ? "" : ", ");
+                appendShape(shape, array.get(i));
+            }
+            shape.append(']');
+        } else {
+            shape.append('?');
+        }
+    }
+
+    private record StartedCommand(String collection, String filterShape) {
+    }
+
+}
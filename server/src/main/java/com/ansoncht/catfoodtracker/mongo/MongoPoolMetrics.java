@@ -0,0 +1,48 @@
+package com.ansoncht.catfoodtracker.mongo;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how long operations wait to check a connection out of the Mongo
+ * driver's pool, tagged by {@code server} and {@code outcome}: a checked-out
+ * connection, or the reason the checkout failed, such as {@code timeout}
+ * once {@code app.mongoPoolMaxWaitTimeInMs} has passed.
+ * <p>
+ * Spring Boot's own pool listener already publishes the pool size, checked-out
+ * connections and wait queue length as gauges; this adds the waits behind
+ * them.
+ */
+public class MongoPoolMetrics implements ConnectionPoolListener {
+
+    public static final String CHECKOUT_WAIT = "mongodb.client.pool.wait";
+
+    private final Meter.MeterProvider<Timer> checkoutWait;
+
+    public MongoPoolMetrics(MeterRegistry meterRegistry) {
+        this.checkoutWait = Timer.builder(CHECKOUT_WAIT)
+                .description("Time spent waiting to check a connection out of the MongoDB pool")
+                .withRegistry(meterRegistry);
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        this.checkoutWait.withTags("server", event.getConnectionId().getServerId().getAddress().toString(),
+                "outcome", "checked_out").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        this.checkoutWait.withTags("server", event.getServerId().getAddress().toString(),
+                "outcome", event.getReason().name().toLowerCase(Locale.ROOT))
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+}
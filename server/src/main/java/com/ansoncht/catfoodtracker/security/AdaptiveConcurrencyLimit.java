@@ -0,0 +1,87 @@
+package com.ansoncht.catfoodtracker.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that adapts with additive increase and multiplicative
+ * decrease. A request that finishes within the latency threshold while the
+ * limit is at least half used raises the limit by one; a request that is
+ * slower than the threshold, or that was shed further down, cuts it by 10%.
+ * <p>
+ * Acquiring and releasing are lock-free.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limit bounds for " + name + " must satisfy 1 <= min <= max");
+        }
+
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = new AtomicInteger(Math.min(Math.max(initialLimit, minLimit), maxLimit));
+    }
+
+    /**
+     * Takes a slot, or returns false and counts a rejection when the limit is
+     * reached.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= this.limit.get()) {
+                this.rejected.increment();
+
+                return false;
+            }
+
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a slot taken by {@link #tryAcquire()} and adjusts the limit
+     * from how the request went.
+     */
+    void release(long latencyNanos, boolean dropped) {
+        int inFlightBefore = this.inFlight.getAndDecrement();
+
+        if (dropped || latencyNanos > this.latencyThresholdNanos) {
+            this.limit.updateAndGet((current) -> Math.max(this.minLimit, (int) (current * BACKOFF_RATIO)));
+        } else if (inFlightBefore * 2 >= this.limit.get()) {
+            this.limit.updateAndGet((current) -> Math.min(this.maxLimit, current + 1));
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getLimit() {
+        return limit.get();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for each stage of registration, authentication, token handling and
+ * principal loading, tagged by {@code stage} and {@code outcome}.
+ * <p>
+ * All timers share the {@code auth} prefix, so their SLO buckets and
+ * percentile histograms are configured together through
+ * {@code management.metrics.distribution.*.auth}.
+ */
+@Component
+public class AuthMetrics {
+
+    public static final String REGISTRATION = "auth.registration";
+    public static final String AUTHENTICATION = "auth.authentication";
+    public static final String TOKEN = "auth.token";
+    public static final String PRINCIPAL = "auth.principal";
+
+    public static final String DUPLICATE_CHECK = "duplicate_check";
+    public static final String HASHING = "hashing";
+    public static final String INSERT = "insert";
+    public static final String LOOKUP = "lookup";
+    public static final String PASSWORD_VERIFY = "password_verify";
+    public static final String GENERATION = "generation";
+    public static final String VERIFICATION = "verification";
+    public static final String LOAD = "load";
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+    public static final String REJECTED = "rejected";
+    public static final String DUPLICATE = "duplicate";
+    public static final String FOUND = "found";
+    public static final String NOT_FOUND = "not_found";
+    public static final String MATCH = "match";
+    public static final String MISMATCH = "mismatch";
+    public static final String CACHED = "cached";
+    public static final String STATELESS = "stateless";
+    public static final String VALID = "valid";
+    public static final String INVALID = "invalid";
+
+    private final Meter.MeterProvider<Timer> registration;
+    private final Meter.MeterProvider<Timer> authentication;
+    private final Meter.MeterProvider<Timer> token;
+    private final Meter.MeterProvider<Timer> principal;
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.registration = Timer.builder(REGISTRATION)
+                .description("Time spent in each stage of user registration")
+                .withRegistry(meterRegistry);
+        this.authentication = Timer.builder(AUTHENTICATION)
+                .description("Time spent in each stage of a sign-in")
+                .withRegistry(meterRegistry);
+        this.token = Timer.builder(TOKEN)
+                .description("Time spent generating and verifying JWTs")
+                .withRegistry(meterRegistry);
+        this.principal = Timer.builder(PRINCIPAL)
+                .description("Time spent resolving the principal of a verified token")
+                .withRegistry(meterRegistry);
+    }
+
+    /**
+     * Metrics that are recorded nowhere, for code constructed outside the
+     * application context.
+     */
+    public static AuthMetrics noop() {
+        return new AuthMetrics(new CompositeMeterRegistry());
+    }
+
+    public void registration(String stage, String outcome, long startNanos) {
+        record(this.registration, stage, outcome, startNanos);
+    }
+
+    public void authentication(String stage, String outcome, long startNanos) {
+        record(this.authentication, stage, outcome, startNanos);
+    }
+
+    public void token(String stage, String outcome, long startNanos) {
+        record(this.token, stage, outcome, startNanos);
+    }
+
+    public void principal(String outcome, long startNanos) {
+        record(this.principal, LOAD, outcome, startNanos);
+    }
+
+    /**
+     * The outcome of a password hashing future: success, rejected because the
+     * hashing queue was full, or error.
+     */
+    public static String hashingOutcome(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+        if (cause == null) {
+            return SUCCESS;
+        }
+
+        return cause instanceof PasswordHashingRejectedException ? REJECTED : ERROR;
+    }
+
+    private static void record(Meter.MeterProvider<Timer> timers, String stage, String outcome, long startNanos) {
+        timers.withTags("stage", stage, "outcome", outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The principal placed in the security context for an authenticated request.
+ */
+public class AuthenticatedUser extends User {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final String id;
+    private final long tokenVersion;
+
+    public AuthenticatedUser(String id, String username, String password, Collection<String> roles,
+                             long tokenVersion) {
+        super(username, password, toAuthorities(roles));
+        this.id = id;
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * Builds the principal from verified token claims alone, without the
+     * password hash.
+     */
+    public static AuthenticatedUser fromToken(VerifiedToken token) {
+        return new AuthenticatedUser(token.userId(), token.username(), "", token.roles(), token.tokenVersion());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    private static List<GrantedAuthority> toAuthorities(Collection<String> roles) {
+        return roles.stream().<GrantedAuthority>map((role) -> new SimpleGrantedAuthority(ROLE_PREFIX + role)).toList();
+    }
+
+}
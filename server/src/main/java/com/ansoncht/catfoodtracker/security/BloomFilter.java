@@ -0,0 +1,91 @@
+package com.ansoncht.catfoodtracker.security;
+
+import java.util.Collection;
+
+/**
+ * An immutable Bloom filter over strings, built once from a known set of
+ * entries. Lookups never allocate and never give a false negative; the rate
+ * of false positives is bounded by the probability it was sized for.
+ * <p>
+ * Bit positions come from double hashing two 64-bit hashes of the entry.
+ */
+final class BloomFilter {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int size;
+
+    private BloomFilter(long bitCount, int hashCount, int size) {
+        this.bits = new long[(int) ((bitCount + 63) >>> 6)];
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.size = size;
+    }
+
+    static BloomFilter of(Collection<String> entries, double falsePositiveProbability) {
+        int expected = Math.max(entries.size(), 1);
+        double ln2 = Math.log(2);
+        long bitCount = Math.max(64, (long) Math.ceil(-expected * Math.log(falsePositiveProbability) / (ln2 * ln2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * ln2));
+
+        BloomFilter filter = new BloomFilter(bitCount, hashCount, entries.size());
+        for (String entry : entries) {
+            filter.add(entry);
+        }
+
+        return filter;
+    }
+
+    boolean mightContain(String entry) {
+        long hash1 = hash(entry, SEED_1);
+        long hash2 = hash(entry, SEED_2) | 1;
+
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, this.bitCount);
+            if ((this.bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void add(String entry) {
+        long hash1 = hash(entry, SEED_1);
+        long hash2 = hash(entry, SEED_2) | 1;
+
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, this.bitCount);
+            this.bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * A seeded FNV-1a over the characters, finished with the MurmurHash3
+     * 64-bit mixer so every output bit depends on every input bit.
+     */
+    private static long hash(String entry, long seed) {
+        long hash = seed;
+        for (int i = 0; i < entry.length(); i++) {
+            hash ^= entry.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A delegating, {@code {id}}-prefixed password encoder whose work factor is
+ * chosen to fit a per-hash latency budget.
+ * <p>
+ * Hashes written by another encoder, or by the same encoder outside the
+ * configured work factor range, are reported by
+ * {@link #upgradeEncoding(String)} so they can be rewritten after a successful
+ * login: those below the minimum are too weak, and those above the maximum
+ * cost more CPU at every login than the fleet is willing to spend. The range
+ * is shared configuration rather than the calibrated factor, which differs
+ * between machines, and calibration stays within it: a hash written by a
+ * faster node is left alone by a slower one, instead of being rewritten at
+ * every login that lands on another node. PBKDF2 hashes do not record their
+ * iteration count and are always written at the same fixed cost, so they
+ * have no work factor to check. Hashes stored before the prefix existed are
+ * read as BCrypt.
+ */
+public class CalibratedPasswordEncoder implements PasswordEncoder {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedPasswordEncoder.class);
+
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 31;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 64;
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int ARGON2_MEMORY = 1 << 14;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final String idForEncode;
+    private final int minBcryptStrength;
+    private final int maxBcryptStrength;
+    private final int minArgon2Iterations;
+    private final int maxArgon2Iterations;
+    private final DelegatingPasswordEncoder delegate;
+
+    /**
+     * An encoder whose work factors are also the minimum below which stored
+     * hashes are upgraded.
+     */
+    public CalibratedPasswordEncoder(String idForEncode, int bcryptStrength, int argon2Iterations) {
+        this(idForEncode, bcryptStrength, argon2Iterations, bcryptStrength, argon2Iterations);
+    }
+
+    /**
+     * An encoder that upgrades stored hashes below the given minimum, with no
+     * maximum.
+     */
+    public CalibratedPasswordEncoder(String idForEncode, int bcryptStrength, int argon2Iterations,
+                                     int minBcryptStrength, int minArgon2Iterations) {
+        this(idForEncode, bcryptStrength, argon2Iterations, minBcryptStrength, MAX_BCRYPT_STRENGTH,
+                minArgon2Iterations, MAX_ARGON2_ITERATIONS);
+    }
+
+    public CalibratedPasswordEncoder(String idForEncode, int bcryptStrength, int argon2Iterations,
+                                     int minBcryptStrength, int maxBcryptStrength,
+                                     int minArgon2Iterations, int maxArgon2Iterations) {
+        if (minBcryptStrength > maxBcryptStrength || minArgon2Iterations > maxArgon2Iterations) {
+            throw new IllegalArgumentException("The minimum password hash work factor is above the maximum");
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put(ARGON2, argon2(argon2Iterations));
+        // PBKDF2 hashes do not record their iteration count, so it is fixed and cannot be tuned.
+        encoders.put(PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalArgumentException("Unknown password encoder: " + idForEncode);
+        }
+
+        this.idForEncode = idForEncode;
+        this.minBcryptStrength = minBcryptStrength;
+        this.maxBcryptStrength = maxBcryptStrength;
+        this.minArgon2Iterations = minArgon2Iterations;
+        this.maxArgon2Iterations = maxArgon2Iterations;
+        this.delegate = new DelegatingPasswordEncoder(idForEncode, encoders);
+        this.delegate.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+    }
+
+    /**
+     * Picks the highest work factor whose hash time on this machine fits
+     * within the budget, never going below the recommended minimum.
+     */
+    public static CalibratedPasswordEncoder calibrate(String idForEncode, Duration budget) {
+        return calibrate(idForEncode, budget, MIN_BCRYPT_STRENGTH, MIN_ARGON2_ITERATIONS);
+    }
+
+    /**
+     * Picks the highest work factor whose hash time on this machine fits
+     * within the budget, never going below the given minimum, which is also
+     * the one below which stored hashes are upgraded.
+     */
+    public static CalibratedPasswordEncoder calibrate(String idForEncode, Duration budget, int minBcryptStrength,
+                                                      int minArgon2Iterations) {
+        return calibrate(idForEncode, budget, minBcryptStrength, MAX_BCRYPT_STRENGTH, minArgon2Iterations,
+                MAX_ARGON2_ITERATIONS);
+    }
+
+    /**
+     * Picks the highest work factor whose hash time on this machine fits
+     * within the budget, within the given range, outside which stored hashes
+     * are upgraded.
+     */
+    public static CalibratedPasswordEncoder calibrate(String idForEncode, Duration budget,
+                                                      int minBcryptStrength, int maxBcryptStrength,
+                                                      int minArgon2Iterations, int maxArgon2Iterations) {
+        int bcryptStrength = Math.min(Math.max(MIN_BCRYPT_STRENGTH, minBcryptStrength), maxBcryptStrength);
+        int argon2Iterations = Math.min(Math.max(MIN_ARGON2_ITERATIONS, minArgon2Iterations), maxArgon2Iterations);
+
+        if (BCRYPT.equals(idForEncode)) {
+            bcryptStrength = calibrate(BCryptPasswordEncoder::new, bcryptStrength,
+                    Math.min(maxBcryptStrength, MAX_BCRYPT_STRENGTH), budget);
+        } else if (ARGON2.equals(idForEncode)) {
+            argon2Iterations = calibrate(CalibratedPasswordEncoder::argon2, argon2Iterations,
+                    Math.min(maxArgon2Iterations, MAX_ARGON2_ITERATIONS), budget);
+        }
+
+        logger.info("Password encoder {} calibrated to bcrypt strength {}, argon2 iterations {} for a {} ms budget",
+                idForEncode, bcryptStrength, argon2Iterations, budget.toMillis());
+
+        return new CalibratedPasswordEncoder(idForEncode, bcryptStrength, argon2Iterations, minBcryptStrength,
+                maxBcryptStrength, minArgon2Iterations, maxArgon2Iterations);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return this.delegate.matches(rawPassword, encodedPassword);
+    }
+
+    /**
+     * Returns true when the hash was not written with the current encoder, or
+     * was written with a work factor outside the configured range. PBKDF2
+     * hashes are fixed-cost, so only their encoder is checked.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith("{" + this.idForEncode + "}")) {
+            return true;
+        }
+
+        String[] parts = encodedPassword.substring(this.idForEncode.length() + 2).split("\\$");
+
+        try {
+            return switch (this.idForEncode) {
+                case BCRYPT -> outside(Integer.parseInt(parts[2]), this.minBcryptStrength, this.maxBcryptStrength);
+                case ARGON2 -> outside(argon2Parameter(parts[3], "t="), this.minArgon2Iterations,
+                        this.maxArgon2Iterations) || argon2Parameter(parts[3], "m=") != ARGON2_MEMORY;
+                default -> false;
+            };
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the work factor of a stored password hash");
+
+            return true;
+        }
+    }
+
+    private static int calibrate(IntFunction<PasswordEncoder> encoderFactory, int min, int max, Duration budget) {
+        PasswordEncoder warmUp = encoderFactory.apply(min);
+        warmUp.encode(CALIBRATION_PASSWORD);
+
+        int workFactor = min;
+        long elapsed = measure(warmUp);
+        while (workFactor < max) {
+            long next = measure(encoderFactory.apply(workFactor + 1));
+            if (next > budget.toNanos()) {
+                break;
+            }
+
+            workFactor++;
+            elapsed = next;
+        }
+
+        if (elapsed > budget.toNanos()) {
+            logger.warn("Minimum work factor {} takes {} ms, above the {} ms budget", min,
+                    Duration.ofNanos(elapsed).toMillis(), budget.toMillis());
+        }
+
+        return workFactor;
+    }
+
+    private static long measure(PasswordEncoder encoder) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+
+    private static PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM, ARGON2_MEMORY,
+                iterations);
+    }
+
+    private static boolean outside(int workFactor, int min, int max) {
+        return workFactor < min || workFactor > max;
+    }
+
+    private static int argon2Parameter(String parameters, String name) {
+        for (String parameter : parameters.split(",")) {
+            if (parameter.startsWith(name)) {
+                return Integer.parseInt(parameter.substring(name.length()));
+            }
+        }
+
+        throw new IllegalArgumentException("Missing argon2 parameter " + name);
+    }
+
+}
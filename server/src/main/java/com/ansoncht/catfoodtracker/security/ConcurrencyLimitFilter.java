@@ -0,0 +1,166 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds load with 503 once too many requests are in flight, instead of
+ * letting them queue in Tomcat. Sign-up and sign-in, which hash passwords,
+ * have their own {@link AdaptiveConcurrencyLimit} apart from the cheap
+ * authenticated routes, so a burst of one does not starve the other.
+ * Feeding history streams run for as long as the download takes, so they
+ * have a fixed limit of their own; in the API limit a long stream would hold
+ * a slot and, with its latency, drive the limit down for every other route.
+ * Actuator endpoints and bulk user transfers are not limited.
+ * <p>
+ * A request that goes async holds its slot until the async work completes,
+ * so the measured latency includes password hashing. The limits, in-flight
+ * counts and rejections are published as
+ * {@code http.server.concurrency.*} meters tagged by {@code route}.
+ */
+@Component
+@Profile("!reactive")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Set<String> CREDENTIAL_PATHS = Set.of("/api/v1/user/signup", "/api/v1/user/signin");
+    private static final String BULK_TRANSFER_PATH = "/api/v1/admin/users/";
+    private static final Pattern HISTORY_STREAM_PATH = Pattern.compile("/api/v1/cats/[^/]+/feedings");
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimit credentials;
+    private final AdaptiveConcurrencyLimit api;
+    private final AdaptiveConcurrencyLimit streams;
+
+    public ConcurrencyLimitFilter(@Value("${app.concurrencyLimitCredentialsInitial}") int credentialsInitial,
+                                  @Value("${app.concurrencyLimitCredentialsMin}") int credentialsMin,
+                                  @Value("${app.concurrencyLimitCredentialsMax}") int credentialsMax,
+                                  @Value("${app.concurrencyLimitCredentialsLatencyInMs}") long credentialsLatencyInMs,
+                                  @Value("${app.concurrencyLimitApiInitial}") int apiInitial,
+                                  @Value("${app.concurrencyLimitApiMin}") int apiMin,
+                                  @Value("${app.concurrencyLimitApiMax}") int apiMax,
+                                  @Value("${app.concurrencyLimitApiLatencyInMs}") long apiLatencyInMs,
+                                  @Value("${app.concurrencyLimitStreams}") int streams) {
+        this.credentials = new AdaptiveConcurrencyLimit("credentials", credentialsInitial, credentialsMin,
+                credentialsMax, TimeUnit.MILLISECONDS.toNanos(credentialsLatencyInMs));
+        this.api = new AdaptiveConcurrencyLimit("api", apiInitial, apiMin, apiMax,
+                TimeUnit.MILLISECONDS.toNanos(apiLatencyInMs));
+        // Stream latency says nothing about load, so this limit never adapts.
+        this.streams = new AdaptiveConcurrencyLimit("streams", streams, streams, streams, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (AdaptiveConcurrencyLimit limit : List.of(this.credentials, this.api, this.streams)) {
+            Gauge.builder("http.server.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("route", limit.getName())
+                    .register(registry);
+            Gauge.builder("http.server.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests holding a concurrency slot")
+                    .tag("route", limit.getName())
+                    .register(registry);
+            FunctionCounter.builder("http.server.concurrency.rejected", limit, AdaptiveConcurrencyLimit::getRejected)
+                    .description("Requests shed because the concurrency limit was reached")
+                    .tag("route", limit.getName())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = path(request);
+
+        return path.startsWith("/actuator/") || path.startsWith(BULK_TRANSFER_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        AdaptiveConcurrencyLimit limit = limit(request);
+        if (!limit.tryAcquire()) {
+            logger.debug("Concurrency limit reached for " + limit.getName() + " routes, rejecting request");
+
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+
+            return;
+        }
+
+        long started = System.nanoTime();
+        boolean released = true;
+        try {
+            filterChain.doFilter(request, response);
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit, started));
+                released = false;
+            }
+        } finally {
+            if (released) {
+                limit.release(System.nanoTime() - started, isDropped(response));
+            }
+        }
+    }
+
+    private AdaptiveConcurrencyLimit limit(HttpServletRequest request) {
+        String path = path(request);
+        if (CREDENTIAL_PATHS.contains(path)) {
+            return this.credentials;
+        }
+
+        return "GET".equals(request.getMethod()) && HISTORY_STREAM_PATH.matcher(path).matches()
+                ? this.streams
+                : this.api;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static boolean isDropped(HttpServletResponse response) {
+        return response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+    }
+
+    private record ReleaseOnComplete(AdaptiveConcurrencyLimit limit, long started) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            this.limit.release(System.nanoTime() - this.started,
+                    isDropped((HttpServletResponse) event.getSuppliedResponse()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+    }
+
+}
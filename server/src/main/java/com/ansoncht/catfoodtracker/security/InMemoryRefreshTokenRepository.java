@@ -0,0 +1,88 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe, in-memory {@link RefreshTokenRepository} for the
+ * {@code loadtest} profile. Writes are serialized so rotation keeps its
+ * compare-and-set semantics; expired tokens are not purged.
+ */
+@Repository
+@Profile("loadtest")
+public class InMemoryRefreshTokenRepository implements RefreshTokenRepository {
+
+    private final Map<String, RefreshToken> tokensById = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByHash = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized <S extends RefreshToken> S insert(S refreshToken) {
+        if (this.idsByHash.containsKey(refreshToken.getTokenHash())) {
+            throw new DuplicateKeyException("E11000 duplicate key error collection: refreshTokens index: tokenHash"
+                    + " dup key: { tokenHash: \"" + refreshToken.getTokenHash() + "\" }");
+        }
+
+        if (refreshToken.getId() == null) {
+            refreshToken.setId(new ObjectId().toHexString());
+        }
+        this.tokensById.put(refreshToken.getId(), refreshToken);
+        this.idsByHash.put(refreshToken.getTokenHash(), refreshToken.getId());
+
+        return refreshToken;
+    }
+
+    @Override
+    public Optional<RefreshToken> findByTokenHash(String tokenHash) {
+        String id = this.idsByHash.get(tokenHash);
+
+        return id != null ? Optional.ofNullable(this.tokensById.get(id)) : Optional.empty();
+    }
+
+    @Override
+    public List<RefreshToken> findByFamilyId(String familyId) {
+        return this.tokensById.values().stream()
+                .filter((token) -> familyId.equals(token.getFamilyId()))
+                .toList();
+    }
+
+    @Override
+    public synchronized long markRotated(String id, Instant rotatedAt) {
+        RefreshToken token = this.tokensById.get(id);
+        if (token == null || token.getRotatedAt() != null || token.getRevokedAt() != null) {
+            return 0;
+        }
+
+        token.setRotatedAt(rotatedAt);
+
+        return 1;
+    }
+
+    @Override
+    public synchronized long revokeFamily(String familyId, Instant revokedAt) {
+        long revoked = 0;
+        for (RefreshToken token : findByFamilyId(familyId)) {
+            if (token.getRevokedAt() == null) {
+                token.setRevokedAt(revokedAt);
+                revoked++;
+            }
+        }
+
+        return revoked;
+    }
+
+    @Override
+    public List<RefreshToken> findRevokedAccessTokens(Instant now) {
+        return this.tokensById.values().stream()
+                .filter((token) -> token.getRevokedAt() != null && token.getAccessTokenExpiresAt().isAfter(now))
+                .toList();
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe, in-memory {@link SigningKeyRepository} for the
+ * {@code loadtest} profile. Inserts are serialized so the unique rotation
+ * slot holds as the Mongo index enforces it. Expired keys are not purged.
+ */
+@Repository
+@Profile("loadtest")
+public class InMemorySigningKeyRepository implements SigningKeyRepository {
+
+    private final Map<String, SigningKey> keysById = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized <S extends SigningKey> S insert(S signingKey) {
+        if (this.keysById.containsKey(signingKey.getId())) {
+            throw duplicate("_id_", "_id", "\"" + signingKey.getId() + "\"");
+        }
+        if (signingKey.getRotation() != null && this.keysById.values().stream()
+                .anyMatch((key) -> signingKey.getRotation().equals(key.getRotation()))) {
+            throw duplicate("rotation", "rotation", signingKey.getRotation().toString());
+        }
+
+        this.keysById.put(signingKey.getId(), signingKey);
+
+        return signingKey;
+    }
+
+    @Override
+    public List<SigningKey> findByExpiresAtAfter(Instant now) {
+        return this.keysById.values().stream()
+                .filter((key) -> key.getExpiresAt().isAfter(now))
+                .toList();
+    }
+
+    @Override
+    public List<SigningKey> findVerificationKeys(Instant now) {
+        return findByExpiresAtAfter(now).stream()
+                .map(SigningKey::withoutPrivateKey)
+                .toList();
+    }
+
+    private static DuplicateKeyException duplicate(String index, String field, String key) {
+        return new DuplicateKeyException("E11000 duplicate key error collection: signingKeys index: " + index
+                + " dup key: { " + field + ": " + key + " }");
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.ansoncht.catfoodtracker.security;
+
+/**
+ * Thrown when a refresh token is unknown, expired, revoked or already used.
+ * A reused token means it was probably stolen, and its family has been
+ * revoked by the time this is thrown.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    private final boolean reused;
+
+    public InvalidRefreshTokenException(String message, boolean reused) {
+        super(message);
+        this.reused = reused;
+    }
+
+    public boolean isReused() {
+        return reused;
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.ansoncht.catfoodtracker.security;
+
+import java.time.Instant;
+
+/**
+ * A freshly signed access token with its {@code jti} and expiry.
+ */
+public record IssuedToken(String token, String tokenId, Instant expiresAt) {
+
+}
@@ -0,0 +1,38 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.jsonwebtoken.security.PublicJwk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the public JWT signing keys, on both the servlet and the reactive
+ * stack, so other services can verify tokens without the signing keys.
+ * Clients may cache the set for one key refresh interval; keys are published
+ * that long before they sign anything.
+ */
+@RestController
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing,
+                          @Value("${app.jwtKeyRefreshIntervalInMs}") long refreshIntervalInMs) {
+        this.keyRing = keyRing;
+        this.cacheControl = CacheControl.maxAge(Duration.ofMillis(refreshIntervalInMs)).cachePublic();
+    }
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, List<PublicJwk<?>>>> jwks() {
+        return ResponseEntity.ok().cacheControl(this.cacheControl).body(this.keyRing.jwks());
+    }
+
+}
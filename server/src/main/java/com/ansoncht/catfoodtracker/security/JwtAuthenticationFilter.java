@@ -1,21 +1,23 @@
 package com.ansoncht.catfoodtracker.security;
 
-import com.ansoncht.catfoodtracker.user.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
+@Profile("!reactive")
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     /**
@@ -25,11 +27,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final int JWT_START_INDEX = 7;
 
     private final JwtService jwtService;
-    private final UserService userService;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserService userService) {
+    public JwtAuthenticationFilter(JwtService jwtService, PrincipalCache principalCache) {
         this.jwtService = jwtService;
-        this.userService = userService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -37,15 +39,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            if (jwt != null && jwtService.validateToken(jwt)) {
-                String username = jwtService.getUsernameFromToken(jwt);
-                UserDetails userDetails = this.userService.loadUserByUsername(username);
+            Optional<VerifiedToken> token = jwt != null ? this.jwtService.verifyToken(jwt) : Optional.empty();
+            if (token.isPresent()) {
+                UserDetails userDetails = this.principalCache.loadPrincipal(token.get());
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
-        } catch (UsernameNotFoundException e) {
+        } catch (AuthenticationException e) {
             logger.error("Could not set user authentication in security context", e);
         }
 
@@ -0,0 +1,81 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * The reactive counterpart of {@link JwtAuthenticationFilter}: verifies the
+ * bearer token and puts the resolved principal into the reactive security
+ * context. A missing or rejected token leaves the exchange unauthenticated.
+ * <p>
+ * Not a bean, so that WebFlux does not also register it outside the security
+ * filter chain.
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+
+    /**
+     * The starting index of the JWT token in the Authorization header, after
+     * the "Bearer " prefix.
+     */
+    private static final int JWT_START_INDEX = 7;
+
+    private final JwtService jwtService;
+    private final PrincipalCache principalCache;
+    private final ReactiveUserDetailsService reactiveUserDetailsService;
+
+    public JwtAuthenticationWebFilter(JwtService jwtService, PrincipalCache principalCache,
+                                      ReactiveUserDetailsService reactiveUserDetailsService) {
+        this.jwtService = jwtService;
+        this.principalCache = principalCache;
+        this.reactiveUserDetailsService = reactiveUserDetailsService;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String jwt = getJwtFromRequest(exchange);
+        Optional<VerifiedToken> token = jwt != null ? this.jwtService.verifyToken(jwt) : Optional.empty();
+        if (token.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        return this.principalCache.loadPrincipal(token.get(), this.reactiveUserDetailsService)
+                .map((userDetails) -> Optional.<Authentication>of(new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities())))
+                .onErrorResume(AuthenticationException.class, (e) -> {
+                    logger.error("Could not set user authentication in security context", e);
+
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty())
+                .flatMap((authentication) -> authentication
+                        .map((value) -> chain.filter(exchange)
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(value)))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    private String getJwtFromRequest(ServerWebExchange exchange) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(JWT_START_INDEX);
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,393 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts.SIG;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The keys {@link JwtService} signs and verifies tokens with.
+ * <p>
+ * With {@code ES256} or {@code EdDSA}, every node loads the unexpired keys
+ * from {@link SigningKeyRepository} every {@code app.jwtKeyRefreshIntervalInMs}
+ * and decodes only the ones it has not seen before. Verification looks the
+ * token's {@code kid} up in an immutable map that is swapped in whole, so the
+ * request path never takes a lock or builds a key. A signing node generates a
+ * new key once the newest one is {@code app.jwtKeyRotationIntervalInMs} old,
+ * and only starts signing with it one refresh interval later, after every
+ * other node has picked it up. When several signing nodes rotate at once,
+ * the key's unique rotation slot lets only one of them store a key, and all
+ * of them read the ring back before choosing one to sign with. Nodes started
+ * with {@code app.jwtSigning=false} never load private keys and only verify.
+ * <p>
+ * Private keys are stored encrypted with AES-GCM under the 256-bit
+ * {@code app.jwtKeyEncryptionKey}, bound to their key id. A signing node
+ * without one fails to start; verification-only nodes do not need it.
+ * <p>
+ * With {@code HS256}, the single {@code app.jwtSecret} key signs and verifies
+ * everything and the repository is not used.
+ */
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String KEY_ENCRYPTION_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_ENCRYPTION_KEY_BYTES = 32;
+    private static final int KEY_ENCRYPTION_IV_BYTES = 12;
+    private static final int KEY_ENCRYPTION_TAG_BITS = 128;
+
+    public enum Algorithm {
+        HS256,
+        ES256,
+        EdDSA
+    }
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final Algorithm algorithm;
+    private final SecretKey secretKey;
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom random = new SecureRandom();
+    private final boolean signing;
+    private final Duration rotationInterval;
+    private final Duration refreshInterval;
+    private final Duration keyLifetime;
+    private final Clock clock;
+    private volatile Signer signer;
+    private volatile Map<String, PublicKey> verificationKeys = Map.of();
+    private volatile Map<String, List<PublicJwk<?>>> jwks = Map.of("keys", List.of());
+
+    @Autowired
+    public JwtKeyRing(SigningKeyRepository signingKeyRepository,
+                      @Value("${app.jwtSigningAlgorithm}") Algorithm algorithm,
+                      @Value("${app.jwtSecret}") String jwtSecret,
+                      @Value("${app.jwtKeyEncryptionKey}") String keyEncryptionKey,
+                      @Value("${app.jwtSigning}") boolean signing,
+                      @Value("${app.jwtKeyRotationIntervalInMs}") long rotationIntervalInMs,
+                      @Value("${app.jwtKeyRefreshIntervalInMs}") long refreshIntervalInMs,
+                      @Value("${app.jwtExpirationInMs}") long jwtExpirationInMs) {
+        this(signingKeyRepository, algorithm, jwtSecret, keyEncryptionKey, signing, rotationIntervalInMs,
+                refreshIntervalInMs, jwtExpirationInMs, Clock.systemUTC());
+    }
+
+    JwtKeyRing(SigningKeyRepository signingKeyRepository, Algorithm algorithm, String jwtSecret,
+               String keyEncryptionKey, boolean signing, long rotationIntervalInMs, long refreshIntervalInMs,
+               long jwtExpirationInMs, Clock clock) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.algorithm = algorithm;
+        this.secretKey = algorithm == Algorithm.HS256 ? Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret)) : null;
+        this.keyEncryptionKey = keyEncryptionKey != null && !keyEncryptionKey.isBlank()
+                ? keyEncryptionKey(keyEncryptionKey)
+                : null;
+        if (algorithm != Algorithm.HS256 && signing && this.keyEncryptionKey == null) {
+            throw new IllegalArgumentException("app.jwtKeyEncryptionKey must be set on nodes that sign with "
+                    + algorithm);
+        }
+        this.signing = signing;
+        this.rotationInterval = Duration.ofMillis(rotationIntervalInMs);
+        this.refreshInterval = Duration.ofMillis(refreshIntervalInMs);
+        // A key may sign until a newer one is published, and its tokens stay valid for one lifetime after that.
+        this.keyLifetime = this.rotationInterval.plus(this.refreshInterval).plusMillis(jwtExpirationInMs);
+        this.clock = clock;
+    }
+
+    /**
+     * A ring that signs and verifies with a single HS256 secret.
+     */
+    public static JwtKeyRing ofSecret(String jwtSecret) {
+        return new JwtKeyRing(null, Algorithm.HS256, jwtSecret, null, true, 0, 0, 0, Clock.systemUTC());
+    }
+
+    /**
+     * Loads the keys before the first token is issued or verified, so a node
+     * that cannot reach the repository fails to start.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwtKeyRefreshIntervalInMs}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh JWT signing keys, keeping the previous ones", e);
+        }
+    }
+
+    /**
+     * Signs the token with the current key and names it in the {@code kid}
+     * header.
+     */
+    JwtBuilder sign(JwtBuilder builder) {
+        if (this.secretKey != null) {
+            return builder.signWith(this.secretKey, SIG.HS256);
+        }
+
+        Signer current = this.signer;
+        if (current == null) {
+            throw new IllegalStateException("This node does not sign tokens");
+        }
+
+        return builder.header().keyId(current.keyId()).and().signWith(current.privateKey(), current.algorithm());
+    }
+
+    /**
+     * The public keys that tokens may currently be signed with, as a JSON Web
+     * Key Set.
+     */
+    public Map<String, List<PublicJwk<?>>> jwks() {
+        return this.jwks;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        if (this.secretKey != null) {
+            return this.secretKey;
+        }
+
+        String keyId = header.getKeyId();
+
+        return keyId != null ? this.verificationKeys.get(keyId) : null;
+    }
+
+    private void reload() {
+        if (this.secretKey != null) {
+            return;
+        }
+
+        Instant now = this.clock.instant();
+        List<SigningKey> keys = load(now);
+
+        if (this.signing && needsRotation(keys, now)) {
+            SigningKey generated = generate(nextRotation(keys, now), now);
+            try {
+                this.signingKeyRepository.insert(generated);
+
+                logger.info("Generated JWT signing key {}", generated.getId());
+            } catch (DuplicateKeyException e) {
+                logger.info("JWT signing key rotation {} was taken by another node", generated.getRotation());
+            }
+            // Read back whichever key won the slot, so every node picks the same one to sign with.
+            keys = load(now);
+        }
+
+        Map<String, PublicKey> previous = this.verificationKeys;
+        Map<String, PublicKey> loaded = new HashMap<>();
+        for (SigningKey key : keys) {
+            PublicKey publicKey = previous.get(key.getId());
+            if (publicKey == null) {
+                publicKey = decode(key, false);
+            }
+            if (publicKey != null) {
+                loaded.put(key.getId(), publicKey);
+            }
+        }
+
+        if (!loaded.keySet().equals(previous.keySet())) {
+            this.verificationKeys = Map.copyOf(loaded);
+            this.jwks = toJwks(keys, loaded);
+        }
+
+        if (this.signing) {
+            this.signer = selectSigner(keys, now);
+        }
+    }
+
+    private List<SigningKey> load(Instant now) {
+        List<SigningKey> keys = new ArrayList<>(this.signing
+                ? this.signingKeyRepository.findByExpiresAtAfter(now)
+                : this.signingKeyRepository.findVerificationKeys(now));
+        keys.sort(Comparator.comparing(SigningKey::getCreatedAt));
+
+        return keys;
+    }
+
+    private boolean needsRotation(List<SigningKey> keys, Instant now) {
+        return keys.isEmpty() || !keys.get(keys.size() - 1).getCreatedAt().plus(this.rotationInterval).isAfter(now);
+    }
+
+    /**
+     * The slot after the newest key's, or one counted from the epoch when the
+     * ring is empty. Slots never run ahead of the clock, so an expired key
+     * that is not purged yet, created more than a rotation interval ago,
+     * cannot hold the one the clock gives now.
+     */
+    private long nextRotation(List<SigningKey> keys, Instant now) {
+        Long newest = keys.isEmpty() ? null : keys.get(keys.size() - 1).getRotation();
+
+        return newest != null ? newest + 1 : now.toEpochMilli() / this.rotationInterval.toMillis();
+    }
+
+    /**
+     * The newest key that every node has had a refresh interval to load, or
+     * the newest key at all when none is that old yet.
+     */
+    private Signer selectSigner(List<SigningKey> keys, Instant now) {
+        Instant published = now.minus(this.refreshInterval);
+        SigningKey selected = null;
+        for (SigningKey key : keys) {
+            if (key.getPrivateKey() != null && (selected == null || !key.getCreatedAt().isAfter(published))) {
+                selected = key;
+            }
+        }
+
+        Signer current = this.signer;
+        if (selected == null || (current != null && current.keyId().equals(selected.getId()))) {
+            return current;
+        }
+
+        PrivateKey privateKey = decode(selected, true);
+        if (privateKey == null) {
+            return current;
+        }
+
+        return new Signer(selected.getId(), privateKey, signatureAlgorithm(Algorithm.valueOf(selected.getAlgorithm())));
+    }
+
+    private SigningKey generate(long rotation, Instant now) {
+        KeyPair keyPair;
+        try {
+            KeyPairGenerator generator;
+            if (this.algorithm == Algorithm.ES256) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                generator = KeyPairGenerator.getInstance("Ed25519");
+            }
+            keyPair = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + this.algorithm + " signing key", e);
+        }
+
+        String id = new ObjectId().toHexString();
+        Base64.Encoder encoder = Base64.getEncoder();
+
+        return new SigningKey(id, this.algorithm.name(), encoder.encodeToString(keyPair.getPublic().getEncoded()),
+                encoder.encodeToString(encrypt(id, keyPair.getPrivate().getEncoded())), rotation, now,
+                now.plus(this.keyLifetime));
+    }
+
+    /**
+     * Encrypts the private key with a fresh IV, stored ahead of the
+     * ciphertext, and the key id as associated data, so a private key cannot
+     * be moved to another key's document.
+     */
+    private byte[] encrypt(String keyId, byte[] privateKey) {
+        byte[] iv = new byte[KEY_ENCRYPTION_IV_BYTES];
+        this.random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(KEY_ENCRYPTION_TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, this.keyEncryptionKey, new GCMParameterSpec(KEY_ENCRYPTION_TAG_BITS, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+
+            return ByteBuffer.allocate(iv.length + cipher.getOutputSize(privateKey.length))
+                    .put(iv)
+                    .put(cipher.doFinal(privateKey))
+                    .array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt JWT signing key " + keyId, e);
+        }
+    }
+
+    private byte[] decrypt(String keyId, byte[] encrypted) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(KEY_ENCRYPTION_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, this.keyEncryptionKey,
+                new GCMParameterSpec(KEY_ENCRYPTION_TAG_BITS, encrypted, 0, KEY_ENCRYPTION_IV_BYTES));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+
+        return cipher.doFinal(encrypted, KEY_ENCRYPTION_IV_BYTES, encrypted.length - KEY_ENCRYPTION_IV_BYTES);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Key> K decode(SigningKey key, boolean privateKey) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(
+                    Algorithm.valueOf(key.getAlgorithm()) == Algorithm.ES256 ? "EC" : "Ed25519");
+
+            return privateKey
+                    ? (K) keyFactory.generatePrivate(new PKCS8EncodedKeySpec(
+                            decrypt(key.getId(), Base64.getDecoder().decode(key.getPrivateKey()))))
+                    : (K) keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey())));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            logger.warn("Skipping unreadable JWT signing key {}", key.getId(), e);
+
+            return null;
+        }
+    }
+
+    private static SecretKey keyEncryptionKey(String encoded) {
+        byte[] key = Decoders.BASE64.decode(encoded);
+        if (key.length != KEY_ENCRYPTION_KEY_BYTES) {
+            throw new IllegalArgumentException("app.jwtKeyEncryptionKey must be a Base64 encoded 256-bit key");
+        }
+
+        return new SecretKeySpec(key, "AES");
+    }
+
+    private static Map<String, List<PublicJwk<?>>> toJwks(List<SigningKey> keys, Map<String, PublicKey> publicKeys) {
+        List<PublicJwk<?>> jwks = new ArrayList<>(keys.size());
+        for (SigningKey key : keys) {
+            PublicKey publicKey = publicKeys.get(key.getId());
+            if (publicKey != null) {
+                jwks.add(Jwks.builder().key(publicKey)
+                        .id(key.getId())
+                        .algorithm(key.getAlgorithm())
+                        .publicKeyUse("sig")
+                        .build());
+            }
+        }
+
+        return Map.of("keys", List.copyOf(jwks));
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(Algorithm algorithm) {
+        return algorithm == Algorithm.ES256 ? SIG.ES256 : SIG.EdDSA;
+    }
+
+    private record Signer(String keyId, PrivateKey privateKey, SignatureAlgorithm algorithm) {
+    }
+
+}
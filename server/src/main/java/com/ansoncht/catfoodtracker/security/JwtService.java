@@ -1,71 +1,226 @@
 package com.ansoncht.catfoodtracker.security;
 
+import com.ansoncht.catfoodtracker.user.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.Jwts.SIG;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 public class JwtService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
 
-    private final String jwtSecret;
+    private static final int DEFAULT_VERIFIED_CACHE_SIZE = 10_000;
+
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
+    /**
+     * Roles assumed for tokens issued before the roles claim existed.
+     */
+    private static final List<String> DEFAULT_ROLES = List.of(User.DEFAULT_ROLE);
+
+    /**
+     * Tokens are cached by their SHA-256 digest so the cache never holds the
+     * bearer credential itself.
+     */
+    private static final ThreadLocal<MessageDigest> TOKEN_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
     private final int jwtExpirationInMs;
+    private final Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+    private final AuthMetrics authMetrics;
+
+    public JwtService(String jwtSecret, int jwtExpirationInMs) {
+        this(jwtSecret, jwtExpirationInMs, DEFAULT_VERIFIED_CACHE_SIZE);
+    }
+
+    public JwtService(String jwtSecret, int jwtExpirationInMs, int jwtVerifiedCacheSize) {
+        this(JwtKeyRing.ofSecret(jwtSecret), jwtExpirationInMs, jwtVerifiedCacheSize, AuthMetrics.noop());
+    }
 
-    public JwtService(@Value("${app.jwtSecret}") String jwtSecret,
-                      @Value("${app.jwtExpirationInMs}") int jwtExpirationInMs) {
-        this.jwtSecret = jwtSecret;
+    @Autowired
+    public JwtService(JwtKeyRing keyRing,
+                      @Value("${app.jwtExpirationInMs}") int jwtExpirationInMs,
+                      @Value("${app.jwtVerifiedCacheSize}") int jwtVerifiedCacheSize,
+                      AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser().keyLocator(keyRing).build();
         this.jwtExpirationInMs = jwtExpirationInMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtVerifiedCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
     public String generateToken(String username) {
+        return generateToken(null, username, DEFAULT_ROLES, 0);
+    }
+
+    public String generateToken(String userId, String username, Collection<String> roles, long tokenVersion) {
+        return issueToken(userId, username, roles, tokenVersion).token();
+    }
+
+    /**
+     * Generates an access token with a random {@code jti}, returning the id
+     * and expiry alongside it so the token can be revoked later.
+     */
+    public IssuedToken issueToken(String userId, String username, Collection<String> roles, long tokenVersion) {
+        long started = System.nanoTime();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
+        String tokenId = UUID.randomUUID().toString();
 
-        return Jwts.builder()
+        String token = this.keyRing.sign(Jwts.builder()
+                .id(tokenId)
                 .subject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM, roles)
+                .claim(TOKEN_VERSION_CLAIM, tokenVersion)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey(), SIG.HS256)
+                .expiration(expiryDate))
                 .compact();
+
+        this.authMetrics.token(AuthMetrics.GENERATION, AuthMetrics.SUCCESS, started);
+
+        return new IssuedToken(token, tokenId, expiryDate.toInstant());
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the token once and returns its claims. Tokens that were already
+     * verified are served from the cache until they expire, skipping the
+     * signature check and JSON parsing.
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
         logger.debug("Verifying JWT token");
 
         try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token);
-
-            return true;
+            return Optional.of(verify(token));
         } catch (JwtException | IllegalArgumentException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verify(token).username();
+    }
+
+    private VerifiedToken verify(String token) {
+        long started = System.nanoTime();
+        if (token == null || token.isEmpty()) {
+            this.authMetrics.token(AuthMetrics.VERIFICATION, AuthMetrics.INVALID, started);
+
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+
+        ByteBuffer key = digest(token);
+        VerifiedToken cached = this.verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            this.authMetrics.token(AuthMetrics.VERIFICATION, AuthMetrics.CACHED, started);
+
+            return cached;
+        }
 
-        return claims.getSubject();
+        Claims claims;
+        try {
+            claims = this.parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            this.authMetrics.token(AuthMetrics.VERIFICATION, AuthMetrics.INVALID, started);
+
+            throw e;
+        }
+
+        VerifiedToken verified = new VerifiedToken(claims.get(USER_ID_CLAIM, String.class), claims.getSubject(),
+                getRoles(claims), getTokenVersion(claims), toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()), claims.getId());
+
+        if (verified.expiresAt() != null) {
+            this.verifiedTokens.put(key, verified);
+        }
+
+        this.authMetrics.token(AuthMetrics.VERIFICATION, AuthMetrics.VALID, started);
+
+        return verified;
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(this.jwtSecret));
+    private static List<String> getRoles(Claims claims) {
+        if (!(claims.get(ROLES_CLAIM) instanceof Collection<?> roles)) {
+            return DEFAULT_ROLES;
+        }
+
+        return roles.stream().map(String::valueOf).toList();
+    }
+
+    private static long getTokenVersion(Claims claims) {
+        return claims.get(TOKEN_VERSION_CLAIM) instanceof Number version ? version.longValue() : 0;
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(TOKEN_DIGEST.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+
+    /**
+     * Evicts each cached token at the moment it expires.
+     */
+    private static final class TokenExpiry implements Expiry<ByteBuffer, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+            long remaining = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+
+            return Math.max(remaining, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
     }
 
 }
@@ -0,0 +1,110 @@
+package com.ansoncht.catfoodtracker.security;
+
+import com.ansoncht.catfoodtracker.user.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limits sign-in attempts per client address and per account, so that
+ * credential stuffing is turned away before any lookup or password hashing.
+ * <p>
+ * Each key has a lock-free token bucket in the form of the generic cell rate
+ * algorithm: a single theoretical arrival time advanced by compare-and-set.
+ * Buckets are held in bounded caches, which caps their memory, and a bucket
+ * is dropped once it has been idle long enough to have refilled, since a
+ * fresh one behaves the same. A rate of 0 turns a scope off.
+ * <p>
+ * The client address is the request's remote address, so deployments behind
+ * a proxy need {@code server.forward-headers-strategy} set.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private static final String METRIC_NAME = "login.throttle";
+
+    private final Scope ip;
+    private final Scope account;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.loginThrottleIpPerMinute}") int ipPerMinute,
+                         @Value("${app.loginThrottleIpBurst}") int ipBurst,
+                         @Value("${app.loginThrottleAccountPerMinute}") int accountPerMinute,
+                         @Value("${app.loginThrottleAccountBurst}") int accountBurst,
+                         @Value("${app.loginThrottleMaxKeys}") int maxKeys) {
+        this.ip = new Scope("ip", ipPerMinute, ipBurst, maxKeys, meterRegistry);
+        this.account = new Scope("account", accountPerMinute, accountBurst, maxKeys, meterRegistry);
+    }
+
+    /**
+     * Takes one attempt from the client's and the account's bucket, or throws
+     * {@link LoginThrottledException} when either is empty.
+     */
+    public void check(String clientAddress, String usernameOrEmail) {
+        this.ip.acquire(clientAddress);
+        this.account.acquire(usernameOrEmail != null ? User.normalizeLoginKey(usernameOrEmail) : null);
+    }
+
+    private static final class Scope {
+
+        private final String name;
+        private final long emissionIntervalNanos;
+        private final long toleranceNanos;
+        private final Cache<String, AtomicLong> buckets;
+        private final Counter rejections;
+        private final long origin = System.nanoTime();
+
+        Scope(String name, int perMinute, int burst, int maxKeys, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.emissionIntervalNanos = perMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / perMinute : 0;
+            this.toleranceNanos = this.emissionIntervalNanos * Math.max(burst - 1, 0);
+            this.buckets = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(Math.max(this.emissionIntervalNanos + this.toleranceNanos, 1)))
+                    .recordStats()
+                    .<String, AtomicLong>build(), METRIC_NAME + "." + name);
+            this.rejections = Counter.builder(METRIC_NAME + ".rejected")
+                    .description("Sign-in attempts rejected by the login throttle")
+                    .tag("scope", name)
+                    .register(meterRegistry);
+        }
+
+        void acquire(String key) {
+            if (this.emissionIntervalNanos == 0 || key == null) {
+                return;
+            }
+
+            AtomicLong arrival = this.buckets.get(key, (ignored) -> new AtomicLong());
+            long now = System.nanoTime() - this.origin;
+            while (true) {
+                long current = arrival.get();
+                long start = Math.max(current, now);
+                long allowedAt = start - this.toleranceNanos;
+                if (now < allowedAt) {
+                    this.rejections.increment();
+                    logger.debug("Sign-in throttled by {} limit", this.name);
+
+                    throw new LoginThrottledException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(allowedAt - now + 999_999_999)));
+                }
+
+                if (arrival.compareAndSet(current, start + this.emissionIntervalNanos)) {
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.ansoncht.catfoodtracker.security;
+
+/**
+ * Thrown when a sign-in attempt is over the allowed rate for its client
+ * address or account.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many sign-in attempts");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
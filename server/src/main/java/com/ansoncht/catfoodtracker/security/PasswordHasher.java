@@ -0,0 +1,134 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool so that a burst of
+ * sign-ins cannot occupy the servlet threads. Work that does not fit in the
+ * queue is rejected immediately with {@link PasswordHashingRejectedException}.
+ * <p>
+ * The returned futures complete on a separate completion pool, so the stages
+ * callers chain on them, such as the sign-up insert or issuing tokens, block
+ * on MongoDB there rather than on a thread sized for hashing.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String METRIC_NAME = "password.hashing";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor completionExecutor;
+    private final long retryAfterSeconds;
+    private final Timer waitTimer;
+    private final Counter rejections;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${app.passwordHashingThreads}") int threads,
+                          @Value("${app.passwordHashingQueueCapacity}") int queueCapacity,
+                          @Value("${app.passwordHashingRetryAfterInSeconds}") long retryAfterSeconds,
+                          @Value("${app.passwordHashingCompletionThreads}") int completionThreads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Unbounded, as the hashing queue already bounds the work; a rejection here would leave a future pending.
+        this.completionExecutor = new ThreadPoolExecutor(completionThreads, completionThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("password-hashing-completion-"));
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.waitTimer = Timer.builder(METRIC_NAME + ".wait")
+                .description("Time password hashing work spends queued before it starts")
+                .register(meterRegistry);
+        this.rejections = Counter.builder(METRIC_NAME + ".rejected")
+                .description("Password hashing work rejected because the queue was full")
+                .register(meterRegistry);
+
+        new ExecutorServiceMetrics(this.executor, METRIC_NAME, Tags.empty()).bindTo(meterRegistry);
+        new ExecutorServiceMetrics(this.completionExecutor, METRIC_NAME + ".completion", Tags.empty())
+                .bindTo(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        logger.debug("Encrypting password");
+
+        return submit(() -> this.passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        logger.debug("Verifying password");
+
+        return submit(() -> this.passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Returns true when the stored hash should be rewritten with the current
+     * encoder settings.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return this.passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdown();
+        try {
+            // Hashes still running hand their result to the completion pool, so it must outlive them.
+            if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Password hashing still running after {} s", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.completionExecutor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long enqueuedAt = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                this.waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+                return work.get();
+            }, this.executor).whenCompleteAsync(PasswordHasher::handOff, this.completionExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password hashing rejected: queue is full");
+            this.rejections.increment();
+
+            return CompletableFuture.failedFuture(new PasswordHashingRejectedException(this.retryAfterSeconds));
+        }
+    }
+
+    /**
+     * Does nothing; completing through it moves the result, failed or not, to
+     * the completion pool.
+     */
+    private static void handOff(Object result, Throwable e) {
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.ansoncht.catfoodtracker.security;
+
+import com.ansoncht.catfoodtracker.user.UserChangedEvent;
+import com.ansoncht.catfoodtracker.user.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Resolves the principal for a verified token without a database round trip
+ * on every request.
+ * <p>
+ * By default principals are loaded through {@link UserService} and kept in a
+ * bounded cache with a TTL. In stateless mode ({@code app.statelessAuth}) the
+ * principal is built from the token claims alone and the database is never
+ * consulted. In both modes a token whose version is older than the last
+ * version seen for the user is rejected, as is a token whose {@code jti} is
+ * in {@link TokenRevocations}.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    private final UserDetailsService userDetailsService;
+    private final AuthMetrics authMetrics;
+    private final TokenRevocations tokenRevocations;
+    private final boolean statelessAuth;
+    private final Cache<String, UserDetails> principals;
+    private final Cache<String, Long> tokenVersions;
+
+    public PrincipalCache(UserService userService, MeterRegistry meterRegistry, AuthMetrics authMetrics,
+                          TokenRevocations tokenRevocations,
+                          @Value("${app.principalCacheSize}") int principalCacheSize,
+                          @Value("${app.principalCacheTtlInMs}") long principalCacheTtlInMs,
+                          @Value("${app.jwtExpirationInMs}") long jwtExpirationInMs,
+                          @Value("${app.statelessAuth}") boolean statelessAuth) {
+        this.userDetailsService = userService;
+        this.authMetrics = authMetrics;
+        this.tokenRevocations = tokenRevocations;
+        this.statelessAuth = statelessAuth;
+        this.principals = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfterWrite(Duration.ofMillis(principalCacheTtlInMs))
+                .recordStats()
+                .<String, UserDetails>build(), "principals");
+        // A version bump only matters while tokens issued before it are still valid.
+        this.tokenVersions = Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfterWrite(Duration.ofMillis(jwtExpirationInMs))
+                .build();
+    }
+
+    public UserDetails loadPrincipal(VerifiedToken token) {
+        long started = System.nanoTime();
+        boolean[] loaded = {false};
+
+        try {
+            UserDetails principal = this.statelessAuth
+                    ? AuthenticatedUser.fromToken(token)
+                    : this.principals.get(token.username(), (username) -> {
+                        loaded[0] = true;
+
+                        return this.userDetailsService.loadUserByUsername(username);
+                    });
+
+            checkToken(token, principal);
+            this.authMetrics.principal(outcome(loaded[0]), started);
+
+            return principal;
+        } catch (RuntimeException e) {
+            this.authMetrics.principal(failureOutcome(e), started);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant for the reactive stack: a cache miss is loaded
+     * through the given reactive service instead of the blocking one.
+     */
+    public Mono<UserDetails> loadPrincipal(VerifiedToken token, ReactiveUserDetailsService reactiveUserDetailsService) {
+        long started = System.nanoTime();
+        if (this.statelessAuth) {
+            return Mono.fromCallable(() -> checkToken(token, AuthenticatedUser.fromToken(token)))
+                    .doOnSuccess((principal) -> this.authMetrics.principal(AuthMetrics.STATELESS, started))
+                    .doOnError((e) -> this.authMetrics.principal(failureOutcome(e), started));
+        }
+
+        UserDetails cached = this.principals.getIfPresent(token.username());
+        Mono<UserDetails> principal = cached != null
+                ? Mono.just(cached)
+                : reactiveUserDetailsService.findByUsername(token.username())
+                        .doOnNext((loaded) -> this.principals.put(token.username(), loaded));
+
+        return principal.map((loaded) -> checkToken(token, loaded))
+                .doOnSuccess((loaded) -> this.authMetrics.principal(loaded == null
+                        ? AuthMetrics.NOT_FOUND
+                        : outcome(cached == null), started))
+                .doOnError((e) -> this.authMetrics.principal(failureOutcome(e), started));
+    }
+
+    public void invalidate(String username) {
+        this.principals.invalidate(username);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        this.principals.invalidate(event.username());
+        this.principals.invalidate(event.email());
+        this.tokenVersions.asMap().merge(event.username(), event.tokenVersion(), Math::max);
+    }
+
+    private UserDetails checkToken(VerifiedToken token, UserDetails principal) {
+        if (this.tokenRevocations.isRevoked(token.tokenId())) {
+            logger.debug("Rejecting revoked token {}", token.tokenId());
+
+            throw new CredentialsExpiredException("Token has been revoked");
+        }
+
+        if (token.tokenVersion() < currentTokenVersion(token.username(), principal)) {
+            logger.debug("Rejecting outdated token version {}", token.tokenVersion());
+
+            throw new CredentialsExpiredException("Token version is no longer accepted");
+        }
+
+        return principal;
+    }
+
+    private String outcome(boolean loaded) {
+        if (this.statelessAuth) {
+            return AuthMetrics.STATELESS;
+        }
+
+        return loaded ? AuthMetrics.SUCCESS : AuthMetrics.CACHED;
+    }
+
+    private static String failureOutcome(Throwable e) {
+        if (e instanceof UsernameNotFoundException) {
+            return AuthMetrics.NOT_FOUND;
+        }
+
+        return e instanceof CredentialsExpiredException ? AuthMetrics.REJECTED : AuthMetrics.ERROR;
+    }
+
+    private long currentTokenVersion(String username, UserDetails principal) {
+        long known = principal instanceof AuthenticatedUser user ? user.getTokenVersion() : 0;
+        Long changed = this.tokenVersions.getIfPresent(username);
+
+        return changed != null ? Math.max(known, changed) : known;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A refresh token, stored only as the SHA-256 hash of the value handed to the
+ * client. Every rotation issues a new token in the same family, so reuse of
+ * an already rotated token can revoke the whole family.
+ * <p>
+ * Each refresh token also records the access token issued with it, so
+ * revoking the pair revokes that access token's {@code jti} too. Documents
+ * are removed by a TTL index once the refresh token expires.
+ */
+@Document(collection = "refreshTokens")
+@CompoundIndex(name = "revokedAccessTokens", def = "{ 'revokedAt' : 1, 'accessTokenExpiresAt' : 1 }")
+public class RefreshToken {
+
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String tokenHash;
+
+    private String userId;
+
+    @Indexed
+    private String familyId;
+
+    private long tokenVersion;
+
+    private String accessTokenId;
+
+    private Instant accessTokenExpiresAt;
+
+    private Instant createdAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    private Instant rotatedAt;
+
+    private Instant revokedAt;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, String userId, String familyId, long tokenVersion, IssuedToken accessToken,
+                        Instant createdAt, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.familyId = familyId;
+        this.tokenVersion = tokenVersion;
+        this.accessTokenId = accessToken.tokenId();
+        this.accessTokenExpiresAt = accessToken.expiresAt();
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public String getAccessTokenId() {
+        return accessTokenId;
+    }
+
+    public Instant getAccessTokenExpiresAt() {
+        return accessTokenExpiresAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Instant getRotatedAt() {
+        return rotatedAt;
+    }
+
+    void setRotatedAt(Instant rotatedAt) {
+        this.rotatedAt = rotatedAt;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+}
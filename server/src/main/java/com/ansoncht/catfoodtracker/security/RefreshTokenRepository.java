@@ -0,0 +1,43 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.data.repository.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Only the operations refresh token rotation needs, so the in-memory
+ * implementation for the {@code loadtest} profile stays small.
+ */
+public interface RefreshTokenRepository extends Repository<RefreshToken, String> {
+
+    <S extends RefreshToken> S insert(S refreshToken);
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    List<RefreshToken> findByFamilyId(String familyId);
+
+    /**
+     * Marks the token as rotated unless it already was, returning 0 when
+     * another request rotated or revoked it first.
+     */
+    @Query("{ '_id' : ?0, 'rotatedAt' : null, 'revokedAt' : null }")
+    @Update("{ '$set' : { 'rotatedAt' : ?1 } }")
+    long markRotated(String id, Instant rotatedAt);
+
+    @Query("{ 'familyId' : ?0, 'revokedAt' : null }")
+    @Update("{ '$set' : { 'revokedAt' : ?1 } }")
+    long revokeFamily(String familyId, Instant revokedAt);
+
+    /**
+     * Revoked tokens whose access token has not expired yet, with only the
+     * access token fields loaded.
+     */
+    @Query(value = "{ 'revokedAt' : { '$ne' : null }, 'accessTokenExpiresAt' : { '$gt' : ?0 } }",
+            fields = "{ 'accessTokenId' : 1, 'accessTokenExpiresAt' : 1 }")
+    List<RefreshToken> findRevokedAccessTokens(Instant now);
+
+}
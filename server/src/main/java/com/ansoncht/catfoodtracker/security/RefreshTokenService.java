@@ -0,0 +1,131 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+
+/**
+ * Issues access and refresh token pairs and rotates refresh tokens.
+ * <p>
+ * Refresh tokens are 256 random bits, so a single SHA-256 is enough to store
+ * them safely. Each one can be exchanged once: rotation marks it used with a
+ * compare-and-set and issues the next token in the same family. Presenting a
+ * used or revoked token revokes the whole family, together with the access
+ * tokens issued alongside it.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+    private final TokenRevocations tokenRevocations;
+    private final Duration refreshTokenExpiration;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtService jwtService,
+                               TokenRevocations tokenRevocations,
+                               @Value("${app.refreshTokenExpirationInMs}") long refreshTokenExpirationInMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.tokenRevocations = tokenRevocations;
+        this.refreshTokenExpiration = Duration.ofMillis(refreshTokenExpirationInMs);
+    }
+
+    /**
+     * Issues a pair that starts a new refresh token family, after a sign-up
+     * or sign-in.
+     */
+    public TokenPair issue(String userId, String username, Collection<String> roles, long tokenVersion) {
+        return issue(userId, username, roles, tokenVersion, new ObjectId().toHexString());
+    }
+
+    /**
+     * Uses up the given refresh token and returns it, so the caller can load
+     * the user and issue the next pair with {@link #rotate}.
+     */
+    public RefreshToken consume(String refreshToken) {
+        Instant now = Instant.now();
+        RefreshToken stored = this.refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Unknown refresh token", false));
+
+        if (stored.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired", false);
+        }
+
+        if (stored.getRotatedAt() != null || stored.getRevokedAt() != null
+                || this.refreshTokenRepository.markRotated(stored.getId(), now) == 0) {
+            revokeFamily(stored.getFamilyId(), now);
+
+            throw new InvalidRefreshTokenException("Refresh token was already used", true);
+        }
+
+        return stored;
+    }
+
+    /**
+     * Issues the next pair in the family of a consumed token. A token issued
+     * before the user's token version changed is not renewed.
+     */
+    public TokenPair rotate(RefreshToken consumed, String username, Collection<String> roles, long tokenVersion) {
+        if (consumed.getTokenVersion() < tokenVersion) {
+            throw new InvalidRefreshTokenException("Refresh token predates a credential change", false);
+        }
+
+        return issue(consumed.getUserId(), username, roles, tokenVersion, consumed.getFamilyId());
+    }
+
+    private TokenPair issue(String userId, String username, Collection<String> roles, long tokenVersion,
+                            String familyId) {
+        IssuedToken accessToken = this.jwtService.issueToken(userId, username, roles, tokenVersion);
+        String refreshToken = newToken();
+        Instant now = Instant.now();
+
+        this.refreshTokenRepository.insert(new RefreshToken(hash(refreshToken), userId, familyId, tokenVersion,
+                accessToken, now, now.plus(this.refreshTokenExpiration)));
+
+        return new TokenPair(accessToken.token(), refreshToken);
+    }
+
+    private void revokeFamily(String familyId, Instant now) {
+        this.refreshTokenRepository.revokeFamily(familyId, now);
+        for (RefreshToken token : this.refreshTokenRepository.findByFamilyId(familyId)) {
+            this.tokenRevocations.revoke(token.getAccessTokenId(), token.getAccessTokenExpiresAt());
+        }
+
+        logger.warn("Refresh token reuse detected, revoked token family {}", familyId);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        this.secureRandom.nextBytes(bytes);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.US_ASCII));
+
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
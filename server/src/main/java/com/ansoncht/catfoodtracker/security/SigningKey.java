@@ -0,0 +1,95 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An asymmetric JWT signing key, shared by every node through the
+ * {@code signingKeys} collection. The id is the {@code kid} written into the
+ * header of each token it signs.
+ * <p>
+ * Keys are stored DER encoded and Base64 wrapped: X.509 for the public key,
+ * PKCS#8 for the private key, which is also encrypted with
+ * {@code app.jwtKeyEncryptionKey} so a copy of the collection cannot sign
+ * tokens. Nodes that only verify tokens never load the private key. A key is
+ * removed by a TTL index once the last token it could have signed has
+ * expired.
+ * <p>
+ * Each key claims a rotation slot under a unique index, so when several
+ * signing nodes find the ring due for rotation at once only one of their keys
+ * is stored.
+ */
+@Document(collection = "signingKeys")
+public class SigningKey {
+
+    @Id
+    private String id;
+
+    private String algorithm;
+
+    private String publicKey;
+
+    private String privateKey;
+
+    @Indexed(unique = true, sparse = true)
+    private Long rotation;
+
+    private Instant createdAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public SigningKey() {
+    }
+
+    public SigningKey(String id, String algorithm, String publicKey, String privateKey, Long rotation,
+                      Instant createdAt, Instant expiresAt) {
+        this.id = id;
+        this.algorithm = algorithm;
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+        this.rotation = rotation;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getPublicKey() {
+        return publicKey;
+    }
+
+    public String getPrivateKey() {
+        return privateKey;
+    }
+
+    public Long getRotation() {
+        return rotation;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * A copy without the private key, as a verification-only node sees it.
+     */
+    SigningKey withoutPrivateKey() {
+        return new SigningKey(this.id, this.algorithm, this.publicKey, null, this.rotation, this.createdAt,
+                this.expiresAt);
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Only the operations {@link JwtKeyRing} needs, so the in-memory
+ * implementation for the {@code loadtest} profile stays small.
+ */
+public interface SigningKeyRepository extends Repository<SigningKey, String> {
+
+    <S extends SigningKey> S insert(S signingKey);
+
+    List<SigningKey> findByExpiresAtAfter(Instant now);
+
+    /**
+     * Unexpired keys with the private key left out, for nodes that only
+     * verify tokens.
+     */
+    @Query(value = "{ 'expiresAt' : { '$gt' : ?0 } }", fields = "{ 'privateKey' : 0 }")
+    List<SigningKey> findVerificationKeys(Instant now);
+
+}
@@ -0,0 +1,8 @@
+package com.ansoncht.catfoodtracker.security;
+
+/**
+ * A short-lived access token and the refresh token that replaces it.
+ */
+public record TokenPair(String accessToken, String refreshToken) {
+
+}
@@ -0,0 +1,106 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether an access token's {@code jti} has been revoked, in memory
+ * and without a database round trip.
+ * <p>
+ * Revocations persisted in {@link RefreshTokenRepository} are loaded into a
+ * {@link BloomFilter} that is rebuilt every
+ * {@code app.tokenRevocationRebuildIntervalInMs}. Revocations made by this
+ * instance since the last rebuild are held in an exact set until the next
+ * rebuild picks them up; revocations made by other instances are seen after
+ * their next rebuild here. A false positive only costs the client a token
+ * refresh, so the filter is sized for a very low probability instead of
+ * confirming hits against the database.
+ */
+@Component
+public class TokenRevocations {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+
+    private static final String METRIC_NAME = "token.revocations";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final double falsePositiveProbability;
+    private final Map<String, RecentRevocation> recent = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    public TokenRevocations(RefreshTokenRepository refreshTokenRepository, MeterRegistry meterRegistry,
+                            @Value("${app.tokenRevocationFalsePositiveProbability}") double falsePositiveProbability) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = BloomFilter.of(List.of(), falsePositiveProbability);
+
+        Gauge.builder(METRIC_NAME + ".filtered", this, (revocations) -> revocations.filter.size())
+                .description("Revoked access tokens in the last rebuilt Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".recent", this.recent, Map::size)
+                .description("Access tokens revoked here since the last rebuild")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+
+        return this.recent.containsKey(tokenId) || this.filter.mightContain(tokenId);
+    }
+
+    /**
+     * Records a revocation that has already been persisted, so it takes
+     * effect here before the next rebuild.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId != null && expiresAt != null) {
+            this.recent.put(tokenId, new RecentRevocation(expiresAt, System.currentTimeMillis()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tokenRevocationRebuildIntervalInMs}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Instant now = Instant.ofEpochMilli(started);
+
+        List<RefreshToken> revoked;
+        try {
+            revoked = this.refreshTokenRepository.findRevokedAccessTokens(now);
+        } catch (RuntimeException e) {
+            logger.warn("Could not load revoked tokens, keeping the previous filter", e);
+
+            return;
+        }
+
+        List<String> tokenIds = new ArrayList<>(revoked.size());
+        for (RefreshToken token : revoked) {
+            if (token.getAccessTokenId() != null) {
+                tokenIds.add(token.getAccessTokenId());
+            }
+        }
+        this.filter = BloomFilter.of(tokenIds, this.falsePositiveProbability);
+
+        // Anything recorded before the query started was persisted before it, so the new filter holds it.
+        this.recent.values().removeIf((revocation) ->
+                revocation.recordedAt() < started || revocation.expiresAt().isBefore(now));
+
+        logger.debug("Rebuilt token revocation filter with {} entries", tokenIds.size());
+    }
+
+    private record RecentRevocation(Instant expiresAt, long recordedAt) {
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.ansoncht.catfoodtracker.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of a JWT whose signature and expiry have already been checked.
+ * The token id is null for tokens issued before access tokens carried a
+ * {@code jti}.
+ */
+public record VerifiedToken(String userId, String username, List<String> roles, long tokenVersion,
+                            Instant issuedAt, Instant expiresAt, String tokenId) {
+
+}
@@ -0,0 +1,24 @@
+package com.ansoncht.catfoodtracker.user;
+
+/**
+ * Thrown when a registration collides with an existing username or email.
+ */
+public class DuplicateUserException extends RuntimeException {
+
+    public enum Reason {
+        USERNAME_TAKEN,
+        EMAIL_TAKEN
+    }
+
+    private final Reason reason;
+
+    public DuplicateUserException(Reason reason) {
+        super(reason == Reason.USERNAME_TAKEN ? "Username already exists" : "Email already exists");
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe, in-memory {@link UserRepository} for the {@code loadtest}
+ * profile, so request-level throughput can be measured without MongoDB.
+ * <p>
+ * Reads are lock-free. Writes are serialized so that the unique username,
+ * email and login key constraints hold exactly as the Mongo indexes enforce
+ * them, and a collision is reported as a {@link DuplicateKeyException} like
+ * the server's. Users are stored and returned as copies, and a stored user
+ * is replaced rather than changed, so neither callers nor a concurrent
+ * update can change a user another caller has read.
+ */
+@Repository
+@Profile("loadtest")
+public class InMemoryUserRepository implements UserRepository {
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByLoginKey = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized <S extends User> S insert(S user) {
+        if (user.getId() != null && this.usersById.containsKey(user.getId())) {
+            throw duplicate("_id_", "_id", user.getId());
+        }
+
+        checkUnique(this.idsByUsername, "username", user.getUsername());
+        checkUnique(this.idsByEmail, "email", user.getEmail());
+        for (String loginKey : loginKeys(user)) {
+            checkUnique(this.idsByLoginKey, "loginKeys", loginKey);
+        }
+
+        if (user.getId() == null) {
+            user.setId(new ObjectId().toHexString());
+        }
+        user.touch(LocalDateTime.now());
+
+        String id = user.getId();
+        this.usersById.put(id, user.copy());
+        index(this.idsByUsername, user.getUsername(), id);
+        index(this.idsByEmail, user.getEmail(), id);
+        for (String loginKey : loginKeys(user)) {
+            this.idsByLoginKey.put(loginKey, id);
+        }
+
+        return user;
+    }
+
+    @Override
+    public synchronized List<BulkInsertFailure> insertMany(List<User> users) {
+        List<BulkInsertFailure> failures = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                insert(users.get(i));
+            } catch (DuplicateKeyException e) {
+                failures.add(new BulkInsertFailure(i, e));
+            }
+        }
+
+        return failures;
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        return Optional.ofNullable(this.usersById.get(id)).map(User::copy);
+    }
+
+    @Override
+    public Optional<User> findByLoginKeys(String loginKey) {
+        String id = loginKey != null ? this.idsByLoginKey.get(loginKey) : null;
+
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    @Override
+    public Optional<UserCredentials> findCredentialsByLoginKeys(String loginKey) {
+        String id = loginKey != null ? this.idsByLoginKey.get(loginKey) : null;
+
+        return Optional.ofNullable(id != null ? this.usersById.get(id) : null)
+                .map((user) -> this.projectionFactory.createProjection(UserCredentials.class, user));
+    }
+
+    @Override
+    public boolean existsByLoginKeys(String loginKey) {
+        return this.idsByLoginKey.containsKey(loginKey);
+    }
+
+    @Override
+    public synchronized void updatePasswordById(String id, String password) {
+        User user = this.usersById.get(id);
+        if (user != null) {
+            User updated = user.copy();
+            updated.setPassword(password);
+            updated.touch(LocalDateTime.now());
+            this.usersById.put(id, updated);
+        }
+    }
+
+    @Override
+    public Stream<User> streamAllBy() {
+        return this.usersById.values().stream().map(User::copy);
+    }
+
+    @Override
+    public List<UserProfile> findProfilesByOrderByIdAsc(Limit limit) {
+        return limit(streamProfilesByOrderByIdAsc(), limit);
+    }
+
+    @Override
+    public List<UserProfile> findProfilesByIdGreaterThanOrderByIdAsc(String id, Limit limit) {
+        return limit(streamProfilesByOrderByIdAsc().filter((profile) -> profile.getId().compareTo(id) > 0), limit);
+    }
+
+    @Override
+    public Stream<UserProfile> streamProfilesByOrderByIdAsc() {
+        return this.usersById.values().stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map((user) -> this.projectionFactory.createProjection(UserProfile.class, user));
+    }
+
+    private static List<UserProfile> limit(Stream<UserProfile> profiles, Limit limit) {
+        return (limit.isLimited() ? profiles.limit(limit.max()) : profiles).toList();
+    }
+
+    private static void checkUnique(Map<String, String> index, String indexName, String key) {
+        if (key != null && index.containsKey(key)) {
+            throw duplicate(indexName, indexName, key);
+        }
+    }
+
+    private static void index(Map<String, String> index, String key, String id) {
+        if (key != null) {
+            index.put(key, id);
+        }
+    }
+
+    private static List<String> loginKeys(User user) {
+        return Objects.requireNonNullElse(user.getLoginKeys(), List.of());
+    }
+
+    private static DuplicateKeyException duplicate(String index, String field, String key) {
+        return new DuplicateKeyException("E11000 duplicate key error collection: users index: " + index
+                + " dup key: { " + field + ": \"" + key + "\" }");
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills in {@code loginKeys} for users stored before the field existed, with
+ * one server-side pipeline update at startup.
+ */
+@Component
+@ConditionalOnProperty(name = "app.loginKeysBackfill", havingValue = "true")
+public class LoginKeysBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginKeysBackfill.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public LoginKeysBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            Document loginKeys = new Document("loginKeys", List.of(
+                    new Document("$toLower", "$username"),
+                    new Document("$toLower", "$email")));
+            UpdateResult result = this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(User.class))
+                    .updateMany(Filters.exists("loginKeys", false), List.of(new Document("$set", loginKeys)));
+
+            if (result.getModifiedCount() > 0) {
+                logger.info("Backfilled login keys for {} users", result.getModifiedCount());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not backfill login keys", e);
+        }
+    }
+
+}
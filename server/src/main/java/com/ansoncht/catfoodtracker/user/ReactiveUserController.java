@@ -0,0 +1,144 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.audit.AuditLog;
+import com.ansoncht.catfoodtracker.audit.LogSampling;
+import com.ansoncht.catfoodtracker.security.InvalidRefreshTokenException;
+import com.ansoncht.catfoodtracker.security.LoginThrottle;
+import com.ansoncht.catfoodtracker.security.RefreshTokenService;
+import com.ansoncht.catfoodtracker.security.TokenPair;
+import com.ansoncht.catfoodtracker.user.dto.RefreshTokenDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Serves the same {@code /api/v1/user} contract as {@link UserController} on
+ * WebFlux, for the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveUserController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserController.class);
+    private final ReactiveUserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginThrottle loginThrottle;
+    private final AuditLog auditLog;
+    private final UserResponses userResponses;
+
+    public ReactiveUserController(ReactiveUserService userService, RefreshTokenService refreshTokenService,
+                                  LoginThrottle loginThrottle, AuditLog auditLog, UserResponses userResponses) {
+        this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
+        this.loginThrottle = loginThrottle;
+        this.auditLog = auditLog;
+        this.userResponses = userResponses;
+    }
+
+    @PostMapping("/api/v1/user/signup")
+    public Mono<ResponseEntity<byte[]>> signUp(@Valid @RequestBody UserRegistrationDTO req) {
+        return this.userService.registerUser(req).map((res) -> {
+            this.auditLog.record(UserResponses.signUpEvent(null), req.getUsername(), res.getId(), null);
+
+            return res;
+        }).flatMap(this::issue).onErrorResume((e) -> {
+            this.auditLog.record(UserResponses.signUpEvent(e), req.getUsername(), null, null);
+
+            if (LogSampling.debug(logger)) {
+                logger.debug("User creation failed for: {}", req.getUsername(), e);
+            }
+
+            return Mono.just(this.userResponses.failure(e));
+        });
+    }
+
+    @PostMapping("/api/v1/user/signin")
+    public Mono<ResponseEntity<byte[]>> signIn(@Valid @RequestBody UserLoginDTO req,
+                                               ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        String clientAddress = remoteAddress != null ? remoteAddress.getHostString() : null;
+
+        return Mono.defer(() -> {
+            this.loginThrottle.check(clientAddress, req.getUsernameOrEmail());
+
+            return this.userService.authenticateUser(req);
+        }).map((res) -> {
+            this.auditLog.record(UserResponses.signInEvent(null), req.getUsernameOrEmail(), res.getId(), clientAddress);
+
+            return res;
+        }).flatMap(this::issue).onErrorResume((e) -> {
+            this.auditLog.record(UserResponses.signInEvent(e), req.getUsernameOrEmail(), null, clientAddress);
+
+            if (LogSampling.debug(logger)) {
+                logger.debug("User login failed for: {}", req.getUsernameOrEmail(), e);
+            }
+
+            return Mono.just(this.userResponses.failure(e));
+        });
+    }
+
+    /**
+     * Exchanges a refresh token for a new access and refresh token pair. The
+     * refresh token store is blocking, so it is used on the bounded elastic
+     * scheduler.
+     */
+    @PostMapping("/api/v1/user/refresh")
+    public Mono<ResponseEntity<byte[]>> refresh(@Valid @RequestBody RefreshTokenDTO req) {
+        return Mono.fromCallable(() -> this.refreshTokenService.consume(req.getRefreshToken()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap((consumed) -> this.userService.findUser(consumed.getUserId())
+                        .switchIfEmpty(Mono.error(() -> new InvalidRefreshTokenException("User no longer exists", false)))
+                        .flatMap((user) -> Mono.fromCallable(() -> {
+                            TokenPair tokens = this.refreshTokenService.rotate(consumed, user.getUsername(),
+                                    user.getRoles(), user.getTokenVersion());
+
+                            this.auditLog.record(UserResponses.refreshEvent(null), user.getUsername(), user.getId(), null);
+
+                            return this.userResponses.response(user, tokens);
+                        }).subscribeOn(Schedulers.boundedElastic())))
+                .onErrorResume((e) -> {
+                    this.auditLog.record(UserResponses.refreshEvent(e), null, null, null);
+
+                    if (LogSampling.debug(logger)) {
+                        logger.debug("Token refresh failed", e);
+                    }
+
+                    return Mono.just(this.userResponses.failure(e));
+                });
+    }
+
+    @GetMapping("/api/v1/user/protected")
+    @PreAuthorize("hasRole('USER')")
+    public Mono<ResponseEntity<String>> protectedEndpoint() {
+        return Mono.just(ResponseEntity.ok("This is a protected endpoint. You are authenticated!"));
+    }
+
+    /**
+     * Issues the first token pair of a new family. The refresh token is stored
+     * with a blocking write, so it runs on the bounded elastic scheduler.
+     */
+    private Mono<ResponseEntity<byte[]>> issue(UserDTO user) {
+        return Mono.fromCallable(() -> {
+            TokenPair tokens = this.refreshTokenService.issue(user.getId(), user.getUsername(), user.getRoles(),
+                    user.getTokenVersion());
+
+            return this.userResponses.response(user, tokens);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+}
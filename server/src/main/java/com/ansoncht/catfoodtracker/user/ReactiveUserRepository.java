@@ -0,0 +1,28 @@
+package com.ansoncht.catfoodtracker.user;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking counterpart of {@link UserRepository}, used by the
+ * {@code reactive} profile.
+ */
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+
+    /**
+     * Finds a user by a normalized username or email, see
+     * {@link User#normalizeLoginKey(String)}.
+     */
+    Mono<User> findByLoginKeys(String loginKey);
+
+    Mono<UserCredentials> findCredentialsByLoginKeys(String loginKey);
+
+    Mono<Boolean> existsByLoginKeys(String loginKey);
+
+    @Query("{ '_id' : ?0 }")
+    @Update("{ '$set' : { 'password' : ?1 } }")
+    Mono<Void> updatePasswordById(String id, String password);
+
+}
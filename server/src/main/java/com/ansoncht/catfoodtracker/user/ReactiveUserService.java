@@ -0,0 +1,196 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.audit.LogSampling;
+import com.ansoncht.catfoodtracker.security.AuthMetrics;
+import com.ansoncht.catfoodtracker.security.PasswordHasher;
+import com.ansoncht.catfoodtracker.user.dto.UserDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking counterpart of {@link UserService}, used by the
+ * {@code reactive} profile. Database access goes through
+ * {@link ReactiveUserRepository}, and password hashing still runs on the
+ * bounded {@link PasswordHasher} pool so it never occupies an event loop.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService implements ReactiveUserDetailsService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserService.class);
+
+    private final ReactiveUserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuthMetrics authMetrics;
+    private final TakenIdentifiers takenIdentifiers;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository, PasswordHasher passwordHasher,
+                               ApplicationEventPublisher eventPublisher, AuthMetrics authMetrics) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.eventPublisher = eventPublisher;
+        this.authMetrics = authMetrics;
+        this.takenIdentifiers = new TakenIdentifiers();
+    }
+
+    /**
+     * Rejects taken identifiers before hashing, from the cache of those seen
+     * on this node or else with a login key index lookup, then registers the
+     * user with a single insert backed by the unique indexes.
+     */
+    public Mono<UserDTO> registerUser(UserRegistrationDTO userRegistrationDTO) {
+        return Mono.defer(() -> {
+            long checkStarted = System.nanoTime();
+            DuplicateUserException.Reason known = this.takenIdentifiers.check(userRegistrationDTO);
+            Mono<DuplicateUserException.Reason> taken = known != null
+                    ? Mono.just(known)
+                    : lookUp(userRegistrationDTO.getUsername(), userRegistrationDTO.getEmail())
+                    .doOnNext((reason) -> this.takenIdentifiers.remember(reason, userRegistrationDTO))
+                    .doOnError((e) ->
+                            this.authMetrics.registration(AuthMetrics.DUPLICATE_CHECK, AuthMetrics.ERROR, checkStarted));
+
+            return taken.flatMap((reason) -> {
+                this.authMetrics.registration(AuthMetrics.DUPLICATE_CHECK, AuthMetrics.DUPLICATE, checkStarted);
+                DuplicateUserException duplicate = new DuplicateUserException(reason);
+
+                if (LogSampling.debug(logger)) {
+                    logger.debug("Registration failed: {}: {}", duplicate.getMessage(), userRegistrationDTO.getUsername());
+                }
+
+                return Mono.<UserDTO>error(duplicate);
+            }).switchIfEmpty(Mono.defer(() -> {
+                this.authMetrics.registration(AuthMetrics.DUPLICATE_CHECK, AuthMetrics.SUCCESS, checkStarted);
+
+                return insertUser(userRegistrationDTO);
+            }));
+        });
+    }
+
+    public Mono<UserDTO> authenticateUser(UserLoginDTO userLoginDTO) {
+        long lookupStarted = System.nanoTime();
+        return this.userRepository.findByLoginKeys(User.normalizeLoginKey(userLoginDTO.getUsernameOrEmail()))
+                .doOnSuccess((user) -> this.authMetrics.authentication(AuthMetrics.LOOKUP,
+                        user != null ? AuthMetrics.FOUND : AuthMetrics.NOT_FOUND, lookupStarted))
+                .doOnError((e) -> this.authMetrics.authentication(AuthMetrics.LOOKUP, AuthMetrics.ERROR, lookupStarted))
+                .switchIfEmpty(Mono.error(() -> {
+                    if (LogSampling.debug(logger)) {
+                        logger.debug("Login failed: User not found: {}", userLoginDTO.getUsernameOrEmail());
+                    }
+
+                    return new RuntimeException("Invalid username or email");
+                }))
+                .flatMap((user) -> verifyPassword(userLoginDTO, user)
+                        .map((matches) -> {
+                            if (!matches) {
+                                if (LogSampling.debug(logger)) {
+                                    logger.debug("Login failed: Incorrect password for user: {}", userLoginDTO.getUsernameOrEmail());
+                                }
+
+                                throw new RuntimeException("Invalid password");
+                            }
+
+                            this.takenIdentifiers.remember(user);
+
+                            if (this.passwordHasher.needsRehash(user.getPassword())) {
+                                rehashPassword(user, userLoginDTO.getPassword());
+                            }
+
+                            return UserDTO.fromUser(user);
+                        }));
+    }
+
+    public Mono<UserDTO> findUser(String id) {
+        return this.userRepository.findById(id).map(UserDTO::fromUser);
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String usernameOrEmail) {
+        return this.userRepository.findCredentialsByLoginKeys(User.normalizeLoginKey(usernameOrEmail))
+                .map(UserService::toPrincipal);
+    }
+
+    private Mono<Boolean> verifyPassword(UserLoginDTO userLoginDTO, User user) {
+        long verifyStarted = System.nanoTime();
+
+        return Mono.fromFuture(() -> this.passwordHasher.matches(userLoginDTO.getPassword(), user.getPassword()))
+                .doOnSuccess((matches) -> this.authMetrics.authentication(AuthMetrics.PASSWORD_VERIFY,
+                        UserService.passwordOutcome(matches, null), verifyStarted))
+                .doOnError((e) -> this.authMetrics.authentication(AuthMetrics.PASSWORD_VERIFY,
+                        UserService.passwordOutcome(null, e), verifyStarted));
+    }
+
+    private void rehashPassword(User user, String rawPassword) {
+        Mono.fromFuture(() -> this.passwordHasher.encode(rawPassword))
+                .flatMap((encryptedPassword) -> this.userRepository.updatePasswordById(user.getId(), encryptedPassword)
+                        .then(Mono.fromRunnable(() -> {
+                            user.setPassword(encryptedPassword);
+                            this.eventPublisher.publishEvent(UserChangedEvent.of(user));
+
+                            logger.debug("Password hash upgraded for user: {}", user.getUsername());
+                        })))
+                .subscribe(null, (e) -> logger.warn("Password hash upgrade skipped for user: {}", user.getUsername(), e));
+    }
+
+    private Mono<UserDTO> insertUser(UserRegistrationDTO userRegistrationDTO) {
+        long hashStarted = System.nanoTime();
+        return Mono.fromFuture(() -> this.passwordHasher.encode(userRegistrationDTO.getPassword()))
+                .doOnSuccess((encryptedPassword) ->
+                        this.authMetrics.registration(AuthMetrics.HASHING, AuthMetrics.SUCCESS, hashStarted))
+                .doOnError((e) ->
+                        this.authMetrics.registration(AuthMetrics.HASHING, AuthMetrics.hashingOutcome(e), hashStarted))
+                .flatMap((encryptedPassword) -> {
+                    User user = userRegistrationDTO.toUser(encryptedPassword);
+                    long insertStarted = System.nanoTime();
+
+                    return this.userRepository.insert(user).doOnSuccess((savedUser) ->
+                            this.authMetrics.registration(AuthMetrics.INSERT, AuthMetrics.SUCCESS, insertStarted)
+                    ).doOnError((e) -> this.authMetrics.registration(AuthMetrics.INSERT,
+                            e instanceof DuplicateKeyException ? AuthMetrics.DUPLICATE : AuthMetrics.ERROR, insertStarted)
+                    ).onErrorResume(DuplicateKeyException.class, (e) -> {
+                        DuplicateUserException.Reason fromKey = TakenIdentifiers.fromKey(e, user);
+
+                        return (fromKey != null ? Mono.just(fromKey) : lookUp(user.getUsername(), user.getEmail()))
+                                .defaultIfEmpty(DuplicateUserException.Reason.USERNAME_TAKEN)
+                                .flatMap((reason) -> {
+                                    DuplicateUserException duplicate = new DuplicateUserException(reason);
+                                    this.takenIdentifiers.remember(reason, user);
+
+                                    if (LogSampling.debug(logger)) {
+                                        logger.debug("Registration failed: {}: {}", duplicate.getMessage(),
+                                                userRegistrationDTO.getUsername());
+                                    }
+
+                                    return Mono.error(duplicate);
+                                });
+                    });
+                })
+                .map((savedUser) -> {
+                    this.takenIdentifiers.remember(savedUser);
+
+                    return UserDTO.fromUser(savedUser);
+                });
+    }
+
+    /**
+     * The reactive form of {@link TakenIdentifiers#lookUp}, empty when
+     * neither identifier is taken.
+     */
+    private Mono<DuplicateUserException.Reason> lookUp(String username, String email) {
+        return this.userRepository.existsByLoginKeys(User.normalizeLoginKey(username))
+                .flatMap((usernameTaken) -> usernameTaken
+                        ? Mono.just(DuplicateUserException.Reason.USERNAME_TAKEN)
+                        : this.userRepository.existsByLoginKeys(User.normalizeLoginKey(email))
+                        .filter(Boolean::booleanValue)
+                        .map((emailTaken) -> DuplicateUserException.Reason.EMAIL_TAKEN));
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoWriteException;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory record of usernames and emails known to be taken on this node,
+ * used to turn away repeated duplicate signups without a query. It is only
+ * filled by signups, logins and collisions seen here, so a first duplicate is
+ * caught by {@link #lookUp} before hashing instead. The unique indexes remain
+ * the source of truth.
+ */
+class TakenIdentifiers {
+
+    private static final int CACHE_SIZE = 100_000;
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final Cache<String, Boolean> usernames = newCache();
+    private final Cache<String, Boolean> emails = newCache();
+
+    /**
+     * Returns the reason the registration is already known to collide, or
+     * null when nothing is known about its identifiers.
+     */
+    DuplicateUserException.Reason check(UserRegistrationDTO registration) {
+        if (this.usernames.getIfPresent(User.normalizeLoginKey(registration.getUsername())) != null) {
+            return DuplicateUserException.Reason.USERNAME_TAKEN;
+        }
+
+        if (this.emails.getIfPresent(User.normalizeLoginKey(registration.getEmail())) != null) {
+            return DuplicateUserException.Reason.EMAIL_TAKEN;
+        }
+
+        return null;
+    }
+
+    void remember(DuplicateUserException.Reason reason, User user) {
+        remember(reason, user.getUsername(), user.getEmail());
+    }
+
+    void remember(DuplicateUserException.Reason reason, UserRegistrationDTO registration) {
+        remember(reason, registration.getUsername(), registration.getEmail());
+    }
+
+    void remember(User user) {
+        remember(DuplicateUserException.Reason.USERNAME_TAKEN, user);
+        remember(DuplicateUserException.Reason.EMAIL_TAKEN, user);
+    }
+
+    private void remember(DuplicateUserException.Reason reason, String username, String email) {
+        if (reason == DuplicateUserException.Reason.USERNAME_TAKEN) {
+            this.usernames.put(User.normalizeLoginKey(username), Boolean.TRUE);
+        } else {
+            this.emails.put(User.normalizeLoginKey(email), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Works out which identifier collided, from the key the server reports
+     * with the duplicate-key error or, when the error does not carry it, by
+     * looking both identifiers up in the login key index.
+     */
+    static DuplicateUserException translate(DuplicateKeyException e, User user, Predicate<String> loginKeyTaken) {
+        DuplicateUserException.Reason reason = fromKey(e, user);
+        if (reason == null) {
+            reason = lookUp(user.getUsername(), user.getEmail(), loginKeyTaken);
+        }
+
+        return new DuplicateUserException(reason != null ? reason : DuplicateUserException.Reason.USERNAME_TAKEN);
+    }
+
+    /**
+     * The identifier named by the {@code keyPattern} and {@code keyValue} of
+     * the error, or null when it carries neither. Command errors include them,
+     * but the driver reports a write error with only its {@code errInfo}, so
+     * an insert's error may not.
+     */
+    static DuplicateUserException.Reason fromKey(DataAccessException e, User user) {
+        BsonDocument details = details(e);
+        if (details == null || !(details.get("keyPattern") instanceof BsonDocument keyPattern)) {
+            return null;
+        }
+
+        if (keyPattern.containsKey("email")) {
+            return DuplicateUserException.Reason.EMAIL_TAKEN;
+        }
+
+        if (keyPattern.containsKey("username")) {
+            return DuplicateUserException.Reason.USERNAME_TAKEN;
+        }
+
+        if (keyPattern.containsKey("loginKeys") && details.get("keyValue") instanceof BsonDocument keyValue
+                && keyValue.get("loginKeys") instanceof BsonString loginKey) {
+            return loginKey.getValue().equals(User.normalizeLoginKey(user.getEmail()))
+                    ? DuplicateUserException.Reason.EMAIL_TAKEN
+                    : DuplicateUserException.Reason.USERNAME_TAKEN;
+        }
+
+        return null;
+    }
+
+    /**
+     * The identifier that already belongs to a user, or null when neither
+     * does, with one seek of the login key index for each.
+     */
+    static DuplicateUserException.Reason lookUp(String username, String email, Predicate<String> loginKeyTaken) {
+        if (loginKeyTaken.test(User.normalizeLoginKey(username))) {
+            return DuplicateUserException.Reason.USERNAME_TAKEN;
+        }
+
+        if (loginKeyTaken.test(User.normalizeLoginKey(email))) {
+            return DuplicateUserException.Reason.EMAIL_TAKEN;
+        }
+
+        return null;
+    }
+
+    private static BsonDocument details(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoWriteException write) {
+                return write.getError().getDetails();
+            }
+
+            if (cause instanceof MongoBulkWriteException bulk && bulk.getWriteErrors().size() == 1) {
+                return bulk.getWriteErrors().get(0).getDetails();
+            }
+
+            if (cause instanceof MongoCommandException command) {
+                return command.getResponse();
+            }
+        }
+
+        return null;
+    }
+
+    private static Cache<String, Boolean> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(CACHE_SIZE)
+                .expireAfterWrite(TTL)
+                .build();
+    }
+
+}
@@ -10,11 +10,16 @@ import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 @Document(collection = "users")
 public class User {
 
+    public static final String DEFAULT_ROLE = "USER";
+
     @Id
     private String id;
 
@@ -41,6 +46,19 @@ public class User {
     @Size(max = 120)
     private String password;
 
+    /**
+     * Lower-cased username and email, so a login by either is one index seek.
+     */
+    @Indexed(unique = true, sparse = true)
+    private List<String> loginKeys;
+
+    private List<String> roles = List.of(DEFAULT_ROLE);
+
+    /**
+     * Incremented whenever tokens issued to this user must stop being accepted.
+     */
+    private long tokenVersion;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -56,18 +74,32 @@ public class User {
         this.firstName = firstName;
         this.lastName = lastName;
         this.password = password;
+        this.loginKeys = loginKeysFor(username, email);
+    }
+
+    public static String normalizeLoginKey(String usernameOrEmail) {
+        return usernameOrEmail.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> loginKeysFor(String username, String email) {
+        return Stream.of(username, email).filter(Objects::nonNull).map(User::normalizeLoginKey).toList();
     }
 
     public String getId() {
         return id;
     }
 
+    void setId(String id) {
+        this.id = id;
+    }
+
     public String getUsername() {
         return username;
     }
 
     public void setUsername(String username) {
         this.username = username;
+        this.loginKeys = loginKeysFor(this.username, this.email);
     }
 
     public String getEmail() {
@@ -76,6 +108,7 @@ public class User {
 
     public void setEmail(String email) {
         this.email = email;
+        this.loginKeys = loginKeysFor(this.username, this.email);
     }
 
     public String getFirstName() {
@@ -102,6 +135,26 @@ public class User {
         this.password = password;
     }
 
+    public List<String> getLoginKeys() {
+        return loginKeys;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -110,6 +163,35 @@ public class User {
         return updatedAt;
     }
 
+    /**
+     * Sets the audit timestamps for stores that do not go through Spring
+     * Data's auditing, such as {@link InMemoryUserRepository}.
+     */
+    void touch(LocalDateTime now) {
+        if (this.createdAt == null) {
+            this.createdAt = now;
+        }
+
+        this.updatedAt = now;
+    }
+
+    /**
+     * A copy that shares no mutable state with this user, so a store that
+     * keeps users in memory, such as {@link InMemoryUserRepository}, is not
+     * changed through the instances it was given or has returned.
+     */
+    User copy() {
+        User copy = new User(this.username, this.email, this.firstName, this.lastName, this.password);
+        copy.id = this.id;
+        copy.loginKeys = this.loginKeys != null ? List.copyOf(this.loginKeys) : null;
+        copy.roles = this.roles != null ? List.copyOf(this.roles) : null;
+        copy.tokenVersion = this.tokenVersion;
+        copy.createdAt = this.createdAt;
+        copy.updatedAt = this.updatedAt;
+
+        return copy;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(this.id);
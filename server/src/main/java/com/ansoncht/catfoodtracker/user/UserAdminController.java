@@ -0,0 +1,90 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.audit.AuditEventType;
+import com.ansoncht.catfoodtracker.audit.AuditLog;
+import com.ansoncht.catfoodtracker.security.AuthenticatedUser;
+import com.ansoncht.catfoodtracker.user.dto.UserImportSummary;
+import com.ansoncht.catfoodtracker.user.dto.UserPage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * User listing, bulk import and export for administrators. The listing is
+ * paged with continuation tokens, see {@link UserService#listUsers}; full
+ * scans, imports and exports are newline-delimited JSON streamed in both
+ * directions, see {@link UserBulkService}. Every full scan, import and
+ * export is audited with the administrator and the number of users, and an
+ * export only includes password hashes when {@code includePasswordHashes} is
+ * set.
+ */
+@RestController
+@Profile("!reactive")
+@PreAuthorize("hasRole('ADMIN')")
+public class UserAdminController {
+
+    private static final String DEFAULT_PAGE_SIZE = "50";
+
+    private final UserService userService;
+    private final UserBulkService userBulkService;
+    private final AuditLog auditLog;
+
+    public UserAdminController(UserService userService, UserBulkService userBulkService, AuditLog auditLog) {
+        this.userService = userService;
+        this.userBulkService = userBulkService;
+        this.auditLog = auditLog;
+    }
+
+    @GetMapping("/api/v1/admin/users")
+    public ResponseEntity<UserPage> listUsers(@RequestParam(required = false) String continuation,
+                                              @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            return ResponseEntity.ok(this.userService.listUsers(continuation, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/api/v1/admin/users/stream")
+    public void streamUsers(@AuthenticationPrincipal AuthenticatedUser admin, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        long streamed = this.userBulkService.streamUsers(response.getOutputStream());
+        this.auditLog.record(AuditEventType.USERS_STREAMED, admin.getUsername(), admin.getId(),
+                request.getRemoteAddr(), streamed);
+    }
+
+    @PostMapping(value = "/api/v1/admin/users/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(@AuthenticationPrincipal AuthenticatedUser admin, InputStream body,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        UserImportSummary summary = this.userBulkService.importUsers(body, response.getOutputStream());
+        this.auditLog.record(AuditEventType.USERS_IMPORTED, admin.getUsername(), admin.getId(),
+                request.getRemoteAddr(), summary.imported());
+    }
+
+    @GetMapping("/api/v1/admin/users/export")
+    public void exportUsers(@AuthenticationPrincipal AuthenticatedUser admin,
+                            @RequestParam(defaultValue = "false") boolean includePasswordHashes,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        long exported = this.userBulkService.exportUsers(response.getOutputStream(), includePasswordHashes);
+        this.auditLog.record(includePasswordHashes ? AuditEventType.USERS_EXPORTED_WITH_HASHES
+                : AuditEventType.USERS_EXPORTED, admin.getUsername(), admin.getId(), request.getRemoteAddr(), exported);
+    }
+
+}
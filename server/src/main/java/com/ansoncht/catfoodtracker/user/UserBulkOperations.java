@@ -0,0 +1,21 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+
+import java.util.List;
+
+/**
+ * Bulk writes that {@link UserRepository} cannot derive, implemented against
+ * {@code MongoTemplate} by {@link UserBulkOperationsImpl}.
+ */
+public interface UserBulkOperations {
+
+    /**
+     * Inserts the users in one unordered bulk write, so a failing user does
+     * not stop the rest of the batch. A duplicate is reported as a
+     * {@link org.springframework.dao.DuplicateKeyException} carrying the
+     * server's message.
+     */
+    List<BulkInsertFailure> insertMany(List<User> users);
+
+}
@@ -0,0 +1,58 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+class UserBulkOperationsImpl implements UserBulkOperations {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    UserBulkOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<BulkInsertFailure> insertMany(List<User> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            this.mongoTemplate.bulkOps(BulkMode.UNORDERED, User.class).insert(users).execute();
+
+            return List.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream()
+                    .map((error) -> new BulkInsertFailure(error.getIndex(), error.getCode() == DUPLICATE_KEY
+                            ? duplicateKey(e, error)
+                            : new DataIntegrityViolationException(error.getMessage())))
+                    .toList();
+        }
+    }
+
+    /**
+     * Keeps the error's details, which name the index and key that collided,
+     * in a single-error cause that {@link TakenIdentifiers} can read.
+     */
+    private static DuplicateKeyException duplicateKey(BulkOperationException e, BulkWriteError error) {
+        ServerAddress serverAddress = e.getCause() instanceof MongoBulkWriteException bulk
+                ? bulk.getServerAddress()
+                : new ServerAddress();
+
+        return new DuplicateKeyException(error.getMessage(), new MongoBulkWriteException(e.getResult(),
+                List.of(error), null, serverAddress, Set.of()));
+    }
+
+}
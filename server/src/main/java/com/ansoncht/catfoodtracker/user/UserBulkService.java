@@ -0,0 +1,319 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import com.ansoncht.catfoodtracker.security.CalibratedPasswordEncoder;
+import com.ansoncht.catfoodtracker.user.dto.UserDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserImportDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserImportError;
+import com.ansoncht.catfoodtracker.user.dto.UserImportSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Imports and exports users as newline-delimited JSON, for migrations.
+ * <p>
+ * An import is read a batch of {@code app.userImportBatchSize} lines at a
+ * time. Each line is parsed, validated and hashed on a dedicated fork-join
+ * pool, apart from the sign-in hashing pool, and the batch is written with a
+ * single unordered bulk insert. A line that fails is reported on the output
+ * as a {@link UserImportError} once its batch is done, and the import ends
+ * with a {@link UserImportSummary}. Lines that carry a {@code passwordHash}
+ * skip hashing; bare BCrypt hashes from other systems are tagged so the
+ * delegating encoder recognises them.
+ * <p>
+ * An export streams every user from a cursor in the same format. The stored
+ * password hashes are only included when asked for, in which case the
+ * export can be imported elsewhere as is. A listing stream is the same full
+ * scan with only the {@link UserDTO} fields.
+ */
+@Service
+public class UserBulkService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkService.class);
+
+    private static final Pattern ENCODED_PASSWORD = Pattern.compile("^\\{(" + CalibratedPasswordEncoder.BCRYPT + "|"
+            + CalibratedPasswordEncoder.ARGON2 + "|" + CalibratedPasswordEncoder.PBKDF2 + ")}.+");
+    private static final Pattern BCRYPT_PASSWORD = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$.{53}$");
+    private static final byte NEWLINE = '\n';
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectReader importReader;
+    private final ObjectWriter importWriter;
+    private final ObjectWriter userWriter;
+    private final ObjectWriter errorWriter;
+    private final ObjectWriter summaryWriter;
+    private final int batchSize;
+    private final ForkJoinPool hashingPool;
+
+    public UserBulkService(UserRepository userRepository, PasswordEncoder passwordEncoder, Validator validator,
+                           ObjectMapper objectMapper,
+                           @Value("${app.userImportBatchSize}") int batchSize,
+                           @Value("${app.userImportHashingThreads}") int hashingThreads) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.importReader = objectMapper.readerFor(UserImportDTO.class);
+        this.importWriter = objectMapper.writerFor(UserImportDTO.class);
+        this.userWriter = objectMapper.writerFor(UserDTO.class);
+        this.errorWriter = objectMapper.writerFor(UserImportError.class);
+        this.summaryWriter = objectMapper.writerFor(UserImportSummary.class);
+        this.batchSize = batchSize;
+        this.hashingPool = new ForkJoinPool(hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imports every line of the input, writing failures and the closing
+     * summary to the output as it goes.
+     */
+    public UserImportSummary importUsers(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<Line> batch = new ArrayList<>(this.batchSize);
+        long imported = 0;
+        long failed = 0;
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                batch.add(new Line(lineNumber, line));
+            }
+
+            if (batch.size() == this.batchSize) {
+                long batchFailed = importBatch(batch, output);
+                imported += batch.size() - batchFailed;
+                failed += batchFailed;
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            long batchFailed = importBatch(batch, output);
+            imported += batch.size() - batchFailed;
+            failed += batchFailed;
+        }
+
+        UserImportSummary summary = new UserImportSummary(imported, failed);
+        writeLine(output, this.summaryWriter, summary);
+        output.flush();
+
+        logger.info("Imported {} users, {} failed", imported, failed);
+
+        return summary;
+    }
+
+    /**
+     * Writes every user to the output, reading them from a cursor so the
+     * collection is never held in memory, with their password hashes if
+     * {@code withPasswordHashes} is set.
+     */
+    public long exportUsers(OutputStream output, boolean withPasswordHashes) throws IOException {
+        long exported = 0;
+        try (Stream<User> users = this.userRepository.streamAllBy()) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                writeLine(output, this.importWriter, UserImportDTO.fromUser(iterator.next(), withPasswordHashes));
+                exported++;
+            }
+        }
+        output.flush();
+
+        return exported;
+    }
+
+    /**
+     * Writes every user's public fields to the output in {@code _id} order,
+     * reading only those fields from a cursor.
+     */
+    public long streamUsers(OutputStream output) throws IOException {
+        long streamed = 0;
+        try (Stream<UserProfile> profiles = this.userRepository.streamProfilesByOrderByIdAsc()) {
+            Iterator<UserProfile> iterator = profiles.iterator();
+            while (iterator.hasNext()) {
+                writeLine(output, this.userWriter, UserDTO.fromProfile(iterator.next()));
+                streamed++;
+            }
+        }
+        output.flush();
+
+        return streamed;
+    }
+
+    @Override
+    public void destroy() {
+        this.hashingPool.shutdown();
+    }
+
+    /**
+     * Imports one batch and reports its failures, returning how many there
+     * were.
+     */
+    private long importBatch(List<Line> batch, OutputStream output) throws IOException {
+        List<Callable<Prepared>> tasks = new ArrayList<>(batch.size());
+        for (Line line : batch) {
+            tasks.add(() -> prepare(line));
+        }
+
+        List<Future<Prepared>> futures = this.hashingPool.invokeAll(tasks);
+
+        List<UserImportError> errors = new ArrayList<>();
+        List<User> users = new ArrayList<>(batch.size());
+        List<Long> userLines = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < futures.size(); i++) {
+            Prepared result = result(futures.get(i), batch.get(i));
+            if (result.error() != null) {
+                errors.add(new UserImportError(result.line(), result.error()));
+            } else {
+                result.user().setId(new ObjectId().toHexString());
+                result.user().touch(now);
+                users.add(result.user());
+                userLines.add(result.line());
+            }
+        }
+
+        for (BulkInsertFailure failure : this.userRepository.insertMany(users)) {
+            errors.add(new UserImportError(userLines.get(failure.index()),
+                    insertError(failure, users.get(failure.index()))));
+        }
+
+        errors.sort(Comparator.comparingLong(UserImportError::line));
+        for (UserImportError error : errors) {
+            writeLine(output, this.errorWriter, error);
+        }
+        output.flush();
+
+        return errors.size();
+    }
+
+    private Prepared prepare(Line line) {
+        UserImportDTO record;
+        try {
+            record = this.importReader.readValue(line.json());
+        } catch (JsonProcessingException e) {
+            return Prepared.failed(line, "Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        if (record == null) {
+            return Prepared.failed(line, "Invalid JSON: not an object");
+        }
+
+        Set<ConstraintViolation<UserImportDTO>> violations = this.validator.validate(record);
+        if (!violations.isEmpty()) {
+            return Prepared.failed(line, violations.stream()
+                    .map((violation) -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        boolean hasPassword = record.getPassword() != null;
+        boolean hasHash = record.getPasswordHash() != null;
+        if (hasPassword == hasHash) {
+            return Prepared.failed(line, "Exactly one of password and passwordHash is required");
+        }
+
+        if (hasPassword) {
+            return new Prepared(line.number(), record.toUser(this.passwordEncoder.encode(record.getPassword())), null);
+        }
+
+        String encoded = encodedPassword(record.getPasswordHash());
+        if (encoded == null) {
+            return Prepared.failed(line, "passwordHash is not in a supported format");
+        }
+
+        return new Prepared(line.number(), record.toUser(encoded), null);
+    }
+
+    private static Prepared result(Future<Prepared> future, Line line) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.warn("Could not prepare import line {}", line.number(), e.getCause());
+
+            return Prepared.failed(line, "Could not prepare user");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while importing users", e);
+        }
+    }
+
+    private String insertError(BulkInsertFailure failure, User user) {
+        if (failure.error() instanceof DuplicateKeyException duplicate) {
+            return TakenIdentifiers.translate(duplicate, user, this.userRepository::existsByLoginKeys)
+                    .getReason()
+                    .name();
+        }
+
+        logger.warn("Could not insert imported user {}", user.getUsername(), failure.error());
+
+        return "Could not insert user";
+    }
+
+    /**
+     * The hash as the delegating encoder stores it, or null when it is in no
+     * format the encoder can verify.
+     */
+    static String encodedPassword(String passwordHash) {
+        if (ENCODED_PASSWORD.matcher(passwordHash).matches()) {
+            return passwordHash;
+        }
+
+        if (BCRYPT_PASSWORD.matcher(passwordHash).matches()) {
+            return "{" + CalibratedPasswordEncoder.BCRYPT + "}" + passwordHash;
+        }
+
+        return null;
+    }
+
+    private static void writeLine(OutputStream output, ObjectWriter writer, Object value) throws IOException {
+        output.write(writer.writeValueAsBytes(value));
+        output.write(NEWLINE);
+    }
+
+    private record Line(long number, String json) {
+    }
+
+    private record Prepared(long line, User user, String error) {
+
+        static Prepared failed(Line line, String error) {
+            return new Prepared(line.number(), null, error);
+        }
+
+    }
+
+}
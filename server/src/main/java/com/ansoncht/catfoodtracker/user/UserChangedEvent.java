@@ -0,0 +1,13 @@
+package com.ansoncht.catfoodtracker.user;
+
+/**
+ * Published whenever a stored user changes, so that anything caching the
+ * user can drop its copy.
+ */
+public record UserChangedEvent(String username, String email, long tokenVersion) {
+
+    public static UserChangedEvent of(User user) {
+        return new UserChangedEvent(user.getUsername(), user.getEmail(), user.getTokenVersion());
+    }
+
+}
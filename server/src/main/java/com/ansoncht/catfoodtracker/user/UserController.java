@@ -1,9 +1,11 @@
 package com.ansoncht.catfoodtracker.user;
 
-import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,67 +13,113 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.ansoncht.catfoodtracker.security.JwtService;
+import com.ansoncht.catfoodtracker.audit.AuditLog;
+import com.ansoncht.catfoodtracker.audit.LogSampling;
+import com.ansoncht.catfoodtracker.security.InvalidRefreshTokenException;
+import com.ansoncht.catfoodtracker.security.LoginThrottle;
+import com.ansoncht.catfoodtracker.security.RefreshToken;
+import com.ansoncht.catfoodtracker.security.RefreshTokenService;
+import com.ansoncht.catfoodtracker.security.TokenPair;
+import com.ansoncht.catfoodtracker.user.dto.RefreshTokenDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
+@Profile("!reactive")
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
-    private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginThrottle loginThrottle;
+    private final AuditLog auditLog;
+    private final UserResponses userResponses;
 
-    public UserController(UserService userService, JwtService jwtService) {
+    public UserController(UserService userService, RefreshTokenService refreshTokenService,
+                          LoginThrottle loginThrottle, AuditLog auditLog, UserResponses userResponses) {
         this.userService = userService;
-        this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+        this.loginThrottle = loginThrottle;
+        this.auditLog = auditLog;
+        this.userResponses = userResponses;
     }
 
     @PostMapping("/api/v1/user/signup")
-    public ResponseEntity<HashMap<String, Object>> signUp(@Valid @RequestBody UserRegistrationDTO req) {
-        logger.info("Signing up user: {}", req.getUsername());
+    public CompletableFuture<ResponseEntity<byte[]>> signUp(@Valid @RequestBody UserRegistrationDTO req) {
+        return invoke(() -> this.userService.registerUser(req)).handle((res, e) -> {
+            this.auditLog.record(UserResponses.signUpEvent(e), req.getUsername(), res != null ? res.getId() : null, null);
 
-        try {
-            UserDTO res = this.userService.registerUser(req);
-            String token = this.jwtService.generateToken(res.getUsername());
-
-            logger.info("User creation succeeded for: {}", req.getUsername());
+            if (e != null) {
+                if (LogSampling.debug(logger)) {
+                    logger.debug("User creation failed for: {}", req.getUsername(), e);
+                }
 
-            HashMap<String, Object> response = new HashMap<>();
-            response.put("user", res);
-            response.put("token", token);
+                return this.userResponses.failure(e);
+            }
 
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            logger.error("User creation failed for: {}", req.getUsername());
+            TokenPair tokens = this.refreshTokenService.issue(res.getId(), res.getUsername(), res.getRoles(),
+                    res.getTokenVersion());
 
-            return ResponseEntity.badRequest().build();
-        }
+            return this.userResponses.response(res, tokens);
+        });
     }
 
     @PostMapping("/api/v1/user/signin")
-    public ResponseEntity<HashMap<String, Object>> signIn(@Valid @RequestBody UserLoginDTO req) {
-        logger.info("Signing in user: {}", req.getUsernameOrEmail());
+    public CompletableFuture<ResponseEntity<byte[]>> signIn(@Valid @RequestBody UserLoginDTO req,
+                                                            HttpServletRequest request) {
+        String clientAddress = request.getRemoteAddr();
 
-        try {
-            UserDTO res = this.userService.authenticateUser(req);
-            String token = this.jwtService.generateToken(res.getUsername());
+        return invoke(() -> {
+            this.loginThrottle.check(clientAddress, req.getUsernameOrEmail());
 
-            logger.info("User login succeeded for: {}", req.getUsernameOrEmail());
+            return this.userService.authenticateUser(req);
+        }).handle((res, e) -> {
+            this.auditLog.record(UserResponses.signInEvent(e), req.getUsernameOrEmail(), res != null ? res.getId() : null,
+                    clientAddress);
 
-            HashMap<String, Object> response = new HashMap<>();
-            response.put("user", res);
-            response.put("token", token);
+            if (e != null) {
+                if (LogSampling.debug(logger)) {
+                    logger.debug("User login failed for: {}", req.getUsernameOrEmail(), e);
+                }
 
-            return ResponseEntity.ok(response);
+                return this.userResponses.failure(e);
+            }
 
+            TokenPair tokens = this.refreshTokenService.issue(res.getId(), res.getUsername(), res.getRoles(),
+                    res.getTokenVersion());
+
+            return this.userResponses.response(res, tokens);
+        });
+    }
+
+    /**
+     * Exchanges a refresh token for a new access and refresh token pair. The
+     * presented refresh token cannot be used again.
+     */
+    @PostMapping("/api/v1/user/refresh")
+    public ResponseEntity<byte[]> refresh(@Valid @RequestBody RefreshTokenDTO req) {
+        try {
+            RefreshToken consumed = this.refreshTokenService.consume(req.getRefreshToken());
+            UserDTO user = this.userService.getUser(consumed.getUserId())
+                    .orElseThrow(() -> new InvalidRefreshTokenException("User no longer exists", false));
+            TokenPair tokens = this.refreshTokenService.rotate(consumed, user.getUsername(), user.getRoles(),
+                    user.getTokenVersion());
+
+            this.auditLog.record(UserResponses.refreshEvent(null), user.getUsername(), user.getId(), null);
+
+            return this.userResponses.response(user, tokens);
         } catch (RuntimeException e) {
-            logger.error("User login failed for: {}", req.getUsernameOrEmail());
+            this.auditLog.record(UserResponses.refreshEvent(e), null, null, null);
 
-            return ResponseEntity.badRequest().build();
+            if (LogSampling.debug(logger)) {
+                logger.debug("Token refresh failed", e);
+            }
+
+            return this.userResponses.failure(e);
         }
     }
 
@@ -81,4 +129,16 @@ public class UserController {
         return ResponseEntity.ok("This is a protected endpoint. You are authenticated!");
     }
 
+    /**
+     * Turns failures thrown before the work was handed off into a failed
+     * future, so both paths are answered the same way.
+     */
+    private static CompletableFuture<UserDTO> invoke(Supplier<CompletableFuture<UserDTO>> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
 }
@@ -0,0 +1,21 @@
+package com.ansoncht.catfoodtracker.user;
+
+import java.util.List;
+
+/**
+ * Projection of a {@link User} holding only what is needed to build a
+ * security principal.
+ */
+public interface UserCredentials {
+
+    String getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    List<String> getRoles();
+
+    long getTokenVersion();
+
+}
@@ -0,0 +1,24 @@
+package com.ansoncht.catfoodtracker.user;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a {@link User} holding only its public profile fields.
+ */
+public interface UserProfile {
+
+    String getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+}
@@ -1,19 +1,63 @@
 package com.ansoncht.catfoodtracker.user;
 
-import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.data.repository.Repository;
 
+import java.util.List;
 import java.util.Optional;
-
-public interface UserRepository extends MongoRepository<User, String> {
-
-    Optional<User> findByUsernameOrEmail(String matcher1, String matcher2);
-
-    Optional<User> findByUsername(String username);
-
-    Optional<User> findByEmail(String email);
-
-    boolean existsByUsername(String username);
-
-    boolean existsByEmail(String email);
+import java.util.stream.Stream;
+
+/**
+ * Only the operations the user services need, so the in-memory
+ * implementation for the {@code loadtest} profile supports all of them.
+ */
+public interface UserRepository extends Repository<User, String>, UserBulkOperations {
+
+    <S extends User> S insert(S user);
+
+    Optional<User> findById(String id);
+
+    /**
+     * Finds a user by a normalized username or email, see
+     * {@link User#normalizeLoginKey(String)}.
+     */
+    Optional<User> findByLoginKeys(String loginKey);
+
+    Optional<UserCredentials> findCredentialsByLoginKeys(String loginKey);
+
+    boolean existsByLoginKeys(String loginKey);
+
+    @Query("{ '_id' : ?0 }")
+    @Update("{ '$set' : { 'password' : ?1 } }")
+    void updatePasswordById(String id, String password);
+
+    /**
+     * Every user, read from a cursor a batch at a time. The stream holds the
+     * cursor open until it is closed.
+     */
+    @Meta(cursorBatchSize = 1000)
+    Stream<User> streamAllBy();
+
+    /**
+     * The first profiles in {@code _id} order, read from the {@code _id}
+     * index.
+     */
+    List<UserProfile> findProfilesByOrderByIdAsc(Limit limit);
+
+    /**
+     * The profiles following {@code id} in {@code _id} order. The index seek
+     * costs the same however far into the collection {@code id} is.
+     */
+    List<UserProfile> findProfilesByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    /**
+     * Every profile in {@code _id} order, read from a cursor a batch at a
+     * time. The stream holds the cursor open until it is closed.
+     */
+    @Meta(cursorBatchSize = 1000)
+    Stream<UserProfile> streamProfilesByOrderByIdAsc();
 
 }
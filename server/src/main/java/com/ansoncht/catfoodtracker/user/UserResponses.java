@@ -0,0 +1,138 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.audit.AuditEventType;
+import com.ansoncht.catfoodtracker.security.InvalidRefreshTokenException;
+import com.ansoncht.catfoodtracker.security.LoginThrottledException;
+import com.ansoncht.catfoodtracker.security.PasswordHashingRejectedException;
+import com.ansoncht.catfoodtracker.security.TokenPair;
+import com.ansoncht.catfoodtracker.user.dto.AuthErrorResponse;
+import com.ansoncht.catfoodtracker.user.dto.AuthResponse;
+import com.ansoncht.catfoodtracker.user.dto.UserDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Response bodies and error statuses shared by the servlet and reactive user
+ * controllers, so both stacks answer the same contract.
+ * <p>
+ * Bodies are written to bytes here with {@link ObjectWriter}s resolved once
+ * for {@link AuthResponse} and {@link AuthErrorResponse}, using the
+ * application's {@link ObjectMapper} settings, so no serializer lookup or
+ * content negotiation happens per request.
+ */
+@Component
+class UserResponses {
+
+    private final ObjectWriter responseWriter;
+    private final ObjectWriter errorWriter;
+
+    UserResponses(ObjectMapper objectMapper) {
+        this.responseWriter = objectMapper.writerFor(AuthResponse.class);
+        this.errorWriter = objectMapper.writerFor(AuthErrorResponse.class);
+    }
+
+    ResponseEntity<byte[]> response(UserDTO user, TokenPair tokens) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(write(this.responseWriter, new AuthResponse(user, tokens.accessToken(), tokens.refreshToken())));
+    }
+
+    ResponseEntity<byte[]> failure(Throwable e) {
+        Throwable cause = unwrap(e);
+
+        if (cause instanceof DuplicateUserException duplicate) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(write(this.errorWriter, new AuthErrorResponse(duplicate.getReason().name())));
+        }
+
+        if (cause instanceof LoginThrottledException throttled) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(throttled.getRetryAfterSeconds()))
+                    .build();
+        }
+
+        if (cause instanceof InvalidRefreshTokenException) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (cause instanceof PasswordHashingRejectedException rejected) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()))
+                    .build();
+        }
+
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * The audit event for a sign-up that ended with the given failure, or
+     * succeeded when it is null.
+     */
+    static AuditEventType signUpEvent(Throwable e) {
+        Throwable cause = unwrap(e);
+
+        if (cause == null) {
+            return AuditEventType.SIGNUP_OK;
+        }
+        if (cause instanceof DuplicateUserException) {
+            return AuditEventType.SIGNUP_DUPLICATE;
+        }
+
+        return cause instanceof PasswordHashingRejectedException ? AuditEventType.SIGNUP_REJECTED : AuditEventType.SIGNUP_FAIL;
+    }
+
+    /**
+     * The audit event for a sign-in that ended with the given failure, or
+     * succeeded when it is null.
+     */
+    static AuditEventType signInEvent(Throwable e) {
+        Throwable cause = unwrap(e);
+
+        if (cause == null) {
+            return AuditEventType.LOGIN_OK;
+        }
+        if (cause instanceof LoginThrottledException) {
+            return AuditEventType.LOGIN_THROTTLED;
+        }
+
+        return cause instanceof PasswordHashingRejectedException ? AuditEventType.LOGIN_REJECTED : AuditEventType.LOGIN_FAIL;
+    }
+
+    /**
+     * The audit event for a token refresh that ended with the given failure,
+     * or succeeded when it is null.
+     */
+    static AuditEventType refreshEvent(Throwable e) {
+        Throwable cause = unwrap(e);
+
+        if (cause == null) {
+            return AuditEventType.REFRESH_OK;
+        }
+
+        return cause instanceof InvalidRefreshTokenException invalid && invalid.isReused()
+                ? AuditEventType.REFRESH_REUSED : AuditEventType.REFRESH_FAIL;
+    }
+
+    private static byte[] write(ObjectWriter writer, Object body) {
+        try {
+            return writer.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+}
@@ -1,99 +1,252 @@
 package com.ansoncht.catfoodtracker.user;
 
+import com.ansoncht.catfoodtracker.audit.LogSampling;
+import com.ansoncht.catfoodtracker.security.AuthMetrics;
+import com.ansoncht.catfoodtracker.security.AuthenticatedUser;
+import com.ansoncht.catfoodtracker.security.PasswordHasher;
 import com.ansoncht.catfoodtracker.user.dto.UserDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserPage;
 import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class UserService implements UserDetailsService {
 
+    public static final int MAX_PAGE_SIZE = 200;
+
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuthMetrics authMetrics;
+    private final TakenIdentifiers takenIdentifiers;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher,
+                       ApplicationEventPublisher eventPublisher, AuthMetrics authMetrics) {
         this.userRepository = userRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.passwordHasher = passwordHasher;
+        this.eventPublisher = eventPublisher;
+        this.authMetrics = authMetrics;
+        this.takenIdentifiers = new TakenIdentifiers();
     }
 
-    public UserDTO registerUser(UserRegistrationDTO userRegistrationDTO) {
-        logger.info("Attempting to register new user: {}", userRegistrationDTO.getUsername());
+    /**
+     * Registers the user with a single insert, relying on the unique indexes
+     * on username and email to reject duplicates. Taken identifiers are
+     * rejected on the calling thread before any hashing work, from the cache
+     * of those seen on this node or else with a login key index lookup; the
+     * indexes still catch a registration racing this one. The insert runs on
+     * the {@link PasswordHasher} completion pool, never on a hashing thread.
+     */
+    public CompletableFuture<UserDTO> registerUser(UserRegistrationDTO userRegistrationDTO) {
+        long checkStarted = System.nanoTime();
+        DuplicateUserException.Reason taken = this.takenIdentifiers.check(userRegistrationDTO);
+        if (taken == null) {
+            try {
+                taken = TakenIdentifiers.lookUp(userRegistrationDTO.getUsername(), userRegistrationDTO.getEmail(),
+                        this.userRepository::existsByLoginKeys);
+            } catch (RuntimeException e) {
+                this.authMetrics.registration(AuthMetrics.DUPLICATE_CHECK, AuthMetrics.ERROR, checkStarted);
+
+                throw e;
+            }
+
+            if (taken != null) {
+                this.takenIdentifiers.remember(taken, userRegistrationDTO);
+            }
+        }
+
+        if (taken != null) {
+            this.authMetrics.registration(AuthMetrics.DUPLICATE_CHECK, AuthMetrics.DUPLICATE, checkStarted);
+            DuplicateUserException duplicate = new DuplicateUserException(taken);
 
-        if (userRepository.existsByUsername(userRegistrationDTO.getUsername())) {
-            logger.warn("Registration failed: Username already exists: {}", userRegistrationDTO.getUsername());
+            if (LogSampling.debug(logger)) {
+                logger.debug("Registration failed: {}: {}", duplicate.getMessage(), userRegistrationDTO.getUsername());
+            }
 
-            throw new RuntimeException("Username already exists");
+            throw duplicate;
         }
 
-        if (userRepository.existsByEmail(userRegistrationDTO.getEmail())) {
-            logger.warn("Registration failed: Email already exists: {}", userRegistrationDTO.getEmail());
+        this.authMetrics.registration(AuthMetrics.DUPLICATE_CHECK, AuthMetrics.SUCCESS, checkStarted);
 
-            throw new RuntimeException("Email already exists");
-        }
+        long hashStarted = System.nanoTime();
+        return this.passwordHasher.encode(userRegistrationDTO.getPassword()).whenComplete((encryptedPassword, e) ->
+                this.authMetrics.registration(AuthMetrics.HASHING, AuthMetrics.hashingOutcome(e), hashStarted)
+        ).thenApply((encryptedPassword) -> {
+            User user = userRegistrationDTO.toUser(encryptedPassword);
+            User savedUser;
+
+            long insertStarted = System.nanoTime();
+            try {
+                savedUser = userRepository.insert(user);
+            } catch (DuplicateKeyException e) {
+                this.authMetrics.registration(AuthMetrics.INSERT, AuthMetrics.DUPLICATE, insertStarted);
+                DuplicateUserException duplicate = TakenIdentifiers.translate(e, user,
+                        this.userRepository::existsByLoginKeys);
+                this.takenIdentifiers.remember(duplicate.getReason(), user);
+
+                if (LogSampling.debug(logger)) {
+                    logger.debug("Registration failed: {}: {}", duplicate.getMessage(), userRegistrationDTO.getUsername());
+                }
 
-        String encryptedPassword = encryptPassword(userRegistrationDTO.getPassword());
-        User user = userRegistrationDTO.toUser(encryptedPassword);
-        User savedUser = userRepository.save(user);
+                throw duplicate;
+            } catch (RuntimeException e) {
+                this.authMetrics.registration(AuthMetrics.INSERT, AuthMetrics.ERROR, insertStarted);
 
-        logger.info("User registered successfully: {}", savedUser.getUsername());
+                throw e;
+            }
 
-        return UserDTO.fromUser(savedUser);
+            this.authMetrics.registration(AuthMetrics.INSERT, AuthMetrics.SUCCESS, insertStarted);
+            this.takenIdentifiers.remember(savedUser);
+
+            return UserDTO.fromUser(savedUser);
+        });
     }
 
-    public UserDTO authenticateUser(UserLoginDTO userLoginDTO) {
-        logger.info("Attempting login for user: {}", userLoginDTO.getUsernameOrEmail());
+    /**
+     * Looks the user up on the calling thread, then verifies the password on
+     * the {@link PasswordHasher} pool. A stored hash that no longer matches the
+     * encoder settings is rewritten in the background after a successful login.
+     */
+    public CompletableFuture<UserDTO> authenticateUser(UserLoginDTO userLoginDTO) {
+        long lookupStarted = System.nanoTime();
+        Optional<User> found;
+        try {
+            found = this.userRepository.findByLoginKeys(User.normalizeLoginKey(userLoginDTO.getUsernameOrEmail()));
+        } catch (RuntimeException e) {
+            this.authMetrics.authentication(AuthMetrics.LOOKUP, AuthMetrics.ERROR, lookupStarted);
+
+            throw e;
+        }
 
-        User user = this.userRepository.findByUsernameOrEmail(userLoginDTO.getUsernameOrEmail(), userLoginDTO.getUsernameOrEmail()).orElseThrow(() -> {
-            logger.warn("Login failed: User not found: {}", userLoginDTO.getUsernameOrEmail());
+        this.authMetrics.authentication(AuthMetrics.LOOKUP, found.isPresent() ? AuthMetrics.FOUND : AuthMetrics.NOT_FOUND,
+                lookupStarted);
+        User user = found.orElseThrow(() -> {
+            if (LogSampling.debug(logger)) {
+                logger.debug("Login failed: User not found: {}", userLoginDTO.getUsernameOrEmail());
+            }
 
             return new RuntimeException("Invalid username or email");
         });
 
-        if (!verifyPassword(userLoginDTO.getPassword(), user.getPassword())) {
-            logger.warn("Login failed: Incorrect password for user: {}", userLoginDTO.getUsernameOrEmail());
+        long verifyStarted = System.nanoTime();
+        return this.passwordHasher.matches(userLoginDTO.getPassword(), user.getPassword()).whenComplete((matches, e) ->
+                this.authMetrics.authentication(AuthMetrics.PASSWORD_VERIFY, passwordOutcome(matches, e), verifyStarted)
+        ).thenApply((matches) -> {
+            if (!matches) {
+                if (LogSampling.debug(logger)) {
+                    logger.debug("Login failed: Incorrect password for user: {}", userLoginDTO.getUsernameOrEmail());
+                }
 
-            throw new RuntimeException("Invalid password");
-        }
+                throw new RuntimeException("Invalid password");
+            }
 
-        logger.info("User authenticated successfully: {}", userLoginDTO.getUsernameOrEmail());
+            this.takenIdentifiers.remember(user);
 
-        return UserDTO.fromUser(user);
+            if (this.passwordHasher.needsRehash(user.getPassword())) {
+                rehashPassword(user, userLoginDTO.getPassword());
+            }
+
+            return UserDTO.fromUser(user);
+        });
+    }
 
+    public Optional<UserDTO> getUser(String id) {
+        return this.userRepository.findById(id).map(UserDTO::fromUser);
+    }
+
+    /**
+     * A page of users in {@code _id} order, starting after the one named by
+     * the continuation token. Paging by key rather than by offset keeps every
+     * page one index seek, however deep the client pages, and only the
+     * {@link UserProfile} fields are read.
+     *
+     * @throws IllegalArgumentException if the token was not issued by this
+     *                                  method
+     */
+    public UserPage listUsers(String continuation, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra profile tells whether there is a following page without a count.
+        Limit fetch = Limit.of(pageSize + 1);
+        List<UserProfile> profiles = continuation == null
+                ? this.userRepository.findProfilesByOrderByIdAsc(fetch)
+                : this.userRepository.findProfilesByIdGreaterThanOrderByIdAsc(decodeContinuation(continuation), fetch);
+
+        boolean more = profiles.size() > pageSize;
+        List<UserDTO> users = profiles.stream().limit(pageSize).map(UserDTO::fromProfile).toList();
+
+        return new UserPage(users, more ? encodeContinuation(users.get(users.size() - 1).getId()) : null);
     }
 
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        logger.info("Attempting to load user: {}", usernameOrEmail);
-
-        User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail).orElseThrow(() -> {
-            logger.warn("User not found: {}", usernameOrEmail);
+        UserCredentials user = userRepository.findCredentialsByLoginKeys(User.normalizeLoginKey(usernameOrEmail)).orElseThrow(() -> {
+            if (LogSampling.debug(logger)) {
+                logger.debug("User not found: {}", usernameOrEmail);
+            }
 
             return new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail);
         });
 
-        logger.info("User loaded successfully: {}", user.getUsername());
+        return toPrincipal(user);
+    }
+
+    static String passwordOutcome(Boolean matches, Throwable e) {
+        if (e != null) {
+            return AuthMetrics.hashingOutcome(e);
+        }
+
+        return matches ? AuthMetrics.MATCH : AuthMetrics.MISMATCH;
+    }
 
-        return org.springframework.security.core.userdetails.User.builder().username(user.getUsername()).password(user.getPassword()).roles("USER").build();
+    static String encodeContinuation(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String encryptPassword(String rawPassword) {
-        logger.debug("Encrypting password");
+    static String decodeContinuation(String continuation) {
+        String id = new String(Base64.getUrlDecoder().decode(continuation), StandardCharsets.UTF_8);
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("Empty continuation token");
+        }
 
-        return this.passwordEncoder.encode(rawPassword);
+        return id;
     }
 
-    private boolean verifyPassword(String rawPassword, String encodedPassword) {
-        logger.debug("Verifying password");
+    static AuthenticatedUser toPrincipal(UserCredentials user) {
+        // Documents written before roles existed have none stored.
+        List<String> roles = user.getRoles() != null ? user.getRoles() : List.of(User.DEFAULT_ROLE);
+
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), roles, user.getTokenVersion());
+    }
 
-        return this.passwordEncoder.matches(rawPassword, encodedPassword);
+    private void rehashPassword(User user, String rawPassword) {
+        this.passwordHasher.encode(rawPassword).thenAccept((encryptedPassword) -> {
+            this.userRepository.updatePasswordById(user.getId(), encryptedPassword);
+            user.setPassword(encryptedPassword);
+            this.eventPublisher.publishEvent(UserChangedEvent.of(user));
+
+            logger.debug("Password hash upgraded for user: {}", user.getUsername());
+        }).exceptionally((e) -> {
+            logger.warn("Password hash upgrade skipped for user: {}", user.getUsername(), e);
+
+            return null;
+        });
     }
 
 }
@@ -0,0 +1,8 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+/**
+ * The body of a sign-up or sign-in rejected for a reason the client can act
+ * on, such as a taken username.
+ */
+public record AuthErrorResponse(String error) {
+}
@@ -0,0 +1,7 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+/**
+ * The body of a successful sign-up, sign-in or token refresh.
+ */
+public record AuthResponse(UserDTO user, String token, String refreshToken) {
+}
@@ -0,0 +1,32 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public class RefreshTokenDTO {
+
+    @NotBlank
+    @Size(max = 100)
+    private String refreshToken;
+
+    public RefreshTokenDTO() {
+    }
+
+    public RefreshTokenDTO(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshTokenDTO{" + "refreshToken='[PROTECTED]'" + '}';
+    }
+
+}
@@ -1,43 +1,57 @@
 package com.ansoncht.catfoodtracker.user.dto;
 
 import com.ansoncht.catfoodtracker.user.User;
+import com.ansoncht.catfoodtracker.user.UserProfile;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 
-public class UserDTO {
+/**
+ * The user fields returned to clients. Instances are immutable, so the same
+ * DTO can be shared between the response and anything else holding it.
+ */
+public final class UserDTO {
 
     @NotBlank
-    private String id;
+    private final String id;
 
     @NotBlank
     @Size(max = 50)
-    private String username;
+    private final String username;
 
     @NotBlank
     @Email
     @Size(max = 100)
-    private String email;
+    private final String email;
 
     @NotBlank
     @Size(max = 50)
-    private String firstName;
+    private final String firstName;
 
     @NotBlank
     @Size(max = 50)
-    private String lastName;
+    private final String lastName;
 
-    private LocalDateTime createdAt;
+    private final LocalDateTime createdAt;
 
-    private LocalDateTime updatedAt;
+    private final LocalDateTime updatedAt;
 
-    public UserDTO() {
-    }
+    @JsonIgnore
+    private final List<String> roles;
+
+    @JsonIgnore
+    private final long tokenVersion;
 
     public UserDTO(String id, String username, String email, String firstName, String lastName, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, username, email, firstName, lastName, createdAt, updatedAt, List.of(User.DEFAULT_ROLE), 0);
+    }
+
+    public UserDTO(String id, String username, String email, String firstName, String lastName, LocalDateTime createdAt, LocalDateTime updatedAt, List<String> roles, long tokenVersion) {
         this.id = id;
         this.username = username;
         this.email = email;
@@ -45,66 +59,52 @@ public class UserDTO {
         this.lastName = lastName;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.roles = roles != null ? List.copyOf(roles) : null;
+        this.tokenVersion = tokenVersion;
     }
 
     public static UserDTO fromUser(User user) {
-        return new UserDTO(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName(), user.getCreatedAt(), user.getUpdatedAt());
+        return new UserDTO(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName(), user.getCreatedAt(), user.getUpdatedAt(), user.getRoles(), user.getTokenVersion());
     }
 
-    public String getId() {
-        return id;
+    public static UserDTO fromProfile(UserProfile profile) {
+        return new UserDTO(profile.getId(), profile.getUsername(), profile.getEmail(), profile.getFirstName(), profile.getLastName(), profile.getCreatedAt(), profile.getUpdatedAt());
     }
 
-    public void setId(String id) {
-        this.id = id;
+    public String getId() {
+        return id;
     }
 
     public String getUsername() {
         return username;
     }
 
-    public void setUsername(String username) {
-        this.username = username;
-    }
-
     public String getEmail() {
         return email;
     }
 
-    public void setEmail(String email) {
-        this.email = email;
-    }
-
     public String getFirstName() {
         return firstName;
     }
 
-    public void setFirstName(String firstName) {
-        this.firstName = firstName;
-    }
-
     public String getLastName() {
         return lastName;
     }
 
-    public void setLastName(String lastName) {
-        this.lastName = lastName;
-    }
-
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
 
-    public void setCreatedAt(LocalDateTime createdAt) {
-        this.createdAt = createdAt;
-    }
-
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
 
-    public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = updatedAt;
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
     }
 
     @Override
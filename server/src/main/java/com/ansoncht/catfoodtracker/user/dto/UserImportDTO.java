@@ -0,0 +1,135 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+import com.ansoncht.catfoodtracker.user.User;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * One line of a bulk user import, and of the export that produces it. A user
+ * carries either a plain {@code password} to hash or a {@code passwordHash}
+ * taken over as is.
+ */
+public class UserImportDTO {
+
+    @NotBlank
+    @Size(max = 50)
+    private String username;
+
+    @NotBlank
+    @Email
+    @Size(max = 100)
+    private String email;
+
+    @NotBlank
+    @Size(max = 50)
+    private String firstName;
+
+    @NotBlank
+    @Size(max = 50)
+    private String lastName;
+
+    @Size(min = 8, max = 100)
+    private String password;
+
+    @Size(max = 120)
+    private String passwordHash;
+
+    private List<@NotBlank String> roles;
+
+    public UserImportDTO() {
+    }
+
+    public UserImportDTO(String username, String email, String firstName, String lastName, String password,
+                         String passwordHash, List<String> roles) {
+        this.username = username;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.password = password;
+        this.passwordHash = passwordHash;
+        this.roles = roles;
+    }
+
+    /**
+     * The import record for a user, with its stored password hash only when
+     * {@code withPasswordHash} is set.
+     */
+    public static UserImportDTO fromUser(User user, boolean withPasswordHash) {
+        return new UserImportDTO(user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName(), null,
+                withPasswordHash ? user.getPassword() : null, user.getRoles());
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+
+    public User toUser(String encryptedPassword) {
+        User user = new User(this.username, this.email, this.firstName, this.lastName, encryptedPassword);
+        if (this.roles != null && !this.roles.isEmpty()) {
+            user.setRoles(List.copyOf(this.roles));
+        }
+
+        return user;
+    }
+
+    @Override
+    public String toString() {
+        return "UserImportDTO{" + "username='" + this.username + '\'' + ", email='" + this.email + '\'' + ", firstName='" + this.firstName + '\'' + ", lastName='" + this.lastName + '\'' + ", password='[PROTECTED]'" + ", roles=" + this.roles + '}';
+    }
+
+}
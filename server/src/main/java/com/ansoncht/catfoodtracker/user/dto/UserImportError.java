@@ -0,0 +1,8 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+/**
+ * A streamed report that the user on the given line of an import was not
+ * created, and why.
+ */
+public record UserImportError(long line, String error) {
+}
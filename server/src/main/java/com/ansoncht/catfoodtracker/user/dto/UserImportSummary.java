@@ -0,0 +1,7 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+/**
+ * The last line streamed back by an import.
+ */
+public record UserImportSummary(long imported, long failed) {
+}
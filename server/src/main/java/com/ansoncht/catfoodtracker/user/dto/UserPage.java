@@ -0,0 +1,10 @@
+package com.ansoncht.catfoodtracker.user.dto;
+
+import java.util.List;
+
+/**
+ * One page of the admin user listing. {@code next} is the opaque token for
+ * the following page, or null on the last one.
+ */
+public record UserPage(List<UserDTO> users, String next) {
+}
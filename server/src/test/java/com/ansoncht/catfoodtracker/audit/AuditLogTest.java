@@ -0,0 +1,101 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditLogTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testRecord_Events_ShouldBeDrainedInOrder() throws Exception {
+        List<AuditEvent> written = new CopyOnWriteArrayList<>();
+        AuditLog auditLog = new AuditLog(List.of(written::addAll), meterRegistry, 16, 4);
+
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(AuditEventType.LOGIN_OK, "user" + i, "id" + i, "10.0.0.1");
+        }
+        auditLog.destroy();
+
+        assertEquals(10, written.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(AuditEventType.LOGIN_OK, written.get(i).type());
+            assertEquals("user" + i, written.get(i).subject());
+            assertEquals("id" + i, written.get(i).userId());
+        }
+        assertEquals(10.0, meterRegistry.get("audit.events.written").counter().count());
+    }
+
+    @Test
+    void testRecord_BulkEvent_ShouldCarryCount() throws Exception {
+        List<AuditEvent> written = new CopyOnWriteArrayList<>();
+        AuditLog auditLog = new AuditLog(List.of(written::addAll), meterRegistry, 16, 4);
+
+        auditLog.record(AuditEventType.USERS_EXPORTED, "admin", "1", "10.0.0.1", 42);
+        auditLog.record(AuditEventType.LOGIN_OK, "test", "2", "10.0.0.1");
+        auditLog.destroy();
+
+        assertEquals(2, written.size());
+        assertEquals(42, written.get(0).count());
+        assertEquals(0, written.get(1).count());
+    }
+
+    @Test
+    void testRecord_BufferFull_ShouldDropAndCount() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<AuditEvent> written = new CopyOnWriteArrayList<>();
+        AuditLog auditLog = new AuditLog(List.of((events) -> {
+            blocked.countDown();
+            release.await();
+            written.addAll(events);
+        }), meterRegistry, 4, 1);
+
+        auditLog.record(AuditEventType.SIGNUP_OK, "first", null, null);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 6; i++) {
+            auditLog.record(AuditEventType.SIGNUP_OK, "user" + i, null, null);
+        }
+        release.countDown();
+        auditLog.destroy();
+
+        assertEquals(5, written.size());
+        assertNull(written.get(0).userId());
+        assertEquals(2.0, meterRegistry.get("audit.events.dropped").counter().count());
+    }
+
+    @Test
+    void testRecord_SinkFails_ShouldCountAndKeepDraining() throws Exception {
+        List<AuditEvent> written = new CopyOnWriteArrayList<>();
+        AuditLog auditLog = new AuditLog(List.of((events) -> {
+            if (events.get(0).type() == AuditEventType.LOGIN_FAIL) {
+                throw new IllegalStateException("Test sink failure");
+            }
+            written.addAll(events);
+        }), meterRegistry, 16, 1);
+
+        auditLog.record(AuditEventType.LOGIN_FAIL, "test", null, null);
+        auditLog.record(AuditEventType.LOGIN_OK, "test", "1", null);
+        auditLog.destroy();
+
+        assertEquals(1, written.size());
+        assertEquals(1.0, meterRegistry.get("audit.events.failed").counter().count());
+    }
+
+}
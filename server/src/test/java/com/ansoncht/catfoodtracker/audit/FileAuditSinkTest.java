@@ -0,0 +1,54 @@
+package com.ansoncht.catfoodtracker.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileAuditSinkTest {
+
+    private static final AuditEvent EVENT = new AuditEvent(AuditEventType.LOGIN_OK, "test", "1", "10.0.0.1", 0,
+            Instant.EPOCH);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testWrite_Events_ShouldAppendJsonLines() throws Exception {
+        Path file = directory.resolve("audit.log");
+        FileAuditSink sink = new FileAuditSink(new ObjectMapper().findAndRegisterModules(), file.toString(), 1 << 20, 2);
+
+        sink.write(List.of(EVENT, EVENT));
+        sink.destroy();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"type\":\"LOGIN_OK\""));
+        assertTrue(lines.get(0).contains("\"subject\":\"test\""));
+    }
+
+    @Test
+    void testWrite_OverMaxBytes_ShouldRollAndKeepMaxFiles() throws Exception {
+        Path file = directory.resolve("audit.log");
+        FileAuditSink sink = new FileAuditSink(new ObjectMapper().findAndRegisterModules(), file.toString(), 1, 2);
+
+        for (int i = 0; i < 4; i++) {
+            sink.write(List.of(EVENT));
+        }
+        sink.destroy();
+
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("audit.log.1")));
+        assertTrue(Files.exists(directory.resolve("audit.log.2")));
+        assertFalse(Files.exists(directory.resolve("audit.log.3")));
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CatFoodPreferenceServiceTest {
+
+    private static final String OWNER = "owner";
+    private static final Instant FED_AT = Instant.parse("2024-01-01T08:00:00Z");
+
+    @Mock
+    private CatFoodPreferenceRepository catFoodPreferenceRepository;
+
+    @Mock
+    private CatRepository catRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatFoodPreferenceService catFoodPreferenceService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        this.closeable = MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.catFoodPreferenceService = new CatFoodPreferenceService(catFoodPreferenceRepository, catRepository,
+                meterRegistry, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.closeable.close();
+    }
+
+    @Test
+    void testTally_ShouldSumPerCatAndFood() {
+        List<CatFoodPreference> tallies = CatFoodPreferenceService.tally(List.of(
+                event("cat1", "food1", FeedingEvent.Reaction.LIKED, 40.0, FED_AT),
+                event("cat1", "food2", FeedingEvent.Reaction.DISLIKED, null, FED_AT),
+                event("cat1", "food1", FeedingEvent.Reaction.NEUTRAL, 10.0, FED_AT.plusSeconds(60)),
+                event("cat1", "food1", null, null, FED_AT.minusSeconds(60))));
+
+        assertEquals(2, tallies.size());
+        CatFoodPreference food1 = tallies.get(0);
+        assertEquals(CatFoodPreference.idOf("cat1", "food1"), food1.getId());
+        assertEquals(3, food1.getFeedings());
+        assertEquals(1, food1.getLiked());
+        assertEquals(1, food1.getNeutral());
+        assertEquals(0, food1.getDisliked());
+        assertEquals(50.0, food1.getTotalGrams());
+        assertEquals(FED_AT.plusSeconds(60), food1.getLastFedAt());
+        assertEquals(1, tallies.get(1).getDisliked());
+    }
+
+    @Test
+    void testRecord_IncrementFails_ShouldCountAndNotThrow() {
+        doThrow(new DataAccessResourceFailureException("down")).when(catFoodPreferenceRepository).increment(any());
+
+        catFoodPreferenceService.record(List.of(event("cat1", "food1", FeedingEvent.Reaction.LIKED, 40.0, FED_AT)));
+
+        assertEquals(1.0, this.meterRegistry.get("feeding.preferences.failed").counter().count());
+    }
+
+    @Test
+    void testGetPreferences_UnknownCat_ShouldReject() {
+        assertThrows(FeedingRejectedException.class,
+                () -> catFoodPreferenceService.getPreferences(OWNER, "cat2", 10));
+
+        verify(catFoodPreferenceRepository, never()).findByCatIdOrderByLikedDescFeedingsDesc(any(), any());
+    }
+
+    @Test
+    void testGetPreferences_ShouldClampLimit() {
+        when(catRepository.existsByIdAndOwnerId("cat1", OWNER)).thenReturn(true);
+
+        catFoodPreferenceService.getPreferences(OWNER, "cat1", 1000);
+
+        ArgumentCaptor<Limit> limit = ArgumentCaptor.forClass(Limit.class);
+        verify(catFoodPreferenceRepository).findByCatIdOrderByLikedDescFeedingsDesc(eq("cat1"), limit.capture());
+        assertEquals(CatFoodPreferenceService.MAX_LIMIT, limit.getValue().max());
+    }
+
+    @Test
+    void testPartition_ShouldSplitIntoContiguousOpenEndedRanges() {
+        List<String> ids = IntStream.range(0, 10).mapToObj((i) -> "cat" + i).toList();
+
+        List<CatFoodPreferenceService.CatRange> ranges = CatFoodPreferenceService.partition(ids.iterator(), 10, 4);
+
+        assertEquals(List.of(
+                new CatFoodPreferenceService.CatRange(null, "cat3"),
+                new CatFoodPreferenceService.CatRange("cat3", "cat6"),
+                new CatFoodPreferenceService.CatRange("cat6", "cat9"),
+                new CatFoodPreferenceService.CatRange("cat9", null)), ranges);
+    }
+
+    @Test
+    void testPartition_NoCats_ShouldCoverEverything() {
+        assertEquals(List.of(new CatFoodPreferenceService.CatRange(null, null)),
+                CatFoodPreferenceService.partition(List.<String>of().iterator(), 0, 4));
+    }
+
+    private static FeedingEvent event(String catId, String foodProductId, FeedingEvent.Reaction reaction,
+                                      Double amountGrams, Instant fedAt) {
+        return new FeedingEvent(catId, fedAt, foodProductId, amountGrams, reaction, null);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingHistoryEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class FeedingHistoryServiceTest {
+
+    private static final String OWNER = "owner";
+    private static final Instant FED_AT = Instant.parse("2024-01-01T08:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private FeedingEventRepository feedingEventRepository;
+
+    @Mock
+    private CatRepository catRepository;
+
+    private FeedingHistoryService feedingHistoryService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        this.closeable = MockitoAnnotations.openMocks(this);
+        this.feedingHistoryService = new FeedingHistoryService(feedingEventRepository, catRepository, objectMapper);
+
+        when(catRepository.existsByIdAndOwnerId("cat1", OWNER)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.closeable.close();
+    }
+
+    @Test
+    void testWriteHistory_ShouldOrderMealsOfOneInstantById() throws Exception {
+        when(feedingEventRepository.streamByCatIdOrderByFedAtAsc("cat1")).thenReturn(Stream.of(
+                event("b", FED_AT), event("a", FED_AT), event("c", FED_AT.plusSeconds(60))));
+
+        List<FeedingHistoryEntry> entries = ndjson(feedingHistoryService.startHistory(OWNER, "cat1", null));
+
+        assertEquals(List.of("a", "b", "c"), entries.stream().map(FeedingHistoryEntry::id).toList());
+    }
+
+    @Test
+    void testWriteHistory_Resume_ShouldContinueAfterTheEntry() throws Exception {
+        String resume = FeedingHistoryService.encodeResume(event("a", FED_AT));
+        when(feedingEventRepository.streamByCatIdAndFedAtGreaterThanEqualOrderByFedAtAsc("cat1", FED_AT))
+                .thenReturn(Stream.of(event("b", FED_AT), event("a", FED_AT), event("c", FED_AT.plusSeconds(60))));
+
+        List<FeedingHistoryEntry> entries = ndjson(feedingHistoryService.startHistory(OWNER, "cat1", resume));
+
+        assertEquals(List.of("b", "c"), entries.stream().map(FeedingHistoryEntry::id).toList());
+        assertEquals(FeedingHistoryService.encodeResume(event("c", FED_AT.plusSeconds(60))), entries.get(1).resume());
+    }
+
+    @Test
+    void testWriteHistory_Sse_ShouldSendIdsAndAnEndEvent() throws Exception {
+        when(feedingEventRepository.streamByCatIdOrderByFedAtAsc("cat1")).thenReturn(Stream.of(event("a", FED_AT)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = feedingHistoryService.writeHistory(feedingHistoryService.startHistory(OWNER, "cat1", null),
+                FeedingHistoryService.Format.SSE, output);
+
+        String body = output.toString(StandardCharsets.UTF_8);
+        assertEquals(1, written);
+        assertTrue(body.startsWith("id: " + FeedingHistoryService.encodeResume(event("a", FED_AT)) + "\ndata: {"));
+        assertTrue(body.endsWith("}\n\nevent: end\ndata: {}\n\n"));
+    }
+
+    @Test
+    void testStartHistory_UnknownCat_ShouldReject() {
+        assertThrows(FeedingRejectedException.class, () -> feedingHistoryService.startHistory(OWNER, "cat2", null));
+    }
+
+    @Test
+    void testStartHistory_MalformedResume_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> feedingHistoryService.startHistory(OWNER, "cat1", "!"));
+        assertThrows(IllegalArgumentException.class, () -> feedingHistoryService.startHistory(OWNER, "cat1",
+                FeedingHistoryService.encodeResume(event("", FED_AT))));
+    }
+
+    @Test
+    void testStartHistory_Blank_ShouldStartFromTheFirstMeal() {
+        assertNull(feedingHistoryService.startHistory(OWNER, "cat1", " ").fedAt());
+    }
+
+    private List<FeedingHistoryEntry> ndjson(FeedingHistoryService.HistoryStart start) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        feedingHistoryService.writeHistory(start, FeedingHistoryService.Format.NDJSON, output);
+
+        List<FeedingHistoryEntry> entries = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            entries.add(objectMapper.readValue(line, FeedingHistoryEntry.class));
+        }
+
+        return entries;
+    }
+
+    private static FeedingEvent event(String id, Instant fedAt) {
+        FeedingEvent event = new FeedingEvent("cat1", fedAt, "food1", 50.0, FeedingEvent.Reaction.LIKED, null);
+        event.setId(id);
+
+        return event;
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingBatchResult;
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingEventDTO;
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FeedingServiceTest {
+
+    private static final String OWNER = "owner";
+    private static final Instant FED_AT = Instant.parse("2024-01-01T08:00:00Z");
+
+    @Mock
+    private CatRepository catRepository;
+
+    @Mock
+    private FoodProductRepository foodProductRepository;
+
+    @Mock
+    private FeedingEventRepository feedingEventRepository;
+
+    @Mock
+    private FeedingWriteBuffer feedingWriteBuffer;
+
+    @Mock
+    private CatFoodPreferenceService catFoodPreferenceService;
+
+    private FeedingService feedingService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        this.closeable = MockitoAnnotations.openMocks(this);
+        this.feedingService = new FeedingService(catRepository, foodProductRepository, feedingEventRepository,
+                feedingWriteBuffer, catFoodPreferenceService, Validation.buildDefaultValidatorFactory().getValidator());
+
+        when(catRepository.findOwnedIds(eq(OWNER), anyCollection())).thenReturn(List.of(cat("cat1")));
+        when(foodProductRepository.findOwnedIds(eq(OWNER), anyCollection())).thenReturn(List.of(food("food1")));
+        when(feedingEventRepository.insertMany(any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.closeable.close();
+    }
+
+    @Test
+    void testRecordFeedings_MixedBatch_ShouldInsertValidEventsAndReportTheRest() {
+        List<FeedingEventDTO> events = Arrays.asList(
+                event("cat1", "food1"),
+                event("cat2", "food1"),
+                new FeedingEventDTO("cat1", null, "food1", 50.0, null, null),
+                event("cat1", "food2"),
+                null,
+                event("cat1", "food1"));
+
+        FeedingBatchResult result = feedingService.recordFeedings(OWNER, events);
+
+        assertEquals(2, result.accepted());
+        assertEquals(List.of(1, 2, 3, 4), result.rejected().stream().map((error) -> error.index()).toList());
+        assertEquals("Unknown cat", result.rejected().get(0).error());
+        assertEquals("fedAt must not be null", result.rejected().get(1).error());
+        assertEquals("Unknown food product", result.rejected().get(2).error());
+        assertEquals("Missing event", result.rejected().get(3).error());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FeedingEvent>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(feedingEventRepository).insertMany(inserted.capture());
+        assertEquals(2, inserted.getValue().size());
+        assertEquals("cat1", inserted.getValue().get(0).getCatId());
+    }
+
+    @Test
+    void testRecordFeedings_InsertFailure_ShouldReportOriginalIndex() {
+        when(feedingEventRepository.insertMany(any()))
+                .thenReturn(List.of(new BulkInsertFailure(1, new DataIntegrityViolationException("failed"))));
+
+        FeedingBatchResult result = feedingService.recordFeedings(OWNER,
+                List.of(event("cat1", "food1"), event("cat2", "food1"), event("cat1", "food1")));
+
+        assertEquals(1, result.accepted());
+        assertEquals(1, result.rejected().get(0).index());
+        assertEquals(2, result.rejected().get(1).index());
+        assertEquals("Could not record event", result.rejected().get(1).error());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FeedingEvent>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(catFoodPreferenceService).record(recorded.capture());
+        assertEquals(1, recorded.getValue().size());
+    }
+
+    @Test
+    void testRecordFeedings_AllInvalid_ShouldNotQueryOwnership() {
+        FeedingBatchResult result = feedingService.recordFeedings(OWNER,
+                List.of(new FeedingEventDTO("", FED_AT, "food1", null, null, null)));
+
+        assertEquals(0, result.accepted());
+        verify(catRepository, never()).findOwnedIds(any(), any());
+    }
+
+    @Test
+    void testRecordFeeding_OwnedCatAndFood_ShouldEnqueue() {
+        CompletableFuture<FeedingWriteBuffer.Durability> written = new CompletableFuture<>();
+        when(catRepository.existsByIdAndOwnerId("cat1", OWNER)).thenReturn(true);
+        when(foodProductRepository.existsByIdAndOwnerId("food1", OWNER)).thenReturn(true);
+        when(feedingWriteBuffer.enqueue(any())).thenReturn(written);
+
+        assertSame(written, feedingService.recordFeeding(OWNER, event("cat1", "food1")));
+
+        ArgumentCaptor<FeedingEvent> enqueued = ArgumentCaptor.forClass(FeedingEvent.class);
+        verify(feedingWriteBuffer).enqueue(enqueued.capture());
+        assertEquals("cat1", enqueued.getValue().getCatId());
+    }
+
+    @Test
+    void testRecordFeeding_UnknownCat_ShouldRejectWithoutEnqueueing() {
+        FeedingRejectedException e = assertThrows(FeedingRejectedException.class,
+                () -> feedingService.recordFeeding(OWNER, event("cat2", "food1")));
+
+        assertEquals("Unknown cat", e.getMessage());
+        verify(feedingWriteBuffer, never()).enqueue(any());
+    }
+
+    private static FeedingEventDTO event(String catId, String foodProductId) {
+        return new FeedingEventDTO(catId, FED_AT, foodProductId, 50.0, FeedingEvent.Reaction.LIKED, null);
+    }
+
+    private static Cat cat(String id) {
+        Cat cat = new Cat(OWNER, id, LocalDateTime.now());
+        cat.setId(id);
+
+        return cat;
+    }
+
+    private static FoodProduct food(String id) {
+        FoodProduct foodProduct = new FoodProduct(OWNER, "brand", id, null, LocalDateTime.now());
+        foodProduct.setId(id);
+
+        return foodProduct;
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.feeding.dto.FeedingTrend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FeedingTrendServiceTest {
+
+    private static final String OWNER = "owner";
+
+    @Mock
+    private FeedingEventRepository feedingEventRepository;
+
+    @Mock
+    private CatRepository catRepository;
+
+    @Mock
+    private FoodProductRepository foodProductRepository;
+
+    private FeedingTrendService feedingTrendService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        this.closeable = MockitoAnnotations.openMocks(this);
+        this.feedingTrendService = new FeedingTrendService(feedingEventRepository, catRepository,
+                foodProductRepository, new SimpleMeterRegistry(), 100);
+
+        when(catRepository.findDataVersion("cat1", OWNER)).thenReturn(Optional.of(cat("cat1", 1)));
+        when(feedingEventRepository.aggregateTrend(any())).thenAnswer((invocation) -> trend("cat1"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.closeable.close();
+    }
+
+    @Test
+    void testGetCatTrend_SameVersion_ShouldAggregateOnce() {
+        FeedingTrend first = feedingTrendService.getCatTrend(OWNER, "cat1", 30, null);
+        FeedingTrend second = feedingTrendService.getCatTrend(OWNER, "cat1", 30, "UTC");
+
+        assertSame(first, second);
+        verify(feedingEventRepository, times(1)).aggregateTrend(any());
+
+        ArgumentCaptor<FeedingTrendQuery> query = ArgumentCaptor.forClass(FeedingTrendQuery.class);
+        verify(feedingEventRepository).aggregateTrend(query.capture());
+        assertEquals(List.of("cat1"), query.getValue().catIds());
+        assertEquals(LocalDate.now(ZoneOffset.UTC).minusDays(29), query.getValue().from());
+    }
+
+    @Test
+    void testGetCatTrend_VersionBumped_ShouldAggregateAgain() {
+        feedingTrendService.getCatTrend(OWNER, "cat1", 7, null);
+        when(catRepository.findDataVersion("cat1", OWNER)).thenReturn(Optional.of(cat("cat1", 2)));
+        feedingTrendService.getCatTrend(OWNER, "cat1", 7, null);
+
+        verify(feedingEventRepository, times(2)).aggregateTrend(any());
+    }
+
+    @Test
+    void testGetCatTrend_ConcurrentRequests_ShouldShareOneAggregation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(feedingEventRepository.aggregateTrend(any())).thenAnswer((invocation) -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+
+            return trend("cat1");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<FeedingTrend>> results = new ArrayList<>();
+            results.add(executor.submit(() -> feedingTrendService.getCatTrend(OWNER, "cat1", 90, null)));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> feedingTrendService.getCatTrend(OWNER, "cat1", 90, null)));
+            }
+            release.countDown();
+
+            FeedingTrend first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<FeedingTrend> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(feedingEventRepository, times(1)).aggregateTrend(any());
+    }
+
+    @Test
+    void testGetCatTrend_AggregationFails_ShouldNotCacheTheFailure() {
+        when(feedingEventRepository.aggregateTrend(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenAnswer((invocation) -> trend("cat1"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> feedingTrendService.getCatTrend(OWNER, "cat1", 7, null));
+        assertEquals("cat1", feedingTrendService.getCatTrend(OWNER, "cat1", 7, null).id());
+    }
+
+    @Test
+    void testGetCatTrend_UnsupportedWindowOrZone_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> feedingTrendService.getCatTrend(OWNER, "cat1", 14, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> feedingTrendService.getCatTrend(OWNER, "cat1", 7, "Nowhere/Special"));
+        verify(feedingEventRepository, never()).aggregateTrend(any());
+    }
+
+    @Test
+    void testGetCatTrend_UnknownCat_ShouldReject() {
+        assertThrows(FeedingRejectedException.class, () -> feedingTrendService.getCatTrend(OWNER, "cat2", 7, null));
+    }
+
+    @Test
+    void testGetFoodTrend_ShouldCoverTheOwnersCatsAndTrackTheirVersions() {
+        when(foodProductRepository.existsByIdAndOwnerId("food1", OWNER)).thenReturn(true);
+        when(catRepository.findDataVersions(OWNER)).thenReturn(List.of(cat("cat2", 3), cat("cat1", 1)));
+
+        feedingTrendService.getFoodTrend(OWNER, "food1", 7, null);
+        feedingTrendService.getFoodTrend(OWNER, "food1", 7, null);
+        when(catRepository.findDataVersions(OWNER)).thenReturn(List.of(cat("cat2", 3), cat("cat1", 2)));
+        feedingTrendService.getFoodTrend(OWNER, "food1", 7, null);
+
+        ArgumentCaptor<FeedingTrendQuery> query = ArgumentCaptor.forClass(FeedingTrendQuery.class);
+        verify(feedingEventRepository, times(2)).aggregateTrend(query.capture());
+        assertEquals(List.of("cat1", "cat2"), query.getValue().catIds());
+        assertEquals("food1", query.getValue().foodProductId());
+    }
+
+    private static Cat cat(String id, long dataVersion) {
+        Cat cat = new Cat(OWNER, id, LocalDateTime.now());
+        cat.setId(id);
+        cat.setDataVersion(dataVersion);
+
+        return cat;
+    }
+
+    private static FeedingTrend trend(String id) {
+        return new FeedingTrend(id, 7, LocalDate.now(ZoneOffset.UTC), 0, 0, null, List.of(), List.of(), List.of());
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.ansoncht.catfoodtracker.feeding;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FeedingWriteBufferTest {
+
+    private static final Instant FED_AT = Instant.parse("2024-01-01T08:00:00Z");
+
+    @Mock
+    private FeedingEventRepository feedingEventRepository;
+
+    @Mock
+    private CatFoodPreferenceService catFoodPreferenceService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeedingWriteBuffer buffer;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        this.closeable = MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
+
+        when(feedingEventRepository.insertInOrder(any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (this.buffer != null) {
+            this.buffer.destroy();
+        }
+        this.closeable.close();
+    }
+
+    @Test
+    void testEnqueue_CommitDurability_ShouldCompleteOnceWrittenInOneBatch() throws Exception {
+        this.buffer = buffer(100, 3, 10_000, FeedingWriteBuffer.Durability.COMMIT);
+
+        List<CompletableFuture<FeedingWriteBuffer.Durability>> written = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            written.add(this.buffer.enqueue(event("cat" + i)));
+        }
+
+        for (CompletableFuture<FeedingWriteBuffer.Durability> future : written) {
+            assertEquals(FeedingWriteBuffer.Durability.COMMIT, future.get(5, TimeUnit.SECONDS));
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FeedingEvent>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(feedingEventRepository).insertInOrder(inserted.capture());
+        assertEquals(List.of("cat0", "cat1", "cat2"),
+                inserted.getValue().stream().map(FeedingEvent::getCatId).toList());
+        assertEquals(3.0, this.meterRegistry.get("feeding.writes.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testEnqueue_PartialFailure_ShouldFailOnlyThatEvent() throws Exception {
+        when(feedingEventRepository.insertInOrder(any()))
+                .thenReturn(List.of(new BulkInsertFailure(0, new DataIntegrityViolationException("failed"))));
+        this.buffer = buffer(100, 2, 10_000, FeedingWriteBuffer.Durability.COMMIT);
+
+        CompletableFuture<FeedingWriteBuffer.Durability> first = this.buffer.enqueue(event("cat1"));
+        CompletableFuture<FeedingWriteBuffer.Durability> second = this.buffer.enqueue(event("cat1"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, e.getCause());
+        assertEquals(FeedingWriteBuffer.Durability.COMMIT, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, this.meterRegistry.get("feeding.writes.failed").counter().count());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FeedingEvent>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(catFoodPreferenceService).record(recorded.capture());
+        assertEquals(1, recorded.getValue().size());
+    }
+
+    @Test
+    void testEnqueue_LaterWriteFails_ShouldKeepCommittedEvents() throws Exception {
+        MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+        BulkOperations bulkOperations = Mockito.mock(BulkOperations.class);
+        when(mongoTemplate.collectionExists(FeedingEvent.class)).thenReturn(true);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FeedingEvent.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        // The first write stores the first event and stops at the second; the next one loses its connection.
+        when(bulkOperations.execute())
+                .thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(), List.of(new BulkWriteError(11000, "E11000",
+                        new BsonDocument(), 1)), null, new ServerAddress(), Set.of())))
+                .thenThrow(new DataAccessResourceFailureException("Connection reset"));
+        FeedingEventBulkOperationsImpl bulkOperationsImpl = new FeedingEventBulkOperationsImpl(mongoTemplate);
+        when(feedingEventRepository.insertInOrder(any()))
+                .thenAnswer((invocation) -> bulkOperationsImpl.insertInOrder(invocation.getArgument(0)));
+        this.buffer = buffer(100, 4, 10_000, FeedingWriteBuffer.Durability.COMMIT);
+
+        List<CompletableFuture<FeedingWriteBuffer.Durability>> written = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            written.add(this.buffer.enqueue(event("cat" + i)));
+        }
+
+        assertEquals(FeedingWriteBuffer.Durability.COMMIT, written.get(0).get(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 4; i++) {
+            CompletableFuture<FeedingWriteBuffer.Durability> future = written.get(i);
+            assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(3.0, this.meterRegistry.get("feeding.writes.failed").counter().count());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FeedingEvent>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(catFoodPreferenceService).record(recorded.capture());
+        assertEquals(List.of("cat0"), recorded.getValue().stream().map(FeedingEvent::getCatId).toList());
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(Cat.class));
+    }
+
+    @Test
+    void testEnqueue_FlushInterval_ShouldWriteAPartialBatch() throws Exception {
+        this.buffer = buffer(100, 500, 20, FeedingWriteBuffer.Durability.COMMIT);
+
+        assertEquals(FeedingWriteBuffer.Durability.COMMIT,
+                this.buffer.enqueue(event("cat1")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testEnqueue_EnqueueDurability_ShouldCompleteRightAway() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(feedingEventRepository.insertInOrder(any())).thenAnswer((invocation) -> {
+            release.await(5, TimeUnit.SECONDS);
+
+            return List.of();
+        });
+        this.buffer = buffer(100, 1, 10_000, FeedingWriteBuffer.Durability.ENQUEUE);
+
+        CompletableFuture<FeedingWriteBuffer.Durability> written = this.buffer.enqueue(event("cat1"));
+
+        assertEquals(FeedingWriteBuffer.Durability.ENQUEUE, written.getNow(null));
+        release.countDown();
+    }
+
+    @Test
+    void testEnqueue_BufferFull_ShouldReject() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(feedingEventRepository.insertInOrder(any())).thenAnswer((invocation) -> {
+            release.await(5, TimeUnit.SECONDS);
+
+            return List.of();
+        });
+        this.buffer = buffer(1, 1, 10_000, FeedingWriteBuffer.Durability.COMMIT);
+
+        try {
+            // The flusher may be holding the first event, so the queue fills
+            // by the third at the latest.
+            FeedingBufferFullException e = assertThrows(FeedingBufferFullException.class, () -> {
+                for (int i = 0; i < 3; i++) {
+                    this.buffer.enqueue(event("cat" + i));
+                }
+            });
+
+            assertEquals(7, e.getRetryAfterSeconds());
+            assertEquals(1.0, this.meterRegistry.get("feeding.writes.rejected").counter().count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testDestroy_ShouldWriteBufferedEvents() throws Exception {
+        this.buffer = buffer(100, 500, 10_000, FeedingWriteBuffer.Durability.COMMIT);
+
+        CompletableFuture<FeedingWriteBuffer.Durability> written = this.buffer.enqueue(event("cat1"));
+        this.buffer.destroy();
+
+        assertEquals(FeedingWriteBuffer.Durability.COMMIT, written.get(5, TimeUnit.SECONDS));
+        assertEquals(0, this.buffer.pending());
+        assertThrows(FeedingBufferFullException.class, () -> this.buffer.enqueue(event("cat1")));
+    }
+
+    private FeedingWriteBuffer buffer(int capacity, int batchSize, long flushIntervalInMs,
+                                      FeedingWriteBuffer.Durability durability) {
+        return new FeedingWriteBuffer(feedingEventRepository, catFoodPreferenceService, meterRegistry, capacity,
+                batchSize, flushIntervalInMs, durability, 7);
+    }
+
+    private static FeedingEvent event(String catId) {
+        return new FeedingEvent(catId, FED_AT, "food1", 50.0, FeedingEvent.Reaction.LIKED, null);
+    }
+
+}
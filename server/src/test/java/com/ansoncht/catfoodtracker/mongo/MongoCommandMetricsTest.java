@@ -0,0 +1,51 @@
+package com.ansoncht.catfoodtracker.mongo;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MongoCommandMetricsTest {
+
+    @Test
+    void testFilterShape_Find_ShouldHideValuesAndKeepOperators() {
+        BsonDocument command = BsonDocument.parse(
+                "{ find: 'users', filter: { loginKeys: 'test', createdAt: { $gt: 5 }, roles: { $in: ['USER', 'ADMIN'] } } }");
+
+        assertEquals("{ loginKeys: ?, createdAt: { $gt: ? }, roles: { $in: [?] } }",
+                MongoCommandMetrics.filterShape("find", command));
+    }
+
+    @Test
+    void testFilterShape_Update_ShouldUseFirstStatementFilter() {
+        BsonDocument command = BsonDocument.parse(
+                "{ update: 'users', updates: [{ q: { _id: 'a1' }, u: { $set: { password: 'hash' } } }] }");
+
+        assertEquals("{ _id: ? }", MongoCommandMetrics.filterShape("update", command));
+    }
+
+    @Test
+    void testFilterShape_Aggregate_ShouldKeepStages() {
+        BsonDocument command = BsonDocument.parse(
+                "{ aggregate: 'users', pipeline: [{ $match: { username: 'test' } }, { $limit: 1 }] }");
+
+        assertEquals("[{ $match: { username: ? } }, { $limit: ? }]",
+                MongoCommandMetrics.filterShape("aggregate", command));
+    }
+
+    @Test
+    void testFilterShape_CommandWithoutFilter_ShouldReturnNull() {
+        assertNull(MongoCommandMetrics.filterShape("insert", BsonDocument.parse("{ insert: 'users', documents: [] }")));
+    }
+
+    @Test
+    void testCollectionName_ShouldReadCommandTarget() {
+        assertEquals("users", MongoCommandMetrics.collectionName("find", BsonDocument.parse("{ find: 'users' }")));
+        assertEquals("users", MongoCommandMetrics.collectionName("getMore",
+                BsonDocument.parse("{ getMore: { $numberLong: '42' }, collection: 'users' }")));
+        assertEquals(MongoCommandMetrics.NO_COLLECTION,
+                MongoCommandMetrics.collectionName("hello", BsonDocument.parse("{ hello: 1 }")));
+    }
+
+}
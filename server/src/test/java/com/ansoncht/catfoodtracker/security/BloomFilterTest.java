@@ -0,0 +1,53 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BloomFilterTest {
+
+    @Test
+    void testMightContain_AddedEntries_ShouldNeverMiss() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            entries.add(UUID.randomUUID().toString());
+        }
+
+        BloomFilter filter = BloomFilter.of(entries, 0.000001);
+
+        assertEquals(10000, filter.size());
+        entries.forEach((entry) -> assertTrue(filter.mightContain(entry)));
+    }
+
+    @Test
+    void testMightContain_OtherEntries_ShouldStayWithinFalsePositiveProbability() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            entries.add(UUID.randomUUID().toString());
+        }
+        BloomFilter filter = BloomFilter.of(entries, 0.01);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testMightContain_EmptyFilter_ShouldReturnFalse() {
+        BloomFilter filter = BloomFilter.of(List.of(), 0.000001);
+
+        assertFalse(filter.mightContain("jti"));
+    }
+
+}
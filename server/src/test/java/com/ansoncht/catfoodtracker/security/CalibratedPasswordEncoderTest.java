@@ -0,0 +1,138 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CalibratedPasswordEncoderTest {
+
+    private static final String TEST_PASSWORD = "testPassword";
+
+    @Test
+    void testEncode_Bcrypt_ShouldPrefixIdAndMatch() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2);
+
+        String encoded = encoder.encode(TEST_PASSWORD);
+
+        assertTrue(encoded.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches(TEST_PASSWORD, encoded));
+        assertFalse(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    void testMatches_LegacyUnprefixedHash_ShouldMatchAndNeedUpgrade() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2);
+        String legacy = new BCryptPasswordEncoder(4).encode(TEST_PASSWORD);
+
+        assertTrue(encoder.matches(TEST_PASSWORD, legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void testUpgradeEncoding_BelowMinimumStrength_ShouldNeedUpgrade() {
+        CalibratedPasswordEncoder cheaper = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2);
+        CalibratedPasswordEncoder dearer = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 5, 2);
+
+        assertTrue(dearer.upgradeEncoding(cheaper.encode(TEST_PASSWORD)));
+    }
+
+    @Test
+    void testUpgradeEncoding_OtherNodesCalibration_ShouldNotNeedUpgrade() {
+        CalibratedPasswordEncoder fast = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 6, 2, 4, 2);
+        CalibratedPasswordEncoder slow = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 5, 2, 4, 2);
+
+        assertFalse(slow.upgradeEncoding(fast.encode(TEST_PASSWORD)));
+        assertFalse(fast.upgradeEncoding(slow.encode(TEST_PASSWORD)));
+    }
+
+    @Test
+    void testUpgradeEncoding_SwitchToArgon2_ShouldNeedUpgradeAndStillMatch() {
+        CalibratedPasswordEncoder bcrypt = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2);
+        CalibratedPasswordEncoder argon2 = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.ARGON2, 4, 2);
+        String encoded = bcrypt.encode(TEST_PASSWORD);
+
+        assertTrue(argon2.matches(TEST_PASSWORD, encoded));
+        assertTrue(argon2.upgradeEncoding(encoded));
+        assertFalse(argon2.upgradeEncoding(argon2.encode(TEST_PASSWORD)));
+    }
+
+    @Test
+    void testUpgradeEncoding_Argon2DifferentIterations_ShouldNeedUpgrade() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.ARGON2, 4, 3);
+        String encoded = "{argon2}" + new Argon2PasswordEncoder(16, 32, 1, 1 << 14, 2).encode(TEST_PASSWORD);
+
+        assertTrue(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    void testUpgradeEncoding_AboveMaximumStrength_ShouldNeedUpgrade() {
+        CalibratedPasswordEncoder dearer = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 6, 2);
+        CalibratedPasswordEncoder capped = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 5, 2,
+                4, 5, 2, 2);
+
+        assertTrue(capped.upgradeEncoding(dearer.encode(TEST_PASSWORD)));
+        assertFalse(capped.upgradeEncoding(capped.encode(TEST_PASSWORD)));
+    }
+
+    @Test
+    void testUpgradeEncoding_Argon2AboveMaximumIterations_ShouldNeedUpgrade() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.ARGON2, 4, 2,
+                4, 4, 2, 3);
+        String encoded = "{argon2}" + new Argon2PasswordEncoder(16, 32, 1, 1 << 14, 4).encode(TEST_PASSWORD);
+
+        assertTrue(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    void testUpgradeEncoding_Pbkdf2_ShouldBeFixedCost() {
+        CalibratedPasswordEncoder pbkdf2 = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.PBKDF2, 4, 2);
+        CalibratedPasswordEncoder bcrypt = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2);
+        String encoded = pbkdf2.encode(TEST_PASSWORD);
+
+        assertTrue(encoded.startsWith("{pbkdf2}"));
+        assertFalse(pbkdf2.upgradeEncoding(encoded));
+        assertTrue(bcrypt.upgradeEncoding(encoded));
+    }
+
+    @Test
+    void testCalibrate_LargeBudget_ShouldNotGoAboveConfiguredMaximum() {
+        CalibratedPasswordEncoder encoder = CalibratedPasswordEncoder.calibrate(CalibratedPasswordEncoder.BCRYPT,
+                Duration.ofMinutes(1), 10, 10, 2, 2);
+
+        assertTrue(encoder.encode(TEST_PASSWORD).startsWith("{bcrypt}$2a$10$"));
+    }
+
+    @Test
+    void testConstructor_MinimumAboveMaximum_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2, 6, 5, 2, 2));
+    }
+
+    @Test
+    void testCalibrate_ZeroBudget_ShouldUseMinimumStrength() {
+        CalibratedPasswordEncoder encoder = CalibratedPasswordEncoder.calibrate(CalibratedPasswordEncoder.BCRYPT,
+                Duration.ZERO);
+
+        assertTrue(encoder.encode(TEST_PASSWORD).startsWith("{bcrypt}$2a$10$"));
+    }
+
+    @Test
+    void testCalibrate_ZeroBudget_ShouldNotGoBelowConfiguredMinimum() {
+        CalibratedPasswordEncoder encoder = CalibratedPasswordEncoder.calibrate(CalibratedPasswordEncoder.BCRYPT,
+                Duration.ZERO, 11, 2);
+
+        assertTrue(encoder.encode(TEST_PASSWORD).startsWith("{bcrypt}$2a$11$"));
+    }
+
+    @Test
+    void testConstructor_UnknownEncoder_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new CalibratedPasswordEncoder("md5", 4, 2));
+    }
+
+}
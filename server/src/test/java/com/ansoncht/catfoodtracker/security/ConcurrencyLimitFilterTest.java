@@ -0,0 +1,181 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitFilterTest {
+
+    private static final long TEST_LATENCY_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testDoFilter_CredentialsLimitReached_ShouldRejectWithServiceUnavailable() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1, 10);
+        MockHttpServletResponse nestedSignIn = new MockHttpServletResponse();
+        MockHttpServletResponse nestedProtected = new MockHttpServletResponse();
+        MockHttpServletResponse signUp = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/v1/user/signup"), signUp, (req, res) -> {
+            filter.doFilter(request("/api/v1/user/signin"), nestedSignIn, (nestedReq, nestedRes) -> {
+            });
+            filter.doFilter(request("/api/v1/user/protected"), nestedProtected, (nestedReq, nestedRes) -> {
+            });
+        });
+
+        assertEquals(200, signUp.getStatus());
+        assertEquals(503, nestedSignIn.getStatus());
+        assertEquals("1", nestedSignIn.getHeader("Retry-After"));
+        assertEquals(200, nestedProtected.getStatus());
+    }
+
+    @Test
+    void testDoFilter_AsyncRequest_ShouldHoldSlotUntilComplete() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1, 10);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        filter.bindTo(meterRegistry);
+        MockHttpServletRequest request = request("/api/v1/user/signin");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1.0, meterRegistry.get("http.server.concurrency.in.flight").tag("route", "credentials").gauge().value());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/api/v1/user/signup"), rejected, (req, res) -> {
+        });
+        assertEquals(503, rejected.getStatus());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        assertEquals(0.0, meterRegistry.get("http.server.concurrency.in.flight").tag("route", "credentials").gauge().value());
+        assertEquals(1.0, meterRegistry.get("http.server.concurrency.rejected").tag("route", "credentials").functionCounter().count());
+    }
+
+    @Test
+    void testDoFilter_ActuatorRequest_ShouldNotBeLimited() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1, 1);
+        MockHttpServletResponse health = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/v1/user/protected"), new MockHttpServletResponse(), (req, res) ->
+                filter.doFilter(request("/actuator/health"), health, (nestedReq, nestedRes) -> {
+                }));
+
+        assertEquals(200, health.getStatus());
+    }
+
+    @Test
+    void testDoFilter_FeedingHistoryStreams_ShouldHaveOwnLimit() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1, 1, 2);
+        MockHttpServletResponse history = new MockHttpServletResponse();
+        MockHttpServletResponse trend = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/v1/user/protected"), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cats/cat1/feedings"), history,
+                    (nestedReq, nestedRes) -> {
+                    });
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cats/cat1/trends"), trend,
+                    (nestedReq, nestedRes) -> {
+                    });
+        });
+
+        assertEquals(200, history.getStatus());
+        assertEquals(503, trend.getStatus());
+    }
+
+    @Test
+    void testDoFilter_TooManyFeedingHistoryStreams_ShouldRejectWithServiceUnavailable() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1, 10, 2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        filter.bindTo(meterRegistry);
+        List<MockHttpServletRequest> streams = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/api/v1/cats/cat" + i + "/feedings");
+            stream.setAsyncSupported(true);
+            filter.doFilter(stream, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+            streams.add(stream);
+        }
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cats/cat2/feedings"), rejected, (req, res) -> {
+        });
+        MockHttpServletResponse trend = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cats/cat2/trends"), trend, (req, res) -> {
+        });
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(200, trend.getStatus());
+
+        streams.forEach((stream) -> ((MockAsyncContext) stream.getAsyncContext()).complete());
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cats/cat2/feedings"), accepted, (req, res) -> {
+        });
+
+        assertEquals(200, accepted.getStatus());
+        assertEquals(2.0, meterRegistry.get("http.server.concurrency.limit").tag("route", "streams").gauge().value());
+        assertEquals(1.0, meterRegistry.get("http.server.concurrency.rejected").tag("route", "streams").functionCounter().count());
+    }
+
+    @Test
+    void testRelease_SlowOrDroppedRequest_ShouldDecreaseLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 10, 2, 100, TEST_LATENCY_THRESHOLD);
+
+        assertTrue(limit.tryAcquire());
+        limit.release(TimeUnit.MILLISECONDS.toNanos(500), false);
+        assertEquals(9, limit.getLimit());
+
+        assertTrue(limit.tryAcquire());
+        limit.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertEquals(8, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void testRelease_FastRequestNearLimit_ShouldIncreaseLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 2, 1, 3, TEST_LATENCY_THRESHOLD);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+        limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+        limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+
+        assertEquals(3, limit.getLimit());
+        assertEquals(1, limit.getRejected());
+    }
+
+    @Test
+    void testRelease_FastRequestWellUnderLimit_ShouldKeepLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 10, 1, 100, TEST_LATENCY_THRESHOLD);
+
+        assertTrue(limit.tryAcquire());
+        limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    private static ConcurrencyLimitFilter newFilter(int credentialsLimit, int apiLimit) {
+        return newFilter(credentialsLimit, apiLimit, 10);
+    }
+
+    private static ConcurrencyLimitFilter newFilter(int credentialsLimit, int apiLimit, int streamsLimit) {
+        return new ConcurrencyLimitFilter(credentialsLimit, credentialsLimit, credentialsLimit, 100,
+                apiLimit, apiLimit, apiLimit, 100, streamsLimit);
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.ansoncht.catfoodtracker.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.security.KeyFactory;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwtKeyRingTest {
+
+    private static final long ROTATION_INTERVAL = 86400000;
+    private static final long REFRESH_INTERVAL = 60000;
+    private static final int TEST_EXPIRATION = 900000;
+    private static final String KEY_ENCRYPTION_KEY = "dGVzdEtleUVuY3J5cHRpb25LZXkwMDAwMDAwMDAwMDA=";
+    private static final String OTHER_KEY_ENCRYPTION_KEY = "b3RoZXJLZXlFbmNyeXB0aW9uS2V5MDAwMDAwMDAwMDA=";
+
+    private InMemorySigningKeyRepository signingKeyRepository;
+    private Instant now;
+
+    @BeforeEach
+    public void setUp() {
+        this.signingKeyRepository = new InMemorySigningKeyRepository();
+        this.now = Instant.parse("2024-01-01T00:00:00Z");
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = JwtKeyRing.Algorithm.class, names = {"ES256", "EdDSA"})
+    void testVerifyToken_VerificationOnlyNode_ShouldVerifyWithPublishedKey(JwtKeyRing.Algorithm algorithm) {
+        JwtService signer = jwtService(newKeyRing(algorithm, true));
+        JwtKeyRing verifierKeyRing = newKeyRing(algorithm, false);
+        JwtService verifier = jwtService(verifierKeyRing);
+
+        String token = signer.generateToken("1", "test", List.of("USER"), 0);
+
+        assertEquals("test", verifier.verifyToken(token).orElseThrow().username());
+        assertEquals(1, verifierKeyRing.jwks().get("keys").size());
+        assertThrows(IllegalStateException.class, () -> verifier.generateToken("1", "test", List.of("USER"), 0));
+    }
+
+    @Test
+    void testRefresh_AfterRotationInterval_ShouldKeepVerifyingOldTokens() {
+        JwtKeyRing keyRing = newKeyRing(JwtKeyRing.Algorithm.ES256, true);
+        JwtService jwtService = jwtService(keyRing);
+        String before = jwtService.generateToken("1", "test", List.of("USER"), 0);
+        String oldKeyId = keyRing.jwks().get("keys").get(0).getId();
+
+        this.now = this.now.plusMillis(ROTATION_INTERVAL);
+        keyRing.refresh();
+        String published = jwtService.generateToken("1", "test", List.of("USER"), 0);
+
+        this.now = this.now.plusMillis(REFRESH_INTERVAL);
+        keyRing.refresh();
+        String after = jwtService.generateToken("1", "test", List.of("USER"), 0);
+
+        assertEquals(2, keyRing.jwks().get("keys").size());
+        assertEquals(oldKeyId, keyId(published));
+        assertNotEquals(oldKeyId, keyId(after));
+        assertTrue(jwtService.verifyToken(before).isPresent());
+        assertTrue(jwtService.verifyToken(after).isPresent());
+    }
+
+    @Test
+    void testVerifyToken_UnknownKey_ShouldReturnEmpty() {
+        JwtService signer = jwtService(newKeyRing(JwtKeyRing.Algorithm.ES256, true));
+        JwtService other = jwtService(new JwtKeyRing(new InMemorySigningKeyRepository(), JwtKeyRing.Algorithm.ES256,
+                null, KEY_ENCRYPTION_KEY, true, ROTATION_INTERVAL, REFRESH_INTERVAL, TEST_EXPIRATION, clock()));
+
+        assertTrue(other.verifyToken(signer.generateToken("test")).isEmpty());
+    }
+
+    @Test
+    void testVerifyToken_HmacToken_ShouldReturnEmpty() {
+        JwtService asymmetric = jwtService(newKeyRing(JwtKeyRing.Algorithm.ES256, true));
+        JwtService hmac = new JwtService("dGVzdFNlY3JldEtleVdoaWNoU2hvdWxkQmVBdExlYXN0MjU2Qml0c0xvbmc=", TEST_EXPIRATION);
+
+        assertTrue(asymmetric.verifyToken(hmac.generateToken("test")).isEmpty());
+    }
+
+    @Test
+    void testAfterPropertiesSet_ConcurrentBootstrap_ShouldStoreOneKey() {
+        JwtKeyRing first = newKeyRing(JwtKeyRing.Algorithm.ES256, true);
+        // The second node read the empty ring before the first one stored its key.
+        AtomicBoolean stale = new AtomicBoolean(true);
+        SigningKeyRepository staleRepository = new SigningKeyRepository() {
+            @Override
+            public <S extends SigningKey> S insert(S signingKey) {
+                return JwtKeyRingTest.this.signingKeyRepository.insert(signingKey);
+            }
+
+            @Override
+            public List<SigningKey> findByExpiresAtAfter(Instant now) {
+                return stale.getAndSet(false)
+                        ? List.of()
+                        : JwtKeyRingTest.this.signingKeyRepository.findByExpiresAtAfter(now);
+            }
+
+            @Override
+            public List<SigningKey> findVerificationKeys(Instant now) {
+                return JwtKeyRingTest.this.signingKeyRepository.findVerificationKeys(now);
+            }
+        };
+        JwtKeyRing second = new JwtKeyRing(staleRepository, JwtKeyRing.Algorithm.ES256, null, KEY_ENCRYPTION_KEY,
+                true, ROTATION_INTERVAL, REFRESH_INTERVAL, TEST_EXPIRATION, clock());
+        second.afterPropertiesSet();
+
+        assertEquals(1, this.signingKeyRepository.findByExpiresAtAfter(this.now).size());
+        assertEquals(keyId(jwtService(first).generateToken("test")), keyId(jwtService(second).generateToken("test")));
+    }
+
+    @Test
+    void testAfterPropertiesSet_StoredPrivateKey_ShouldBeEncrypted() throws Exception {
+        newKeyRing(JwtKeyRing.Algorithm.ES256, true);
+        SigningKey stored = this.signingKeyRepository.findByExpiresAtAfter(this.now).get(0);
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+
+        assertThrows(InvalidKeySpecException.class, () -> keyFactory.generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder().decode(stored.getPrivateKey()))));
+
+        JwtKeyRing otherKey = new JwtKeyRing(this.signingKeyRepository, JwtKeyRing.Algorithm.ES256, null,
+                OTHER_KEY_ENCRYPTION_KEY, true, ROTATION_INTERVAL, REFRESH_INTERVAL, TEST_EXPIRATION, clock());
+        otherKey.afterPropertiesSet();
+
+        assertThrows(IllegalStateException.class, () -> jwtService(otherKey).generateToken("test"));
+    }
+
+    @Test
+    void testConstructor_SigningWithoutKeyEncryptionKey_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new JwtKeyRing(this.signingKeyRepository,
+                JwtKeyRing.Algorithm.ES256, null, "", true, ROTATION_INTERVAL, REFRESH_INTERVAL, TEST_EXPIRATION,
+                clock()));
+    }
+
+    private JwtKeyRing newKeyRing(JwtKeyRing.Algorithm algorithm, boolean signing) {
+        JwtKeyRing keyRing = new JwtKeyRing(this.signingKeyRepository, algorithm, null,
+                signing ? KEY_ENCRYPTION_KEY : null, signing, ROTATION_INTERVAL, REFRESH_INTERVAL, TEST_EXPIRATION,
+                clock());
+        keyRing.afterPropertiesSet();
+
+        return keyRing;
+    }
+
+    /**
+     * A clock that follows {@link #now} as the test moves it.
+     */
+    private Clock clock() {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return JwtKeyRingTest.this.now;
+            }
+        };
+    }
+
+    private static JwtService jwtService(JwtKeyRing keyRing) {
+        return new JwtService(keyRing, TEST_EXPIRATION, 0, AuthMetrics.noop());
+    }
+
+    private static String keyId(String token) {
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+
+        return header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+    }
+
+}
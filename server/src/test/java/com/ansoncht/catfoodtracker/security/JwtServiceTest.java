@@ -4,6 +4,9 @@ import io.jsonwebtoken.security.WeakKeyException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JwtServiceTest {
@@ -26,11 +29,9 @@ public class JwtServiceTest {
     }
 
     @Test
-    void testGenerateToken_InvalidSecret_ShouldThrowException() {
-        JwtService weakJwtService = new JwtService("short", TEST_EXPIRATION);
-
+    void testConstructor_InvalidSecret_ShouldThrowException() {
         WeakKeyException exception = assertThrows(WeakKeyException.class,
-                () -> weakJwtService.generateToken("testuser"));
+                () -> new JwtService("short", TEST_EXPIRATION));
         assertNotNull(exception);
     }
 
@@ -64,4 +65,63 @@ public class JwtServiceTest {
                 () -> jwtService.getUsernameFromToken(invalidToken));
         assertNotNull(exception.getMessage());
     }
+
+    @Test
+    void testVerifyToken_ValidToken_ShouldReturnClaims() {
+        String token = jwtService.generateToken("testuser");
+
+        Optional<VerifiedToken> verified = jwtService.verifyToken(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals("testuser", verified.get().username());
+        assertNotNull(verified.get().issuedAt());
+        assertTrue(verified.get().expiresAt().isAfter(verified.get().issuedAt()));
+    }
+
+    @Test
+    void testVerifyToken_TokenWithClaims_ShouldReturnClaims() {
+        String token = jwtService.generateToken("1", "testuser", List.of("USER", "ADMIN"), 3);
+
+        VerifiedToken verified = jwtService.verifyToken(token).orElseThrow();
+
+        assertEquals("1", verified.userId());
+        assertEquals(List.of("USER", "ADMIN"), verified.roles());
+        assertEquals(3, verified.tokenVersion());
+    }
+
+    @Test
+    void testIssueToken_ShouldCarryUniqueTokenId() {
+        IssuedToken first = jwtService.issueToken("1", "testuser", List.of("USER"), 0);
+        IssuedToken second = jwtService.issueToken("1", "testuser", List.of("USER"), 0);
+
+        assertNotNull(first.tokenId());
+        assertNotEquals(first.tokenId(), second.tokenId());
+        assertEquals(first.tokenId(), jwtService.verifyToken(first.token()).orElseThrow().tokenId());
+    }
+
+    @Test
+    void testVerifyToken_RepeatedToken_ShouldReturnCachedClaims() {
+        String token = jwtService.generateToken("testuser");
+
+        VerifiedToken first = jwtService.verifyToken(token).orElseThrow();
+        VerifiedToken second = jwtService.verifyToken(token).orElseThrow();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void testVerifyToken_TamperedToken_ShouldReturnEmpty() {
+        String token = jwtService.generateToken("testuser");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtService.verifyToken(tampered).isEmpty());
+    }
+
+    @Test
+    void testVerifyToken_ExpiredToken_ShouldReturnEmpty() {
+        JwtService expiringJwtService = new JwtService(TEST_SECRET, -1000);
+        String token = expiringJwtService.generateToken("testuser");
+
+        assertTrue(expiringJwtService.verifyToken(token).isEmpty());
+    }
 }
@@ -0,0 +1,61 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoginThrottleTest {
+
+    private static final int TEST_MAX_KEYS = 100;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testCheck_BurstFromOneAddress_ShouldRejectOnceExhausted() {
+        LoginThrottle loginThrottle = new LoginThrottle(meterRegistry, 1, 3, 0, 0, TEST_MAX_KEYS);
+
+        for (int i = 0; i < 3; i++) {
+            String account = "user" + i;
+            assertDoesNotThrow(() -> loginThrottle.check("10.0.0.1", account));
+        }
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> loginThrottle.check("10.0.0.1", "user3"));
+
+        assertTrue(e.getRetryAfterSeconds() > 0 && e.getRetryAfterSeconds() <= 60);
+        assertDoesNotThrow(() -> loginThrottle.check("10.0.0.2", "user3"));
+        assertEquals(1.0, meterRegistry.get("login.throttle.rejected").tag("scope", "ip").counter().count());
+    }
+
+    @Test
+    void testCheck_RepeatedAccount_ShouldRejectAcrossAddressesAndCase() {
+        LoginThrottle loginThrottle = new LoginThrottle(meterRegistry, 0, 0, 1, 2, TEST_MAX_KEYS);
+
+        loginThrottle.check("10.0.0.1", "Test");
+        loginThrottle.check("10.0.0.2", "test");
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.check("10.0.0.3", "TEST"));
+        assertDoesNotThrow(() -> loginThrottle.check("10.0.0.3", "other"));
+        assertEquals(1.0, meterRegistry.get("login.throttle.rejected").tag("scope", "account").counter().count());
+    }
+
+    @Test
+    void testCheck_ZeroRate_ShouldNeverReject() {
+        LoginThrottle loginThrottle = new LoginThrottle(meterRegistry, 0, 0, 0, 0, TEST_MAX_KEYS);
+
+        for (int i = 0; i < 1000; i++) {
+            assertDoesNotThrow(() -> loginThrottle.check("10.0.0.1", "test"));
+        }
+    }
+
+}
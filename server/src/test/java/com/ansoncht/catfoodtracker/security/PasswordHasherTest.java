@@ -0,0 +1,67 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PasswordHasherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.passwordHasher = new PasswordHasher(new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 10, 2),
+                meterRegistry, 1, 1, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.passwordHasher.destroy();
+    }
+
+    @Test
+    void testEncode_ValidPassword_ShouldMatch() {
+        String encoded = passwordHasher.encode("testPassword").join();
+
+        assertTrue(passwordHasher.matches("testPassword", encoded).join());
+    }
+
+    @Test
+    void testEncode_DependentStages_ShouldNotRunOnAHashingThread() {
+        String thread = passwordHasher.encode("testPassword")
+                .thenApply((encoded) -> Thread.currentThread().getName())
+                .join();
+
+        assertFalse(thread.matches("password-hashing-\\d+"), thread);
+    }
+
+    @Test
+    void testEncode_QueueFull_ShouldRejectWithRetryAfter() {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(passwordHasher.encode("testPassword"));
+        }
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> futures.get(2).join());
+        PasswordHashingRejectedException rejected = assertInstanceOf(PasswordHashingRejectedException.class,
+                exception.getCause());
+
+        assertEquals(2, rejected.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.ansoncht.catfoodtracker.security;
+
+import com.ansoncht.catfoodtracker.user.UserChangedEvent;
+import com.ansoncht.catfoodtracker.user.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PrincipalCacheTest {
+
+    private static final int TEST_CACHE_SIZE = 100;
+    private static final long TEST_TTL = 60000;
+    private static final long TEST_EXPIRATION = 3600000;
+
+    @Mock
+    private UserService mockUserService;
+
+    @Mock
+    private ReactiveUserDetailsService mockReactiveUserDetailsService;
+
+    @Mock
+    private TokenRevocations mockTokenRevocations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    public void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void testLoadPrincipal_RepeatedToken_ShouldLoadUserOnce() {
+        PrincipalCache principalCache = newPrincipalCache(false);
+        AuthenticatedUser expected = new AuthenticatedUser("1", "test", "hash", List.of("USER"), 0);
+
+        when(mockUserService.loadUserByUsername("test")).thenReturn(expected);
+
+        UserDetails first = principalCache.loadPrincipal(token("test", 0));
+        UserDetails second = principalCache.loadPrincipal(token("test", 0));
+
+        assertSame(expected, first);
+        assertSame(expected, second);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get(AuthMetrics.PRINCIPAL).tag("outcome", AuthMetrics.SUCCESS).timer().count());
+        assertEquals(1, meterRegistry.get(AuthMetrics.PRINCIPAL).tag("outcome", AuthMetrics.CACHED).timer().count());
+
+        verify(mockUserService, times(1)).loadUserByUsername("test");
+    }
+
+    @Test
+    void testLoadPrincipal_AfterUserChanged_ShouldReloadUser() {
+        PrincipalCache principalCache = newPrincipalCache(false);
+        AuthenticatedUser expected = new AuthenticatedUser("1", "test", "hash", List.of("USER"), 0);
+
+        when(mockUserService.loadUserByUsername("test")).thenReturn(expected);
+
+        principalCache.loadPrincipal(token("test", 0));
+        principalCache.onUserChanged(new UserChangedEvent("test", "test@gmail.com", 0));
+        principalCache.loadPrincipal(token("test", 0));
+
+        verify(mockUserService, times(2)).loadUserByUsername("test");
+    }
+
+    @Test
+    void testLoadPrincipal_OutdatedTokenVersion_ShouldThrowException() {
+        PrincipalCache principalCache = newPrincipalCache(false);
+
+        when(mockUserService.loadUserByUsername("test"))
+                .thenReturn(new AuthenticatedUser("1", "test", "hash", List.of("USER"), 2));
+
+        assertThrows(CredentialsExpiredException.class, () -> principalCache.loadPrincipal(token("test", 1)));
+        assertEquals(1, meterRegistry.get(AuthMetrics.PRINCIPAL).tag("outcome", AuthMetrics.REJECTED).timer().count());
+    }
+
+    @Test
+    void testLoadPrincipal_StatelessMode_ShouldNotLoadUser() {
+        PrincipalCache principalCache = newPrincipalCache(true);
+
+        UserDetails actual = principalCache.loadPrincipal(token("test", 0));
+
+        assertEquals("test", actual.getUsername());
+        assertEquals("ROLE_USER", actual.getAuthorities().iterator().next().getAuthority());
+
+        verify(mockUserService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void testLoadPrincipal_StatelessModeAfterVersionBump_ShouldThrowException() {
+        PrincipalCache principalCache = newPrincipalCache(true);
+
+        principalCache.onUserChanged(new UserChangedEvent("test", "test@gmail.com", 1));
+
+        assertThrows(CredentialsExpiredException.class, () -> principalCache.loadPrincipal(token("test", 0)));
+    }
+
+    @Test
+    void testLoadPrincipal_RevokedToken_ShouldThrowException() {
+        PrincipalCache principalCache = newPrincipalCache(true);
+
+        when(mockTokenRevocations.isRevoked("jti")).thenReturn(true);
+
+        assertThrows(CredentialsExpiredException.class, () -> principalCache.loadPrincipal(token("test", 0)));
+        verify(mockUserService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void testLoadPrincipalReactive_RepeatedToken_ShouldLoadUserOnce() {
+        PrincipalCache principalCache = newPrincipalCache(false);
+        AuthenticatedUser expected = new AuthenticatedUser("1", "test", "hash", List.of("USER"), 0);
+
+        when(mockReactiveUserDetailsService.findByUsername("test")).thenReturn(Mono.just(expected));
+
+        UserDetails first = principalCache.loadPrincipal(token("test", 0), mockReactiveUserDetailsService).block();
+        UserDetails second = principalCache.loadPrincipal(token("test", 0), mockReactiveUserDetailsService).block();
+
+        assertSame(expected, first);
+        assertSame(expected, second);
+
+        verify(mockReactiveUserDetailsService, times(1)).findByUsername("test");
+        verify(mockUserService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void testLoadPrincipalReactive_OutdatedTokenVersion_ShouldThrowException() {
+        PrincipalCache principalCache = newPrincipalCache(false);
+
+        when(mockReactiveUserDetailsService.findByUsername("test"))
+                .thenReturn(Mono.just(new AuthenticatedUser("1", "test", "hash", List.of("USER"), 2)));
+
+        Mono<UserDetails> principal = principalCache.loadPrincipal(token("test", 1), mockReactiveUserDetailsService);
+
+        assertThrows(CredentialsExpiredException.class, principal::block);
+    }
+
+    private PrincipalCache newPrincipalCache(boolean statelessAuth) {
+        return new PrincipalCache(mockUserService, meterRegistry, new AuthMetrics(meterRegistry), mockTokenRevocations,
+                TEST_CACHE_SIZE, TEST_TTL, TEST_EXPIRATION, statelessAuth);
+    }
+
+    private static VerifiedToken token(String username, long tokenVersion) {
+        Instant now = Instant.now();
+
+        return new VerifiedToken("1", username, List.of("USER"), tokenVersion, now, now.plusSeconds(3600), "jti");
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RefreshTokenServiceTest {
+
+    private static final String TEST_SECRET = "dGVzdFNlY3JldEtleVdoaWNoU2hvdWxkQmVBdExlYXN0MjU2Qml0c0xvbmc=";
+
+    private JwtService jwtService;
+    private TokenRevocations tokenRevocations;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    public void setUp() {
+        InMemoryRefreshTokenRepository refreshTokenRepository = new InMemoryRefreshTokenRepository();
+        this.jwtService = new JwtService(TEST_SECRET, 900000);
+        this.tokenRevocations = new TokenRevocations(refreshTokenRepository, new SimpleMeterRegistry(), 0.000001);
+        this.refreshTokenService = new RefreshTokenService(refreshTokenRepository, this.jwtService,
+                this.tokenRevocations, 3600000);
+    }
+
+    @Test
+    void testRotate_ConsumedToken_ShouldIssueNextPairInFamily() {
+        TokenPair issued = this.refreshTokenService.issue("1", "test", List.of("USER"), 0);
+
+        RefreshToken consumed = this.refreshTokenService.consume(issued.refreshToken());
+        TokenPair rotated = this.refreshTokenService.rotate(consumed, "test", List.of("USER"), 0);
+
+        assertEquals("1", consumed.getUserId());
+        assertNotEquals(issued.refreshToken(), rotated.refreshToken());
+        assertEquals("test", this.jwtService.verifyToken(rotated.accessToken()).orElseThrow().username());
+        assertEquals(consumed.getFamilyId(), this.refreshTokenService.consume(rotated.refreshToken()).getFamilyId());
+    }
+
+    @Test
+    void testConsume_ReusedToken_ShouldRevokeFamily() {
+        TokenPair issued = this.refreshTokenService.issue("1", "test", List.of("USER"), 0);
+        RefreshToken consumed = this.refreshTokenService.consume(issued.refreshToken());
+        TokenPair rotated = this.refreshTokenService.rotate(consumed, "test", List.of("USER"), 0);
+
+        InvalidRefreshTokenException e = assertThrows(InvalidRefreshTokenException.class,
+                () -> this.refreshTokenService.consume(issued.refreshToken()));
+
+        assertTrue(e.isReused());
+        assertTrue(this.tokenRevocations.isRevoked(this.jwtService.verifyToken(rotated.accessToken()).orElseThrow().tokenId()));
+        assertThrows(InvalidRefreshTokenException.class, () -> this.refreshTokenService.consume(rotated.refreshToken()));
+    }
+
+    @Test
+    void testConsume_UnknownToken_ShouldThrowException() {
+        InvalidRefreshTokenException e = assertThrows(InvalidRefreshTokenException.class,
+                () -> this.refreshTokenService.consume("unknown"));
+
+        assertFalse(e.isReused());
+    }
+
+    @Test
+    void testRotate_OutdatedTokenVersion_ShouldThrowException() {
+        TokenPair issued = this.refreshTokenService.issue("1", "test", List.of("USER"), 0);
+        RefreshToken consumed = this.refreshTokenService.consume(issued.refreshToken());
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> this.refreshTokenService.rotate(consumed, "test", List.of("USER"), 1));
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.ansoncht.catfoodtracker.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenRevocationsTest {
+
+    private InMemoryRefreshTokenRepository refreshTokenRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenRevocations tokenRevocations;
+
+    @BeforeEach
+    public void setUp() {
+        this.refreshTokenRepository = new InMemoryRefreshTokenRepository();
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.tokenRevocations = new TokenRevocations(this.refreshTokenRepository, this.meterRegistry, 0.000001);
+    }
+
+    @Test
+    void testIsRevoked_RecentRevocation_ShouldBeRevokedBeforeRebuild() {
+        this.tokenRevocations.revoke("jti", Instant.now().plusSeconds(900));
+
+        assertTrue(this.tokenRevocations.isRevoked("jti"));
+        assertFalse(this.tokenRevocations.isRevoked("other"));
+        assertEquals(1.0, this.meterRegistry.get("token.revocations.recent").gauge().value());
+    }
+
+    @Test
+    void testRebuild_PersistedRevocation_ShouldMoveIntoFilter() {
+        Instant now = Instant.now();
+        RefreshToken stored = this.refreshTokenRepository.insert(new RefreshToken("hash", "1", "family", 0,
+                new IssuedToken("token", "jti", now.plusSeconds(900)), now, now.plusSeconds(3600)));
+        this.refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+        this.tokenRevocations.revoke("jti", now.plusSeconds(900));
+
+        this.tokenRevocations.rebuild();
+
+        assertTrue(this.tokenRevocations.isRevoked("jti"));
+        assertEquals(1.0, this.meterRegistry.get("token.revocations.filtered").gauge().value());
+        assertEquals(0.0, this.meterRegistry.get("token.revocations.recent").gauge().value());
+    }
+
+    @Test
+    void testRebuild_ExpiredAccessToken_ShouldBeDropped() {
+        Instant now = Instant.now();
+        RefreshToken stored = this.refreshTokenRepository.insert(new RefreshToken("hash", "1", "family", 0,
+                new IssuedToken("token", "jti", now.minusSeconds(1)), now.minusSeconds(900), now.plusSeconds(3600)));
+        this.refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+
+        this.tokenRevocations.rebuild();
+
+        assertFalse(this.tokenRevocations.isRevoked("jti"));
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.ansoncht.catfoodtracker.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryUserRepositoryTest {
+
+    private InMemoryUserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        this.userRepository = new InMemoryUserRepository();
+    }
+
+    @Test
+    void testInsert_NewUser_ShouldAssignIdAndIndexLoginKeys() {
+        User saved = userRepository.insert(new User("Test", "Test@gmail.com", "test", "test", "hash"));
+
+        assertNotNull(saved.getId());
+        assertNotNull(saved.getCreatedAt());
+        assertEquals(saved, userRepository.findByLoginKeys("test").orElseThrow());
+        assertEquals(saved, userRepository.findByLoginKeys("test@gmail.com").orElseThrow());
+        assertEquals("hash", userRepository.findCredentialsByLoginKeys("test").orElseThrow().getPassword());
+        assertTrue(userRepository.existsByLoginKeys("test"));
+    }
+
+    @Test
+    void testInsert_DuplicateEmail_ShouldThrowTranslatableException() {
+        userRepository.insert(new User("test", "test@gmail.com", "test", "test", "hash"));
+
+        DuplicateKeyException exception = assertThrows(DuplicateKeyException.class,
+                () -> userRepository.insert(new User("other", "test@gmail.com", "test", "test", "hash")));
+
+        User rejected = new User("other", "test@gmail.com", "test", "test", "hash");
+        assertEquals(DuplicateUserException.Reason.EMAIL_TAKEN,
+                TakenIdentifiers.translate(exception, rejected, userRepository::existsByLoginKeys).getReason());
+        assertEquals(1, userRepository.streamAllBy().count());
+    }
+
+    @Test
+    void testFindProfilesByIdGreaterThan_ShouldPageInIdOrder() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(userRepository.insert(new User("user" + i, "user" + i + "@gmail.com", "test", "test", "hash")).getId());
+        }
+        ids.sort(null);
+
+        List<UserProfile> first = userRepository.findProfilesByOrderByIdAsc(Limit.of(2));
+        List<UserProfile> second = userRepository.findProfilesByIdGreaterThanOrderByIdAsc(first.get(1).getId(), Limit.of(2));
+        List<UserProfile> last = userRepository.findProfilesByIdGreaterThanOrderByIdAsc(second.get(1).getId(), Limit.of(2));
+
+        assertEquals(ids.subList(0, 2), first.stream().map(UserProfile::getId).toList());
+        assertEquals(ids.subList(2, 4), second.stream().map(UserProfile::getId).toList());
+        assertEquals(ids.subList(4, 5), last.stream().map(UserProfile::getId).toList());
+    }
+
+    @Test
+    void testInsert_UsernameDifferingOnlyInCase_ShouldThrowException() {
+        userRepository.insert(new User("test", "test@gmail.com", "test", "test", "hash"));
+
+        assertThrows(DuplicateKeyException.class,
+                () -> userRepository.insert(new User("TEST", "other@gmail.com", "test", "test", "hash")));
+    }
+
+    @Test
+    void testInsert_ChangedAfterwards_ShouldKeepStoredUser() {
+        User user = userRepository.insert(new User("test", "test@gmail.com", "test", "test", "hash"));
+        user.setEmail("new@gmail.com");
+        user.setPassword("changed");
+
+        User found = userRepository.findById(user.getId()).orElseThrow();
+        found.setPassword("changed");
+
+        assertEquals("test@gmail.com", userRepository.findById(user.getId()).orElseThrow().getEmail());
+        assertEquals("hash", userRepository.findByLoginKeys("test").orElseThrow().getPassword());
+        assertFalse(userRepository.existsByLoginKeys("new@gmail.com"));
+    }
+
+    @Test
+    void testUpdatePasswordById_ShouldNotChangeUsersAlreadyRead() {
+        User user = userRepository.insert(new User("test", "test@gmail.com", "test", "test", "hash"));
+        User before = userRepository.findById(user.getId()).orElseThrow();
+
+        userRepository.updatePasswordById(user.getId(), "rehashed");
+
+        assertEquals("hash", before.getPassword());
+        assertEquals("rehashed", userRepository.findCredentialsByLoginKeys("test").orElseThrow().getPassword());
+    }
+
+    @Test
+    void testInsert_ConcurrentSameUsername_ShouldAcceptExactlyOne() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger accepted = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 64; i++) {
+                String email = "test" + i + "@gmail.com";
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        userRepository.insert(new User("test", email, "test", "test", "hash"));
+                        accepted.incrementAndGet();
+                    } catch (DuplicateKeyException e) {
+                        // Expected for every insert but one.
+                    }
+                }, executor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, accepted.get());
+        assertEquals(1, userRepository.streamAllBy().count());
+    }
+
+}
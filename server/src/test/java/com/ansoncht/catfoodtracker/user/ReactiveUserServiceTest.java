@@ -0,0 +1,184 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.security.AuthMetrics;
+import com.ansoncht.catfoodtracker.security.CalibratedPasswordEncoder;
+import com.ansoncht.catfoodtracker.security.PasswordHasher;
+import com.ansoncht.catfoodtracker.user.dto.UserDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class ReactiveUserServiceTest {
+
+    @Mock
+    private ReactiveUserRepository mockUserRepository;
+
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+
+    private PasswordHasher passwordHasher;
+    private ReactiveUserService userService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    public void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        this.passwordHasher = new PasswordHasher(new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2),
+                new SimpleMeterRegistry(), 1, 10, 1, 1);
+        this.userService = new ReactiveUserService(mockUserRepository, passwordHasher, mockEventPublisher,
+                AuthMetrics.noop());
+
+        when(mockUserRepository.existsByLoginKeys(anyString())).thenReturn(Mono.just(false));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        passwordHasher.destroy();
+        closeable.close();
+    }
+
+    @Test
+    public void testRegisterUser_ValidRequest_ShouldSucceed() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "testPassword");
+
+        when(mockUserRepository.insert(Mockito.any(User.class)))
+                .thenAnswer((invocation) -> Mono.just(invocation.getArgument(0)));
+
+        UserDTO actual = this.userService.registerUser(req).block();
+
+        assertNotNull(actual);
+        assertEquals("Response Username: ", req.getUsername(), actual.getUsername());
+        assertEquals("Response Email: ", req.getEmail(), actual.getEmail());
+
+        verify(mockUserRepository).insert(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testRegisterUser_RepeatedDuplicate_ShouldRejectBeforeHashing() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "testPassword");
+
+        when(mockUserRepository.insert(Mockito.any(User.class)))
+                .thenReturn(Mono.error(duplicateKey("email", "test@gmail.com")));
+
+        DuplicateUserException first = assertThrows(DuplicateUserException.class, () -> userService.registerUser(req).block());
+        DuplicateUserException second = assertThrows(DuplicateUserException.class, () -> userService.registerUser(req).block());
+
+        assertEquals("Reason: ", DuplicateUserException.Reason.EMAIL_TAKEN, first.getReason());
+        assertEquals("Reason: ", DuplicateUserException.Reason.EMAIL_TAKEN, second.getReason());
+
+        verify(mockUserRepository, times(1)).insert(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testAuthenticateUser_ValidRequest_ShouldSucceed() {
+        UserLoginDTO req = new UserLoginDTO("Test", "testPassword");
+        String encodedPassword = new BCryptPasswordEncoder(4).encode(req.getPassword());
+        User expected = new User("test", "test@gmail.com", "test", "test", "{bcrypt}" + encodedPassword);
+
+        when(mockUserRepository.findByLoginKeys("test")).thenReturn(Mono.just(expected));
+
+        UserDTO actual = this.userService.authenticateUser(req).block();
+
+        assertNotNull(actual);
+        assertEquals("Response Username: ", expected.getUsername(), actual.getUsername());
+
+        verify(mockUserRepository, never()).updatePasswordById(anyString(), anyString());
+    }
+
+    @Test
+    public void testAuthenticateUser_IncorrectPassword_ShouldThrowException() {
+        UserLoginDTO req = new UserLoginDTO("test", "wrongPassword");
+        String encodedPassword = new BCryptPasswordEncoder(4).encode("testPassword");
+        User expected = new User("test", "test@gmail.com", "test", "test", "{bcrypt}" + encodedPassword);
+
+        when(mockUserRepository.findByLoginKeys("test")).thenReturn(Mono.just(expected));
+
+        assertThrows(RuntimeException.class, () -> userService.authenticateUser(req).block());
+    }
+
+    @Test
+    public void testRegisterUser_TakenLoginKey_ShouldRejectBeforeHashing() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "Test@gmail.com", "test", "test", "testPassword");
+
+        when(mockUserRepository.existsByLoginKeys("test@gmail.com")).thenReturn(Mono.just(true));
+
+        DuplicateUserException duplicate = assertThrows(DuplicateUserException.class,
+                () -> userService.registerUser(req).block());
+
+        assertEquals("Reason: ", DuplicateUserException.Reason.EMAIL_TAKEN, duplicate.getReason());
+        verify(mockUserRepository, never()).insert(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testAuthenticateUser_UnknownUser_ShouldThrowException() {
+        UserLoginDTO req = new UserLoginDTO("test", "testPassword");
+
+        when(mockUserRepository.findByLoginKeys("test")).thenReturn(Mono.empty());
+
+        assertThrows(RuntimeException.class, () -> userService.authenticateUser(req).block());
+    }
+
+    @Test
+    public void testFindByUsername_ExistingUser_ShouldReturnPrincipal() {
+        User expected = new User("test", "test@gmail.com", "test", "test", "hash");
+        UserCredentials credentials = new SpelAwareProxyProjectionFactory().createProjection(UserCredentials.class, expected);
+
+        when(mockUserRepository.findCredentialsByLoginKeys("test")).thenReturn(Mono.just(credentials));
+
+        UserDetails actual = this.userService.findByUsername("test").block();
+
+        assertNotNull(actual);
+        assertEquals("Username: ", expected.getUsername(), actual.getUsername());
+        assertEquals("Authority: ", "ROLE_USER", actual.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    public void testFindByUsername_UnknownUser_ShouldReturnEmpty() {
+        when(mockUserRepository.findCredentialsByLoginKeys("test")).thenReturn(Mono.empty());
+
+        assertNull(this.userService.findByUsername("test").block());
+    }
+
+    /**
+     * A duplicate-key error as translated from a command error, which carries
+     * the key pattern and value.
+     */
+    private static DuplicateKeyException duplicateKey(String field, String value) {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(11000))
+                .append("errmsg", new BsonString("E11000 duplicate key error"))
+                .append("keyPattern", new BsonDocument(field, new BsonInt32(1)))
+                .append("keyValue", new BsonDocument(field, new BsonString(value)));
+
+        return new DuplicateKeyException("E11000 duplicate key error",
+                new MongoCommandException(response, new ServerAddress()));
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.ansoncht.catfoodtracker.user;
+
+import com.ansoncht.catfoodtracker.mongo.BulkInsertFailure;
+import com.ansoncht.catfoodtracker.security.CalibratedPasswordEncoder;
+import com.ansoncht.catfoodtracker.user.dto.UserImportSummary;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+public class UserBulkServiceTest {
+
+    private static final String BCRYPT_HASH = "$2a$04$7Qf1bXLyVjMX5cKvdK6O4.Kb0BnNGqOEjGvtxbYpS3r0K2vA8Y8lK";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CalibratedPasswordEncoder passwordEncoder;
+    private InMemoryUserRepository userRepository;
+    private UserBulkService userBulkService;
+
+    @BeforeEach
+    public void setUp() {
+        this.passwordEncoder = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2);
+        this.userRepository = new InMemoryUserRepository();
+        this.userBulkService = new UserBulkService(this.userRepository, this.passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), this.objectMapper, 2, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.userBulkService.destroy();
+    }
+
+    @Test
+    void testImportUsers_MixedLines_ShouldImportValidUsersAndReportFailures() throws IOException {
+        String input = String.join("\n",
+                user("alice", "alice@gmail.com", "\"password\":\"alicePassword\""),
+                user("bob", "bob@gmail.com", "\"passwordHash\":\"" + BCRYPT_HASH + "\",\"roles\":[\"USER\",\"ADMIN\"]"),
+                "not json",
+                "",
+                user("carol", "carol@gmail.com", ""),
+                user("Alice", "other@gmail.com", "\"password\":\"otherPassword\""),
+                user("dave", "not-an-email", "\"password\":\"davePassword\""));
+
+        List<JsonNode> output = importUsers(input);
+
+        assertEquals(5, output.size());
+        assertEquals(3, output.get(0).get("line").asLong());
+        assertTrue(output.get(0).get("error").asText().startsWith("Invalid JSON"));
+        assertEquals(5, output.get(1).get("line").asLong());
+        assertEquals("Exactly one of password and passwordHash is required", output.get(1).get("error").asText());
+        assertEquals(6, output.get(2).get("line").asLong());
+        assertEquals(DuplicateUserException.Reason.USERNAME_TAKEN.name(), output.get(2).get("error").asText());
+        assertEquals(7, output.get(3).get("line").asLong());
+        assertEquals("email must be a well-formed email address", output.get(3).get("error").asText());
+        assertEquals(2, output.get(4).get("imported").asLong());
+        assertEquals(4, output.get(4).get("failed").asLong());
+
+        User alice = this.userRepository.findByLoginKeys("alice").orElseThrow();
+        User bob = this.userRepository.findByLoginKeys("bob").orElseThrow();
+        assertTrue(this.passwordEncoder.matches("alicePassword", alice.getPassword()));
+        assertEquals("{bcrypt}" + BCRYPT_HASH, bob.getPassword());
+        assertEquals(List.of("USER", "ADMIN"), bob.getRoles());
+        assertTrue(this.userRepository.findByLoginKeys("alice@gmail.com").isPresent());
+    }
+
+    @Test
+    void testImportUsers_DuplicateKeyWithKeyPattern_ShouldNotLookUpLoginKeys() throws IOException {
+        MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+        BulkOperations bulkOperations = Mockito.mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        BsonDocument details = new BsonDocument("keyPattern", new BsonDocument("email", new BsonInt32(1)))
+                .append("keyValue", new BsonDocument("email", new BsonString("alice@gmail.com")));
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(new BulkWriteError(11000, "E11000", details, 0)), null,
+                new ServerAddress(), Set.of())));
+        UserBulkOperationsImpl bulkOperationsImpl = new UserBulkOperationsImpl(mongoTemplate);
+        AtomicInteger lookups = new AtomicInteger();
+        InMemoryUserRepository userRepository = new InMemoryUserRepository() {
+            @Override
+            public List<BulkInsertFailure> insertMany(List<User> users) {
+                return bulkOperationsImpl.insertMany(users);
+            }
+
+            @Override
+            public boolean existsByLoginKeys(String loginKey) {
+                lookups.incrementAndGet();
+
+                return super.existsByLoginKeys(loginKey);
+            }
+        };
+        this.userBulkService.destroy();
+        this.userBulkService = new UserBulkService(userRepository, this.passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), this.objectMapper, 2, 2);
+
+        List<JsonNode> output = importUsers(user("alice", "alice@gmail.com", "\"password\":\"alicePassword\""));
+
+        assertEquals(DuplicateUserException.Reason.EMAIL_TAKEN.name(), output.get(0).get("error").asText());
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void testExportUsers_ImportedUsers_ShouldRoundTrip() throws IOException {
+        importUsers(user("alice", "alice@gmail.com", "\"password\":\"alicePassword\""));
+        String storedPassword = this.userRepository.findByLoginKeys("alice").orElseThrow().getPassword();
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        long count = this.userBulkService.exportUsers(exported, true);
+
+        InMemoryUserRepository target = new InMemoryUserRepository();
+        UserBulkService targetService = new UserBulkService(target, this.passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), this.objectMapper, 2, 2);
+        UserImportSummary summary = targetService.importUsers(new ByteArrayInputStream(exported.toByteArray()),
+                new ByteArrayOutputStream());
+        targetService.destroy();
+
+        assertEquals(1, count);
+        assertNull(this.objectMapper.readTree(exported.toByteArray()).get("password").textValue());
+        assertEquals(new UserImportSummary(1, 0), summary);
+        assertEquals(storedPassword, target.findByLoginKeys("alice").orElseThrow().getPassword());
+    }
+
+    @Test
+    void testExportUsers_WithoutPasswordHashes_ShouldOmitThem() throws IOException {
+        importUsers(user("alice", "alice@gmail.com", "\"password\":\"alicePassword\""));
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        long count = this.userBulkService.exportUsers(exported, false);
+
+        JsonNode line = this.objectMapper.readTree(exported.toByteArray());
+        assertEquals(1, count);
+        assertEquals("alice", line.get("username").textValue());
+        assertNull(line.get("passwordHash").textValue());
+    }
+
+    @Test
+    void testEncodedPassword_UnknownFormat_ShouldReturnNull() {
+        assertNull(UserBulkService.encodedPassword("md5:5f4dcc3b5aa765d61d8327deb882cf99"));
+        assertEquals("{argon2}hash", UserBulkService.encodedPassword("{argon2}hash"));
+    }
+
+    private List<JsonNode> importUsers(String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.userBulkService.importUsers(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(this.objectMapper.readTree(line));
+        }
+
+        return lines;
+    }
+
+    private static String user(String username, String email, String credentials) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + email + "\",\"firstName\":\"Test\","
+                + "\"lastName\":\"User\"" + (credentials.isEmpty() ? "" : "," + credentials) + "}";
+    }
+
+}
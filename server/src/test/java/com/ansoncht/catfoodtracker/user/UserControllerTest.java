@@ -1,7 +1,19 @@
 package com.ansoncht.catfoodtracker.user;
 
+import com.ansoncht.catfoodtracker.audit.AuditEventType;
+import com.ansoncht.catfoodtracker.audit.AuditLog;
 import com.ansoncht.catfoodtracker.config.TestSecurityConfig;
+import com.ansoncht.catfoodtracker.security.IssuedToken;
+import com.ansoncht.catfoodtracker.security.InvalidRefreshTokenException;
 import com.ansoncht.catfoodtracker.security.JwtService;
+import com.ansoncht.catfoodtracker.security.LoginThrottle;
+import com.ansoncht.catfoodtracker.security.LoginThrottledException;
+import com.ansoncht.catfoodtracker.security.PasswordHashingRejectedException;
+import com.ansoncht.catfoodtracker.security.PrincipalCache;
+import com.ansoncht.catfoodtracker.security.RefreshToken;
+import com.ansoncht.catfoodtracker.security.RefreshTokenService;
+import com.ansoncht.catfoodtracker.security.TokenPair;
+import com.ansoncht.catfoodtracker.user.dto.RefreshTokenDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
@@ -13,18 +25,31 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
-@Import(TestSecurityConfig.class)
+@Import({TestSecurityConfig.class, UserResponses.class})
 public class UserControllerTest {
 
     private static final LocalDateTime FIXED_TIME = LocalDateTime.of(2024, 1, 1, 12, 59, 59);
@@ -38,6 +63,18 @@ public class UserControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private LoginThrottle loginThrottle;
+
+    @MockBean
+    private AuditLog auditLog;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -47,11 +84,17 @@ public class UserControllerTest {
         UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "testPassword");
         UserDTO expected = new UserDTO("1L", "test", "test@gmail.com", "test", "test", FIXED_TIME, FIXED_TIME);
 
-        when(userService.registerUser(any(UserRegistrationDTO.class))).thenReturn(expected);
+        when(userService.registerUser(any(UserRegistrationDTO.class))).thenReturn(CompletableFuture.completedFuture(expected));
+        when(refreshTokenService.issue(eq("1L"), eq("test"), any(), anyLong()))
+                .thenReturn(new TokenPair("access", "refresh"));
 
-        mockMvc.perform(post("/api/v1/user/signup")
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signup")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.user.id").value(expected.getId()))
                 .andExpect(jsonPath("$.user.username").value(expected.getUsername()))
@@ -59,7 +102,9 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.user.firstName").value(expected.getFirstName()))
                 .andExpect(jsonPath("$.user.lastName").value(expected.getLastName()))
                 .andExpect(jsonPath("$.user.createdAt").value(expected.getCreatedAt().toString()))
-                .andExpect(jsonPath("$.user.updatedAt").value(expected.getUpdatedAt().toString()));
+                .andExpect(jsonPath("$.user.updatedAt").value(expected.getUpdatedAt().toString()))
+                .andExpect(jsonPath("$.token").value("access"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh"));
 
         verify(userService).registerUser(any(UserRegistrationDTO.class));
     }
@@ -81,25 +126,56 @@ public class UserControllerTest {
 
         when(userService.registerUser(any(UserRegistrationDTO.class))).thenThrow(new RuntimeException("Test RuntimeException"));
 
-        mockMvc.perform(post("/api/v1/user/signup")
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signup")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest());
 
         verify(userService).registerUser(any(UserRegistrationDTO.class));
     }
 
+    @Test
+    void testSignUp_DuplicateUsername_ShouldFailWithConflict() throws Exception {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "testPassword");
+
+        when(userService.registerUser(any(UserRegistrationDTO.class)))
+                .thenReturn(CompletableFuture.failedFuture(new DuplicateUserException(DuplicateUserException.Reason.USERNAME_TAKEN)));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("USERNAME_TAKEN"));
+
+        verify(userService).registerUser(any(UserRegistrationDTO.class));
+        verify(auditLog).record(AuditEventType.SIGNUP_DUPLICATE, "test", null, null);
+    }
+
     @Test
     void testSignIn_ValidRequest_ShouldSucceedWithOk() throws Exception {
 
         UserLoginDTO req = new UserLoginDTO("test", "testPassword");
         UserDTO expected = new UserDTO("1L", "test", "test@gmail.com", "test", "test", FIXED_TIME, FIXED_TIME);
 
-        when(userService.authenticateUser(any(UserLoginDTO.class))).thenReturn(expected);
+        when(userService.authenticateUser(any(UserLoginDTO.class))).thenReturn(CompletableFuture.completedFuture(expected));
+        when(refreshTokenService.issue(eq("1L"), eq("test"), any(), anyLong()))
+                .thenReturn(new TokenPair("access", "refresh"));
 
-        mockMvc.perform(post("/api/v1/user/signin")
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signin")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.user.id").value(expected.getId()))
                 .andExpect(jsonPath("$.user.username").value(expected.getUsername()))
@@ -107,9 +183,12 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.user.firstName").value(expected.getFirstName()))
                 .andExpect(jsonPath("$.user.lastName").value(expected.getLastName()))
                 .andExpect(jsonPath("$.user.createdAt").value(expected.getCreatedAt().toString()))
-                .andExpect(jsonPath("$.user.updatedAt").value(expected.getUpdatedAt().toString()));
+                .andExpect(jsonPath("$.user.updatedAt").value(expected.getUpdatedAt().toString()))
+                .andExpect(jsonPath("$.token").value("access"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh"));
 
         verify(userService).authenticateUser(any(UserLoginDTO.class));
+        verify(auditLog).record(eq(AuditEventType.LOGIN_OK), eq("test"), eq("1L"), anyString());
     }
 
     @Test
@@ -131,11 +210,92 @@ public class UserControllerTest {
         when(userService.authenticateUser(any(UserLoginDTO.class)))
                 .thenThrow(new RuntimeException("Test RuntimeException"));
 
-        mockMvc.perform(post("/api/v1/user/signin")
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signin")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest());
 
         verify(userService).authenticateUser(any(UserLoginDTO.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSignIn_HashingQueueFull_ShouldFailWithServiceUnavailable() throws Exception {
+        UserLoginDTO req = new UserLoginDTO("test", "testPassword");
+
+        when(userService.authenticateUser(any(UserLoginDTO.class)))
+                .thenReturn(CompletableFuture.failedFuture(new PasswordHashingRejectedException(1)));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(userService).authenticateUser(any(UserLoginDTO.class));
+    }
+
+    @Test
+    void testSignIn_Throttled_ShouldFailWithTooManyRequests() throws Exception {
+        UserLoginDTO req = new UserLoginDTO("test", "testPassword");
+
+        doThrow(new LoginThrottledException(30)).when(loginThrottle).check(anyString(), anyString());
+
+        MvcResult result = mockMvc.perform(post("/api/v1/user/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"));
+
+        verify(userService, never()).authenticateUser(any(UserLoginDTO.class));
+        verify(auditLog).record(eq(AuditEventType.LOGIN_THROTTLED), eq("test"), isNull(), anyString());
+    }
+
+    @Test
+    void testRefresh_ValidToken_ShouldSucceedWithOk() throws Exception {
+        Instant now = Instant.now();
+        RefreshToken consumed = new RefreshToken("hash", "1L", "family", 0,
+                new IssuedToken("old", "jti", now.plusSeconds(900)), now, now.plusSeconds(3600));
+        UserDTO expected = new UserDTO("1L", "test", "test@gmail.com", "test", "test", FIXED_TIME, FIXED_TIME);
+
+        when(refreshTokenService.consume("presented")).thenReturn(consumed);
+        when(userService.getUser("1L")).thenReturn(Optional.of(expected));
+        when(refreshTokenService.rotate(eq(consumed), eq("test"), any(), anyLong()))
+                .thenReturn(new TokenPair("access", "next"));
+
+        mockMvc.perform(post("/api/v1/user/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenDTO("presented"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user.id").value(expected.getId()))
+                .andExpect(jsonPath("$.token").value("access"))
+                .andExpect(jsonPath("$.refreshToken").value("next"));
+
+        verify(auditLog).record(AuditEventType.REFRESH_OK, "test", "1L", null);
+    }
+
+    @Test
+    void testRefresh_ReusedToken_ShouldFailWithUnauthorized() throws Exception {
+        when(refreshTokenService.consume("presented"))
+                .thenThrow(new InvalidRefreshTokenException("Refresh token was already used", true));
+
+        mockMvc.perform(post("/api/v1/user/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenDTO("presented"))))
+                .andExpect(status().isUnauthorized());
+
+        verify(userService, never()).getUser(anyString());
+        verify(auditLog).record(AuditEventType.REFRESH_REUSED, null, null, null);
+    }
+}
@@ -1,23 +1,46 @@
 package com.ansoncht.catfoodtracker.user;
 
+import com.ansoncht.catfoodtracker.security.AuthMetrics;
+import com.ansoncht.catfoodtracker.security.CalibratedPasswordEncoder;
+import com.ansoncht.catfoodtracker.security.PasswordHasher;
 import com.ansoncht.catfoodtracker.user.dto.UserDTO;
 import com.ansoncht.catfoodtracker.user.dto.UserLoginDTO;
+import com.ansoncht.catfoodtracker.user.dto.UserPage;
 import com.ansoncht.catfoodtracker.user.dto.UserRegistrationDTO;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.util.AssertionErrors.assertEquals;
@@ -27,18 +50,28 @@ public class UserServiceTest {
     @Mock
     private UserRepository mockUserRepository;
 
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHasher passwordHasher;
     private UserService userService;
     private AutoCloseable closeable;
 
     @BeforeEach
     public void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
-        this.userService = new UserService(mockUserRepository);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.passwordHasher = new PasswordHasher(new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2),
+                meterRegistry, 1, 10, 1, 1);
+        this.userService = new UserService(mockUserRepository, passwordHasher, mockEventPublisher,
+                new AuthMetrics(meterRegistry));
 
     }
 
     @AfterEach
     public void tearDown() throws Exception {
+        passwordHasher.destroy();
         closeable.close();
     }
 
@@ -48,11 +81,9 @@ public class UserServiceTest {
         String encodedPassword = new BCryptPasswordEncoder().encode(req.getPassword());
         User expected = new User("test", "test@gmail.com", "test", "test", encodedPassword);
 
-        when(mockUserRepository.existsByEmail(req.getEmail())).thenReturn(false);
-        when(mockUserRepository.existsByUsername(req.getUsername())).thenReturn(false);
-        when(mockUserRepository.save(expected)).thenReturn(expected);
+        when(mockUserRepository.insert(expected)).thenReturn(expected);
 
-        UserDTO actual = this.userService.registerUser(req);
+        UserDTO actual = this.userService.registerUser(req).join();
 
         assertNotNull(actual);
         assertEquals("Response ID: ", expected.getId(), actual.getId());
@@ -61,35 +92,74 @@ public class UserServiceTest {
         assertEquals("Response First Name: ", expected.getFirstName(), actual.getFirstName());
         assertEquals("Response Last Name: ", expected.getLastName(), actual.getLastName());
 
-        verify(mockUserRepository).save(Mockito.any(User.class));
-        verify(mockUserRepository).existsByEmail(req.getEmail());
-        verify(mockUserRepository).existsByUsername(req.getUsername());
+        verify(mockUserRepository).insert(Mockito.any(User.class));
+        verify(mockUserRepository, times(2)).existsByLoginKeys(anyString());
     }
 
     @Test
     public void testRegisterUser_ExistingUsername_ShouldThrowException() {
         UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "test");
 
-        when(mockUserRepository.existsByUsername(req.getUsername())).thenReturn(true);
+        when(mockUserRepository.insert(Mockito.any(User.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error collection: test.users index: username dup key: { username: \"test\" }"));
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.registerUser(req));
-        assertNotNull(exception.getMessage());
+        CompletionException exception = assertThrows(CompletionException.class, () -> userService.registerUser(req).join());
+        DuplicateUserException duplicate = assertInstanceOf(DuplicateUserException.class, exception.getCause());
+        assertEquals("Reason: ", DuplicateUserException.Reason.USERNAME_TAKEN, duplicate.getReason());
 
-        verify(mockUserRepository).existsByUsername(req.getUsername());
+        verify(mockUserRepository).insert(Mockito.any(User.class));
     }
 
     @Test
     public void testRegisterUser_ExistingEmail_ShoudThrowException() {
         UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "test");
 
-        when(mockUserRepository.existsByUsername(req.getUsername())).thenReturn(false);
-        when(mockUserRepository.existsByEmail(req.getEmail())).thenReturn(true);
+        when(mockUserRepository.insert(Mockito.any(User.class))).thenThrow(duplicateKey("email", "test@gmail.com"));
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.registerUser(req));
-        assertNotNull(exception.getMessage());
+        CompletionException exception = assertThrows(CompletionException.class, () -> userService.registerUser(req).join());
+        DuplicateUserException duplicate = assertInstanceOf(DuplicateUserException.class, exception.getCause());
+        assertEquals("Reason: ", DuplicateUserException.Reason.EMAIL_TAKEN, duplicate.getReason());
+
+        verify(mockUserRepository).insert(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testRegisterUser_RepeatedDuplicate_ShouldRejectBeforeHashing() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "test");
+
+        when(mockUserRepository.insert(Mockito.any(User.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error collection: test.users index: username dup key: { username: \"test\" }"));
+
+        assertThrows(CompletionException.class, () -> userService.registerUser(req).join());
+        DuplicateUserException duplicate = assertThrows(DuplicateUserException.class, () -> userService.registerUser(req));
+        assertEquals("Reason: ", DuplicateUserException.Reason.USERNAME_TAKEN, duplicate.getReason());
+
+        verify(mockUserRepository, times(1)).insert(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testRegisterUser_TakenLoginKey_ShouldRejectBeforeHashing() {
+        UserRegistrationDTO req = new UserRegistrationDTO("Test", "test@gmail.com", "test", "test", "test");
+
+        when(mockUserRepository.existsByLoginKeys("test")).thenReturn(true);
+
+        DuplicateUserException duplicate = assertThrows(DuplicateUserException.class, () -> userService.registerUser(req));
+        assertEquals("Reason: ", DuplicateUserException.Reason.USERNAME_TAKEN, duplicate.getReason());
+
+        verify(mockUserRepository, never()).insert(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testRegisterUser_DuplicateWithoutKey_ShouldLookUpTheTakenIdentifier() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "test");
+
+        // Free when checked before hashing, taken by a racing registration when the insert runs.
+        when(mockUserRepository.existsByLoginKeys("test@gmail.com")).thenReturn(false, true);
+        when(mockUserRepository.insert(Mockito.any(User.class))).thenThrow(new DuplicateKeyException("E11000"));
 
-        verify(mockUserRepository).existsByEmail(req.getEmail());
-        verify(mockUserRepository).existsByUsername(req.getUsername());
+        CompletionException exception = assertThrows(CompletionException.class, () -> userService.registerUser(req).join());
+        DuplicateUserException duplicate = assertInstanceOf(DuplicateUserException.class, exception.getCause());
+        assertEquals("Reason: ", DuplicateUserException.Reason.EMAIL_TAKEN, duplicate.getReason());
     }
 
     @Test
@@ -98,9 +168,9 @@ public class UserServiceTest {
         String encodedPassword = new BCryptPasswordEncoder().encode(req.getPassword());
         User expected = new User("test", "test@gmail.com", "test", "test", encodedPassword);
 
-        when(mockUserRepository.findByUsernameOrEmail(req.getUsernameOrEmail(), req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
+        when(mockUserRepository.findByLoginKeys(req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
 
-        UserDTO actual = this.userService.authenticateUser(req);
+        UserDTO actual = this.userService.authenticateUser(req).join();
 
         assertNotNull(actual);
         assertEquals("Response ID: ", actual.getId(), expected.getId());
@@ -109,19 +179,46 @@ public class UserServiceTest {
         assertEquals("Response First Name: ", actual.getFirstName(), expected.getFirstName());
         assertEquals("Response Last Name: ", actual.getLastName(), expected.getLastName());
 
-        verify(mockUserRepository).findByUsernameOrEmail(req.getUsernameOrEmail(), req.getUsernameOrEmail());
+        verify(mockUserRepository).findByLoginKeys(req.getUsernameOrEmail());
+    }
+
+    @Test
+    public void testAuthenticateUser_LegacyHash_ShouldUpgradeHash() {
+        UserLoginDTO req = new UserLoginDTO("test@gmail.com", "password");
+        String legacyPassword = new BCryptPasswordEncoder().encode(req.getPassword());
+        User expected = new User("test", "test@gmail.com", "test", "test", legacyPassword);
+
+        when(mockUserRepository.findByLoginKeys(req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
+
+        this.userService.authenticateUser(req).join();
+
+        verify(mockUserRepository, timeout(5000)).updatePasswordById(Mockito.isNull(), startsWith("{bcrypt}$2a$04$"));
+        verify(mockEventPublisher, timeout(5000)).publishEvent(any(UserChangedEvent.class));
+    }
+
+    @Test
+    public void testAuthenticateUser_CurrentHash_ShouldNotUpgradeHash() {
+        UserLoginDTO req = new UserLoginDTO("test@gmail.com", "password");
+        String currentPassword = new CalibratedPasswordEncoder(CalibratedPasswordEncoder.BCRYPT, 4, 2).encode(req.getPassword());
+        User expected = new User("test", "test@gmail.com", "test", "test", currentPassword);
+
+        when(mockUserRepository.findByLoginKeys(req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
+
+        this.userService.authenticateUser(req).join();
+
+        verify(mockUserRepository, never()).updatePasswordById(anyString(), anyString());
     }
 
     @Test
     public void testAuthenticateUser_NonExistentUser_ShouldThrowException() {
         UserLoginDTO req = new UserLoginDTO("test@gmail.com", "test");
 
-        when(mockUserRepository.findByUsernameOrEmail(req.getUsernameOrEmail(), req.getUsernameOrEmail())).thenReturn(Optional.empty());
+        when(mockUserRepository.findByLoginKeys(req.getUsernameOrEmail())).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> this.userService.authenticateUser(req));
         assertNotNull(exception.getMessage());
 
-        verify(mockUserRepository).findByUsernameOrEmail(req.getUsernameOrEmail(), req.getUsernameOrEmail());
+        verify(mockUserRepository).findByLoginKeys(req.getUsernameOrEmail());
     }
 
     @Test
@@ -129,35 +226,155 @@ public class UserServiceTest {
         UserLoginDTO req = new UserLoginDTO("test@gmail.com", "wrongpassword");
         User expected = new User("test", "test@gmail.com", "test", "test", "encodedCorrectPassword");
 
-        when(mockUserRepository.findByUsernameOrEmail(req.getUsernameOrEmail(), req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
+        when(mockUserRepository.findByLoginKeys(req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> this.userService.authenticateUser(req));
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> this.userService.authenticateUser(req).join());
         assertNotNull(exception.getMessage());
 
-        verify(mockUserRepository).findByUsernameOrEmail(req.getUsernameOrEmail(), req.getUsernameOrEmail());
+        verify(mockUserRepository).findByLoginKeys(req.getUsernameOrEmail());
     }
 
     @Test
     public void testLoadUserByUsername_ValidUsername_ShouldSucceed() {
         User expected = new User("test", "test@gmail.com", "test", "test", "encodedCorrectPassword");
 
-        when(mockUserRepository.findByUsernameOrEmail(expected.getUsername(), expected.getUsername())).thenReturn(Optional.of(expected));
+        when(mockUserRepository.findCredentialsByLoginKeys(expected.getUsername())).thenReturn(Optional.of(credentials(expected)));
 
         UserDetails actual = this.userService.loadUserByUsername(expected.getUsername());
 
         assertNotNull(actual);
         assertEquals("Response Username: ", actual.getUsername(), expected.getUsername());
 
-        verify(mockUserRepository).findByUsernameOrEmail(expected.getUsername(), expected.getUsername());
+        verify(mockUserRepository).findCredentialsByLoginKeys(expected.getUsername());
     }
 
     @Test
     void loadUserByUsername_NonExistentUser_ShouldThrowsException() {
-        when(mockUserRepository.findByUsernameOrEmail(anyString(), anyString())).thenReturn(Optional.empty());
+        when(mockUserRepository.findCredentialsByLoginKeys(anyString())).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(UsernameNotFoundException.class, () -> this.userService.loadUserByUsername("testuser"));
         assertNotNull(exception.getMessage());
 
-        verify(mockUserRepository).findByUsernameOrEmail(anyString(), anyString());
+        verify(mockUserRepository).findCredentialsByLoginKeys(anyString());
+    }
+
+    @Test
+    public void testAuthenticateUser_MixedCaseLogin_ShouldLookUpNormalizedKey() {
+        UserLoginDTO req = new UserLoginDTO("Test@Gmail.com", "password");
+        String encodedPassword = new BCryptPasswordEncoder().encode(req.getPassword());
+        User expected = new User("test", "test@gmail.com", "test", "test", encodedPassword);
+
+        when(mockUserRepository.findByLoginKeys("test@gmail.com")).thenReturn(Optional.of(expected));
+
+        UserDTO actual = this.userService.authenticateUser(req).join();
+
+        assertEquals("Response Username: ", expected.getUsername(), actual.getUsername());
+
+        verify(mockUserRepository).findByLoginKeys("test@gmail.com");
+    }
+
+    @Test
+    public void testRegisterUser_DuplicateLoginKey_ShouldReportEmailTaken() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "Test@gmail.com", "test", "test", "test");
+
+        when(mockUserRepository.insert(Mockito.any(User.class))).thenThrow(duplicateKey("loginKeys", "test@gmail.com"));
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> userService.registerUser(req).join());
+        DuplicateUserException duplicate = assertInstanceOf(DuplicateUserException.class, exception.getCause());
+        assertEquals("Reason: ", DuplicateUserException.Reason.EMAIL_TAKEN, duplicate.getReason());
+    }
+
+    @Test
+    public void testRegisterUser_ValidRequest_ShouldTimeEachStage() {
+        UserRegistrationDTO req = new UserRegistrationDTO("test", "test@gmail.com", "test", "test", "test");
+
+        when(mockUserRepository.insert(Mockito.any(User.class))).thenAnswer((invocation) -> invocation.getArgument(0));
+
+        this.userService.registerUser(req).join();
+
+        for (String stage : new String[] {AuthMetrics.DUPLICATE_CHECK, AuthMetrics.HASHING, AuthMetrics.INSERT}) {
+            assertEquals("Stage " + stage + ": ", 1L, meterRegistry.get(AuthMetrics.REGISTRATION)
+                    .tags("stage", stage, "outcome", AuthMetrics.SUCCESS).timer().count());
+        }
+    }
+
+    @Test
+    public void testAuthenticateUser_IncorrectPassword_ShouldTimeMismatch() {
+        UserLoginDTO req = new UserLoginDTO("test", "wrongPassword");
+        String encodedPassword = new BCryptPasswordEncoder(4).encode("password");
+        User expected = new User("test", "test@gmail.com", "test", "test", encodedPassword);
+
+        when(mockUserRepository.findByLoginKeys(req.getUsernameOrEmail())).thenReturn(Optional.of(expected));
+
+        assertThrows(CompletionException.class, () -> userService.authenticateUser(req).join());
+
+        assertEquals("Lookup: ", 1L, meterRegistry.get(AuthMetrics.AUTHENTICATION)
+                .tags("stage", AuthMetrics.LOOKUP, "outcome", AuthMetrics.FOUND).timer().count());
+        assertEquals("Password verify: ", 1L, meterRegistry.get(AuthMetrics.AUTHENTICATION)
+                .tags("stage", AuthMetrics.PASSWORD_VERIFY, "outcome", AuthMetrics.MISMATCH).timer().count());
+    }
+
+    @Test
+    public void testListUsers_MorePages_ShouldReturnContinuationForLastUser() {
+        List<UserProfile> profiles = List.of(profile("a1"), profile("a2"), profile("a3"));
+        when(mockUserRepository.findProfilesByOrderByIdAsc(Limit.of(3))).thenReturn(profiles);
+
+        UserPage page = userService.listUsers(null, 2);
+
+        assertEquals("Page size: ", 2, page.users().size());
+        assertEquals("Last user: ", "a2", page.users().get(1).getId());
+        assertEquals("Continuation: ", "a2", UserService.decodeContinuation(page.next()));
+    }
+
+    @Test
+    public void testListUsers_Continuation_ShouldSeekPastPreviousPage() {
+        when(mockUserRepository.findProfilesByIdGreaterThanOrderByIdAsc("a2", Limit.of(3)))
+                .thenReturn(List.of(profile("a3")));
+
+        UserPage page = userService.listUsers(UserService.encodeContinuation("a2"), 2);
+
+        assertEquals("Users: ", 1, page.users().size());
+        assertNull(page.next());
+        verify(mockUserRepository, never()).findProfilesByOrderByIdAsc(any());
+    }
+
+    @Test
+    public void testListUsers_OversizedLimit_ShouldCapPageSize() {
+        when(mockUserRepository.findProfilesByOrderByIdAsc(any())).thenReturn(List.of());
+
+        userService.listUsers(null, 100000);
+
+        verify(mockUserRepository).findProfilesByOrderByIdAsc(Limit.of(UserService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void testListUsers_MalformedContinuation_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.listUsers("not*base64", 10));
+    }
+
+    private static UserProfile profile(String id) {
+        User user = new User(id, id + "@gmail.com", "test", "test", "hash");
+        user.setId(id);
+
+        return new SpelAwareProxyProjectionFactory().createProjection(UserProfile.class, user);
+    }
+
+    private static UserCredentials credentials(User user) {
+        return new SpelAwareProxyProjectionFactory().createProjection(UserCredentials.class, user);
+    }
+
+    /**
+     * A duplicate-key error as translated from a command error, which carries
+     * the key pattern and value.
+     */
+    private static DuplicateKeyException duplicateKey(String field, String value) {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(11000))
+                .append("errmsg", new BsonString("E11000 duplicate key error"))
+                .append("keyPattern", new BsonDocument(field, new BsonInt32(1)))
+                .append("keyValue", new BsonDocument(field, new BsonString(value)));
+
+        return new DuplicateKeyException("E11000 duplicate key error",
+                new MongoCommandException(response, new ServerAddress()));
     }
 }